@@ -0,0 +1,29 @@
+package com.example.gamevault.configuration;
+
+import com.example.gamevault.service.CatalogImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+// Imports the catalogue file named by gamevault.catalog.import.file, if any, once the application has started.
+@Configuration
+public class CatalogImportRunner implements ApplicationRunner {
+
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    @Value("${gamevault.catalog.import.file:}")
+    private String importFile;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!importFile.isBlank()) {
+            catalogImportService.importCatalog(Path.of(importFile));
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.example.gamevault.configuration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits how many threads may hold or wait for a connection of the wrapped pool at once.
+ * <p>
+ * On platform threads the servlet thread pool already bounds this. On virtual threads every request has a thread of
+ * its own, so a burst of requests would otherwise queue inside the pool until its connection timeout. Past the limit a
+ * thread waits at most the admission timeout for a place and then fails with {@link SQLTransientConnectionException}.
+ * A place is given back when the connection is closed.
+ * <p>
+ * Closing it closes the wrapped pool, which is no longer a bean of its own once replaced by this one.
+ */
+public class ConnectionAdmissionDataSource extends DelegatingDataSource implements Closeable {
+    private static final Logger logger = LogManager.getLogger(ConnectionAdmissionDataSource.class);
+
+    private final int maxConnectionHolders;
+    private final long admissionTimeoutNanos;
+    private final Semaphore admissions;
+    private final Counter rejections;
+
+    public ConnectionAdmissionDataSource(DataSource dataSource, int maxConnectionHolders, Duration admissionTimeout, MeterRegistry meterRegistry) {
+        super(dataSource);
+        this.maxConnectionHolders = maxConnectionHolders;
+        this.admissionTimeoutNanos = admissionTimeout.toNanos();
+        this.admissions = new Semaphore(maxConnectionHolders, true);
+        this.rejections = meterRegistry.counter("gamevault.database.admissions.rejected");
+        Gauge.builder("gamevault.database.admissions.holders", admissions, permits -> maxConnectionHolders - permits.availablePermits())
+                .description("Threads holding or waiting for a pooled database connection")
+                .register(meterRegistry);
+    }
+
+    public int getMaxConnectionHolders() {
+        return maxConnectionHolders;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        admit();
+        try {
+            return releasingOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            admissions.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        admit();
+        try {
+            return releasingOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            admissions.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (getTargetDataSource() instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void admit() throws SQLException {
+        try {
+            if (admissions.tryAcquire(admissionTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting to request a database connection.", e);
+        }
+        rejections.increment();
+        logger.error("{} threads are already holding or waiting for a database connection. Rejecting request.", maxConnectionHolders);
+        throw new SQLTransientConnectionException("Database connection admission limit of " + maxConnectionHolders + " reached.");
+    }
+
+    // Gives the place back on the first close only, however often the connection is closed.
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "close":
+                    try {
+                        connection.close();
+                    } finally {
+                        if (released.compareAndSet(false, true)) {
+                            admissions.release();
+                        }
+                    }
+                    return null;
+                default:
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        });
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.example.gamevault.configuration;
+
+import jakarta.annotation.PostConstruct;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.*;
+
+/**
+ * Converts credit columns created when credits were stored as doubles into whole cents held in BIGINT columns.
+ * <p>
+ * Each column is copied into a temporary "_cents" column, then swapped in with a single ALTER TABLE, so a migration
+ * interrupted half way resumes from the copy step on the next start-up instead of scaling values twice.
+ */
+@Configuration
+public class CreditsSchemaMigration {
+    private static final Logger logger = LogManager.getLogger(CreditsSchemaMigration.class);
+    private static final String[][] CREDIT_COLUMNS = {
+            {"gamer", "total_credits", "NOT NULL"},
+            {"video_games", "credits", "NOT NULL"},
+            {"transaction", "cost", "NOT NULL"},
+            {"transaction", "credits_paid", "NULL"},
+            {"transaction", "credits_to_pay", "NULL"}
+    };
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void migrate() throws SQLException {
+        for (String[] creditColumn : CREDIT_COLUMNS) {
+            migrateColumn(creditColumn[0], creditColumn[1], creditColumn[2]);
+        }
+    }
+
+    private void migrateColumn(String table, String column, String nullability) throws SQLException {
+        String centsColumn = column + "_cents";
+        Integer columnType = getColumnType(table, column);
+        if (columnType == null || !isFloatingPointType(columnType)) {
+            return;
+        }
+
+        logger.info("Migrating {}.{} from floating point credits to whole cents.", table, column);
+        if (getColumnType(table, centsColumn) == null) {
+            jdbcTemplate.execute("ALTER TABLE `" + table + "` ADD COLUMN `" + centsColumn + "` BIGINT NULL");
+        }
+        int migratedRows = jdbcTemplate.update("UPDATE `" + table + "` SET `" + centsColumn + "` = ROUND(`" + column + "` * 100) WHERE `" + column + "` IS NOT NULL");
+        jdbcTemplate.execute("ALTER TABLE `" + table + "` DROP COLUMN `" + column + "`, CHANGE `" + centsColumn + "` `" + column + "` BIGINT " + nullability);
+        logger.info("Migrated {} rows of {}.{} to whole cents.", migratedRows, table, column);
+    }
+
+    private Integer getColumnType(String table, String column) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             ResultSet columns = connection.getMetaData().getColumns(connection.getCatalog(), null, table, column)) {
+            return columns.next() ? columns.getInt("DATA_TYPE") : null;
+        }
+    }
+
+    private boolean isFloatingPointType(int columnType) {
+        return columnType == Types.DOUBLE || columnType == Types.FLOAT || columnType == Types.REAL || columnType == Types.DECIMAL;
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.example.gamevault.configuration;
+
+import com.example.gamevault.model.VideoGame;
+import com.example.gamevault.repository.VideoGameRepository;
+import com.example.gamevault.service.ShardedStockService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.Optional;
+
+// Shards the stock of the titles named by gamevault.stock.sharding.hot-titles once the application has started.
+@Configuration
+public class HotTitleShardingRunner implements ApplicationRunner {
+    private static final Logger logger = LogManager.getLogger(HotTitleShardingRunner.class);
+
+    @Autowired
+    private ShardedStockService shardedStockService;
+
+    @Autowired
+    private VideoGameRepository videoGameRepository;
+
+    @Value("${gamevault.stock.sharding.hot-titles:}")
+    private List<String> hotTitles;
+
+    @Value("${gamevault.stock.sharding.shards:8}")
+    private int shards;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!shardedStockService.isEnabled()) {
+            return;
+        }
+        for (String title : hotTitles) {
+            Optional<VideoGame> videoGame = videoGameRepository.findByTitle(title.trim());
+            if (videoGame.isPresent()) {
+                shardedStockService.shardVideoGame(videoGame.get().getId(), shards);
+            } else {
+                logger.error("Hot title {} not found. Its stock is not sharded.", title);
+            }
+        }
+    }
+
+}
@@ -3,22 +3,31 @@ package com.example.gamevault.configuration;
 import com.example.gamevault.exception.*;
 import com.example.gamevault.model.Gamer;
 import com.example.gamevault.model.Person;
-import com.example.gamevault.model.VideoGame;
 import com.example.gamevault.repository.GamerRepository;
 import com.example.gamevault.repository.VideoGameRepository;
+import com.example.gamevault.service.CatalogImportService;
 import com.example.gamevault.service.GamerService;
 import jakarta.annotation.PostConstruct;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.io.ClassPathResource;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
 @Configuration
+@DependsOn({"creditsSchemaMigration", "transactionTimeSchemaMigration"})
 public class InitialStartupConfiguration {
     private static final Logger logger = LogManager.getLogger(InitialStartupConfiguration.class);
+    private static final String INITIAL_CATALOG = "catalog/initial-catalog.csv";
 
     @Autowired
     private VideoGameRepository videoGameRepository;
@@ -29,6 +38,9 @@ public class InitialStartupConfiguration {
     @Autowired
     private GamerService gamerService;
 
+    @Autowired
+    private CatalogImportService catalogImportService;
+
     @PostConstruct
     public void initialize() throws InvalidNameException, InvalidEmailAddressException, UnavailableEmailAddressException, InvalidPasswordException, InvalidUsernameException, UnavailableUsernameException {
         initializeGamers();
@@ -53,21 +65,12 @@ public class InitialStartupConfiguration {
     @PostConstruct
     private void initializeVideoGames() {
         if (videoGameRepository.count() == 0) {
-            List<VideoGame> initialVideoGames = new ArrayList<> ();
-            VideoGame videoGame1 = new VideoGame("FIFA 20", "EA Sports", 15, 20);
-            VideoGame videoGame2 = new VideoGame("Pro Evolution Soccer 2019", "Konami", 12, 10);
-            VideoGame videoGame3 = new VideoGame("Spider-man 2", "Treyarch", 14, 4);
-            VideoGame videoGame4 = new VideoGame("WWE 2K23", "Visual Concepts", 1, 10);
-            initialVideoGames.add(videoGame1);
-            initialVideoGames.add(videoGame2);
-            initialVideoGames.add(videoGame3);
-            initialVideoGames.add(videoGame4);
-            videoGameRepository.saveAll(initialVideoGames);
-            logger.info("4 video games created if there are no video games at start of application.");
-            logger.info("{}", videoGame1.toString());
-            logger.info("{}", videoGame2.toString());
-            logger.info("{}", videoGame3.toString());
-            logger.info("{}", videoGame4.toString());
+            try (Reader reader = new InputStreamReader(new ClassPathResource(INITIAL_CATALOG).getInputStream(), StandardCharsets.UTF_8)) {
+                catalogImportService.importCatalog(reader, CatalogImportService.Format.CSV);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read " + INITIAL_CATALOG, e);
+            }
+            logger.info("Video games imported from {} as there are no video games at start of application.", INITIAL_CATALOG);
         }
     }
 
@@ -0,0 +1,74 @@
+package com.example.gamevault.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies when gamevault.datasource.replica.enabled is set, in which case the application's DataSource becomes a
+ * {@link ReadWriteRoutingDataSource} over a pool for spring.datasource, the primary, and one for each of the replica
+ * URLs. The pools are built here rather than exposed as beans, so that only the routing DataSource is wrapped or
+ * initialised by the rest of the configuration.
+ */
+@Configuration
+@ConditionalOnProperty(name = "gamevault.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfiguration {
+    private static final Logger logger = LogManager.getLogger(ReadReplicaConfiguration.class);
+
+    @Bean
+    public ReadWriteRoutingDataSource dataSource(DataSourceProperties dataSourceProperties,
+                                                 Environment environment,
+                                                 MeterRegistry meterRegistry,
+                                                 @Value("${gamevault.datasource.replica.urls}") String urls,
+                                                 @Value("${gamevault.datasource.replica.username:${spring.datasource.username:}}") String username,
+                                                 @Value("${gamevault.datasource.replica.password:${spring.datasource.password:}}") String password,
+                                                 @Value("${gamevault.datasource.replica.pool-size:10}") int poolSize,
+                                                 @Value("${gamevault.datasource.replica.max-lag-ms:1000}") long maxLagMs,
+                                                 @Value("${gamevault.datasource.replica.check-interval-ms:250}") long checkIntervalMs) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : StringUtils.commaDelimitedListToStringArray(urls)) {
+            if (!url.isBlank()) {
+                HikariDataSource replica = new HikariDataSource();
+                replica.setPoolName("replica-" + replicas.size());
+                replica.setJdbcUrl(url.trim());
+                replica.setUsername(username);
+                replica.setPassword(password);
+                replica.setDriverClassName(dataSourceProperties.determineDriverClassName());
+                replica.setMaximumPoolSize(poolSize);
+                replica.setReadOnly(true);
+                replicas.add(replica);
+            }
+        }
+        logger.info("Routing read-only transactions to {} read replicas with at most {} ms of lag.", replicas.size(), maxLagMs);
+        return new ReadWriteRoutingDataSource(primary, replicas, Duration.ofMillis(maxLagMs), Duration.ofMillis(checkIntervalMs), meterRegistry);
+    }
+
+    // Without releasing connections after each transaction, open-in-view would hold the connection of a request's
+    // first transaction for the whole request, and with it that transaction's choice of primary or replica.
+    @Bean
+    public HibernatePropertiesCustomizer connectionReleasePerTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING, PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+}
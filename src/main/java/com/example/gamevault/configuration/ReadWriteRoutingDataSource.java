@@ -0,0 +1,209 @@
+package com.example.gamevault.configuration;
+
+import com.example.gamevault.service.ReplicaReads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the statements of read-only transactions that allow {@link ReplicaReads} to read replicas, taken in turn, and
+ * everything else to the primary. A connection is only fetched when its first statement runs, by which time the
+ * transaction has been marked read-only.
+ * <p>
+ * Replica lag is measured with a heartbeat: every check interval this instance writes the current time to its row of
+ * the replica_heartbeats table on the primary, and reads the row back from each replica. A replica holding an older
+ * time than the maximum lag allows, or one that cannot be reached, is passed over until a later check finds it caught
+ * up, and when no replica qualifies the primary serves the read. Lag is measured to within one check interval, so the
+ * maximum lag should be a few intervals long.
+ */
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+    private static final Logger logger = LogManager.getLogger(ReadWriteRoutingDataSource.class);
+    private static final long STALE_HEARTBEAT_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final Router router;
+    private final JdbcTemplate primaryJdbcTemplate;
+    private final Duration checkInterval;
+    private final String instanceId = UUID.randomUUID().toString();
+    private ScheduledExecutorService lagChecker;
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final JdbcTemplate jdbcTemplate;
+        // Epoch milliseconds up to which the primary's writes are known to have reached the replica.
+        private volatile long replicatedUpTo = Long.MIN_VALUE;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+    }
+
+    private static final class Router extends AbstractDataSource {
+        private final DataSource primary;
+        private final List<Replica> replicas;
+        private final long maxLagMillis;
+        private final AtomicInteger next = new AtomicInteger();
+        private final Counter replicaReads;
+        private final Counter primaryReads;
+
+        private Router(DataSource primary, List<Replica> replicas, long maxLagMillis, MeterRegistry meterRegistry) {
+            this.primary = primary;
+            this.replicas = replicas;
+            this.maxLagMillis = maxLagMillis;
+            this.replicaReads = meterRegistry.counter("gamevault.datasource.reads", "target", "replica");
+            this.primaryReads = meterRegistry.counter("gamevault.datasource.reads", "target", "primary_fallback");
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || !ReplicaReads.isAllowed()) {
+                return primary.getConnection();
+            }
+            long now = System.currentTimeMillis();
+            long requiredSince = Math.max(now - maxLagMillis, ReplicaReads.getRequiredSince());
+            int first = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((first + i) % replicas.size());
+                if (replica.replicatedUpTo >= requiredSince) {
+                    try {
+                        Connection connection = replica.dataSource.getConnection();
+                        replicaReads.increment();
+                        return connection;
+                    } catch (SQLException e) {
+                        replica.replicatedUpTo = Long.MIN_VALUE;
+                        ReadWriteRoutingDataSource.logger.error("Unable to connect to read replica {}. Reading from the primary until it is reachable.", replica.name, e);
+                    }
+                }
+            }
+            primaryReads.increment();
+            return primary.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new UnsupportedOperationException("Connections are taken from the configured pools.");
+        }
+    }
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources, Duration maxLag, Duration checkInterval, MeterRegistry meterRegistry) {
+        this(new Router(primary, replicasOf(replicaDataSources, meterRegistry), maxLag.toMillis(), meterRegistry), checkInterval);
+    }
+
+    // The target is set without the proxy's initialising constructor, so that only afterPropertiesSet initialises it.
+    private ReadWriteRoutingDataSource(Router router, Duration checkInterval) {
+        setTargetDataSource(router);
+        this.router = router;
+        this.primaryJdbcTemplate = new JdbcTemplate(router.primary);
+        this.checkInterval = checkInterval;
+    }
+
+    private static List<Replica> replicasOf(List<DataSource> dataSources, MeterRegistry meterRegistry) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("Read/write routing needs at least one read replica.");
+        }
+        List<Replica> replicas = new ArrayList<>(dataSources.size());
+        for (int i = 0; i < dataSources.size(); i++) {
+            Replica replica = new Replica("replica-" + i, dataSources.get(i));
+            Gauge.builder("gamevault.datasource.replica.lag", replica, r -> (r.replicatedUpTo == Long.MIN_VALUE) ? Double.NaN : System.currentTimeMillis() - r.replicatedUpTo)
+                    .tag("replica", replica.name)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            replicas.add(replica);
+        }
+        return replicas;
+    }
+
+    // The pools connections are taken from, the primary's first.
+    public List<DataSource> getPooledDataSources() {
+        List<DataSource> dataSources = new ArrayList<>(router.replicas.size() + 1);
+        dataSources.add(router.primary);
+        for (Replica replica : router.replicas) {
+            dataSources.add(replica.dataSource);
+        }
+        return dataSources;
+    }
+
+    // Replicas are only used once a first check has found them caught up.
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        primaryJdbcTemplate.execute("CREATE TABLE IF NOT EXISTS replica_heartbeats (instance_id VARCHAR(36) NOT NULL PRIMARY KEY, beat_at BIGINT NOT NULL)");
+        primaryJdbcTemplate.update("DELETE FROM replica_heartbeats WHERE beat_at < ?", System.currentTimeMillis() - STALE_HEARTBEAT_MILLIS);
+        checkReplicas();
+        lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagChecker.scheduleWithFixedDelay(this::checkReplicas, checkInterval.toMillis(), checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Reads each replica's heartbeat before writing the next, so a replica's time is one its reads are known to cover.
+    public void checkReplicas() {
+        for (Replica replica : router.replicas) {
+            try {
+                List<Long> beats = replica.jdbcTemplate.queryForList("SELECT beat_at FROM replica_heartbeats WHERE instance_id = ?", Long.class, instanceId);
+                replica.replicatedUpTo = beats.isEmpty() ? Long.MIN_VALUE : beats.get(0);
+            } catch (DataAccessException e) {
+                if (replica.replicatedUpTo != Long.MIN_VALUE) {
+                    logger.error("Unable to read heartbeat from read replica {}. Reading from the primary until it is reachable.", replica.name, e);
+                }
+                replica.replicatedUpTo = Long.MIN_VALUE;
+            }
+        }
+        try {
+            long beat = System.currentTimeMillis();
+            if (primaryJdbcTemplate.update("UPDATE replica_heartbeats SET beat_at = ? WHERE instance_id = ?", beat, instanceId) == 0) {
+                primaryJdbcTemplate.update("INSERT INTO replica_heartbeats (instance_id, beat_at) VALUES (?, ?)", instanceId, beat);
+            }
+        } catch (DataAccessException e) {
+            logger.error("Unable to write replica heartbeat to the primary.", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (lagChecker != null) {
+            lagChecker.shutdownNow();
+        }
+        try {
+            primaryJdbcTemplate.update("DELETE FROM replica_heartbeats WHERE instance_id = ?", instanceId);
+        } catch (DataAccessException e) {
+            logger.error("Unable to remove replica heartbeat from the primary.", e);
+        }
+        closeIfCloseable(router.primary);
+        for (Replica replica : router.replicas) {
+            closeIfCloseable(replica.dataSource);
+        }
+    }
+
+    private static void closeIfCloseable(DataSource dataSource) throws IOException {
+        if (dataSource instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+}
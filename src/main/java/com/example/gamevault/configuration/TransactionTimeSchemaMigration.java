@@ -0,0 +1,66 @@
+package com.example.gamevault.configuration;
+
+import jakarta.annotation.PostConstruct;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Converts the "dd-MM-yyyy HH:mm:ss" string dates of transactions into DATETIME columns holding UTC instants.
+ * <p>
+ * The strings were written in the server's local time, so they are parsed and shifted from the session time zone to
+ * UTC before the string columns are dropped. transaction_date_time becomes transaction_time, latest_purchase_date
+ * becomes expires_at, and date_of_cancellation is dropped because it always equalled the cancellation's own
+ * transaction time.
+ */
+@Configuration
+public class TransactionTimeSchemaMigration {
+    private static final Logger logger = LogManager.getLogger(TransactionTimeSchemaMigration.class);
+    private static final String LEGACY_DATE_TIME_FORMAT = "'%d-%m-%Y %H:%i:%s'";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void migrate() throws SQLException {
+        migrateColumn("transaction_date_time", "transaction_time");
+        migrateColumn("latest_purchase_date", "expires_at");
+        if (hasColumn("date_of_cancellation")) {
+            jdbcTemplate.execute("ALTER TABLE `transaction` DROP COLUMN `date_of_cancellation`");
+            logger.info("Dropped transaction.date_of_cancellation.");
+        }
+    }
+
+    private void migrateColumn(String legacyColumn, String timeColumn) throws SQLException {
+        if (!hasColumn(legacyColumn)) {
+            return;
+        }
+
+        logger.info("Migrating transaction.{} into transaction.{}.", legacyColumn, timeColumn);
+        if (!hasColumn(timeColumn)) {
+            jdbcTemplate.execute("ALTER TABLE `transaction` ADD COLUMN `" + timeColumn + "` DATETIME(6) NULL");
+        }
+        int migratedRows = jdbcTemplate.update("UPDATE `transaction` SET `" + timeColumn + "` = CONVERT_TZ(STR_TO_DATE(`" + legacyColumn + "`, " + LEGACY_DATE_TIME_FORMAT + "), @@session.time_zone, '+00:00')"
+                + " WHERE `" + timeColumn + "` IS NULL AND `" + legacyColumn + "` IS NOT NULL");
+        jdbcTemplate.execute("ALTER TABLE `transaction` DROP COLUMN `" + legacyColumn + "`");
+        logger.info("Migrated {} rows of transaction.{} into transaction.{}.", migratedRows, legacyColumn, timeColumn);
+    }
+
+    private boolean hasColumn(String column) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             ResultSet columns = connection.getMetaData().getColumns(connection.getCatalog(), null, "transaction", column)) {
+            return columns.next();
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.example.gamevault.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Applies when spring.threads.virtual.enabled is set on a Java 21 runtime, in which case Spring Boot runs request
+ * handling, scheduled jobs and application events on virtual threads. Blocking calls into the repositories then park
+ * their virtual thread instead of holding a servlet thread, so the database pool rather than the thread pool becomes
+ * the limit, and the pool is wrapped in a {@link ConnectionAdmissionDataSource}.
+ * <p>
+ * Password hashing stays on the bounded platform thread pool of the password encoder, since it is CPU bound.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfiguration {
+    private static final Logger logger = LogManager.getLogger(VirtualThreadConfiguration.class);
+    private static final int DEFAULT_HOLDERS_PER_CONNECTION = 4;
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    public static BeanPostProcessor connectionAdmissionPostProcessor(@Value("${gamevault.virtual-threads.max-connection-holders:0}") int maxConnectionHolders,
+                                                                     @Value("${gamevault.virtual-threads.connection-admission-timeout-ms:1000}") long admissionTimeoutMs,
+                                                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionAdmissionDataSource) {
+                    return bean;
+                }
+                // Each transaction holds a connection of either the primary or a replica, so routing admits for all their pools.
+                int poolSize = (bean instanceof ReadWriteRoutingDataSource routingDataSource)
+                        ? routingDataSource.getPooledDataSources().stream().mapToInt(VirtualThreadConfiguration::poolSizeOf).sum()
+                        : poolSizeOf(dataSource);
+                int holders = (maxConnectionHolders > 0) ? maxConnectionHolders : poolSize * DEFAULT_HOLDERS_PER_CONNECTION;
+                logger.info("Running on virtual threads. Allowing {} threads to hold or wait for the {} connections of DataSource {}.", holders, poolSize, beanName);
+                return new ConnectionAdmissionDataSource(dataSource, holders, Duration.ofMillis(admissionTimeoutMs), meterRegistry.getObject());
+            }
+        };
+    }
+
+    private static int poolSizeOf(DataSource dataSource) {
+        // Hikari reports -1 until it applies its defaults when the pool starts.
+        int configuredPoolSize = (dataSource instanceof HikariDataSource hikariDataSource) ? hikariDataSource.getMaximumPoolSize() : 0;
+        return (configuredPoolSize > 0) ? configuredPoolSize : DEFAULT_POOL_SIZE;
+    }
+
+}
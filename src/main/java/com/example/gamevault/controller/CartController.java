@@ -0,0 +1,130 @@
+package com.example.gamevault.controller;
+
+import com.example.gamevault.exception.InsufficientCreditsForTransactionException;
+import com.example.gamevault.exception.InsufficientVideoGameQuantityException;
+import com.example.gamevault.model.Cart;
+import com.example.gamevault.model.CatalogItem;
+import com.example.gamevault.model.Gamer;
+import com.example.gamevault.model.Purchase;
+import com.example.gamevault.service.CatalogCacheService;
+import com.example.gamevault.service.CatalogSnapshot;
+import com.example.gamevault.service.GamerService;
+import com.example.gamevault.service.PurchaseOrchestrator;
+import jakarta.servlet.http.HttpSession;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Controller
+public class CartController {
+    private static final Logger logger = LogManager.getLogger(CartController.class);
+    private static final String CART_ATTRIBUTE = "cart";
+
+    @Autowired
+    private GamerService gamerService;
+
+    @Autowired
+    private PurchaseOrchestrator purchaseOrchestrator;
+
+    @Autowired
+    private CatalogCacheService catalogCacheService;
+
+    // Lines are shown from the catalogue snapshot, so the cart page does not query the database.
+    @GetMapping("/gamer/cart")
+    public String goToGamerCartPage(HttpSession httpSession, Model model) {
+        Gamer gamer = gamerService.getCurrentGamer();
+        logger.info("Currently at Cart page of Gamer: {}", gamer);
+        CatalogSnapshot catalogSnapshot = catalogCacheService.getSnapshot();
+        Map<CatalogItem, Integer> cartLines = new LinkedHashMap<>();
+        long totalCost = 0;
+        for (Map.Entry<Long, Integer> line : getCart(httpSession).getQuantities().entrySet()) {
+            CatalogItem item = catalogSnapshot.findById(line.getKey()).orElse(null);
+            if (item != null) {
+                cartLines.put(item, line.getValue());
+                totalCost += item.getCredits() * line.getValue();
+            }
+        }
+        model.addAttribute("cartLines", cartLines);
+        model.addAttribute("totalCost", totalCost);
+        model.addAttribute("totalCredits", gamer.getTotalCredits());
+        return "gamer-cart";
+    }
+
+    @PostMapping("/gamer/cart/add")
+    public String addToCart(@RequestParam("gameId") Long gameId,
+                            @RequestParam("quantity") int quantity,
+                            HttpSession httpSession,
+                            RedirectAttributes redirectAttributes) {
+        if (quantity <= 0) {
+            redirectAttributes.addFlashAttribute("error", "Please enter a quantity of at least 1.");
+        } else if (getCart(httpSession).add(gameId, quantity)) {
+            logger.info("Added {} of VideoGame with id {} to cart.", quantity, gameId);
+            redirectAttributes.addFlashAttribute("success", "Added to cart.");
+        } else {
+            logger.error("Cart is full. VideoGame with id {} not added.", gameId);
+            redirectAttributes.addFlashAttribute("error", "Your cart is full. Please check out before adding more video games.");
+        }
+        return "redirect:/gamer/home";
+    }
+
+    @PostMapping("/gamer/cart/remove")
+    public String removeFromCart(@RequestParam("gameId") Long gameId, HttpSession httpSession) {
+        getCart(httpSession).remove(gameId);
+        return "redirect:/gamer/cart";
+    }
+
+    @PostMapping("/gamer/cart/checkout")
+    public String checkout(HttpSession httpSession, RedirectAttributes redirectAttributes) {
+        Cart cart = getCart(httpSession);
+        Map<Long, Integer> quantities = cart.getQuantities();
+        if (quantities.isEmpty()) {
+            redirectAttributes.addFlashAttribute("error", "Your cart is empty.");
+            return "redirect:/gamer/cart";
+        }
+
+        try {
+            Gamer gamer = gamerService.getCurrentGamer();
+            List<Purchase> purchases = purchaseOrchestrator.checkout(gamer, quantities);
+            quantities.keySet().forEach(cart::remove);
+            logger.info("Successful checkout of {} line items for Gamer with id {}.", purchases.size(), gamer.getId());
+            redirectAttributes.addFlashAttribute("success", "Successful purchase of " + purchases.size() + " video games.");
+
+        } catch (InsufficientVideoGameQuantityException e) {
+            e.printStackTrace();
+            logger.error("Unsuccessful checkout due to insufficient video game quantity. Redirection to Cart page with error message displayed.");
+            redirectAttributes.addFlashAttribute("error", "Unsuccessful purchase - Insufficient video games available for a video game in your cart.");
+
+        } catch (InsufficientCreditsForTransactionException e) {
+            e.printStackTrace();
+            logger.error("Unsuccessful checkout due to insufficient credits. Redirection to Cart page with error message displayed.");
+            redirectAttributes.addFlashAttribute("error", "Unsuccessful purchase - Insufficient credits to purchase the video games in your cart.");
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            logger.fatal("Unsuccessful checkout due to unexpected error. Redirection to Cart page with error message displayed.");
+            redirectAttributes.addFlashAttribute("error", "Unexpected error occurred. Please try again later.");
+        }
+
+        return "redirect:/gamer/cart";
+    }
+
+    private static Cart getCart(HttpSession httpSession) {
+        Cart cart = (Cart) httpSession.getAttribute(CART_ATTRIBUTE);
+        if (cart == null) {
+            cart = new Cart();
+            httpSession.setAttribute(CART_ATTRIBUTE, cart);
+        }
+        return cart;
+    }
+
+}
@@ -1,16 +1,30 @@
 package com.example.gamevault.controller;
 
 import com.example.gamevault.exception.*;
+import com.example.gamevault.model.CatalogItem;
+import com.example.gamevault.model.Credits;
 import com.example.gamevault.model.Gamer;
 import com.example.gamevault.model.Person;
-import com.example.gamevault.model.VideoGame;
-import com.example.gamevault.repository.VideoGameRepository;
 import com.example.gamevault.security.PersonPrincipal;
+import com.example.gamevault.service.CatalogCacheService;
+import com.example.gamevault.service.CatalogFilter;
+import com.example.gamevault.service.CatalogPage;
+import com.example.gamevault.service.CatalogSearchService;
+import com.example.gamevault.service.CatalogSort;
+import com.example.gamevault.service.CatalogSnapshot;
 import com.example.gamevault.service.GamerService;
+import com.example.gamevault.service.TransactionHistoryPage;
+import com.example.gamevault.service.TransactionHistoryVersions;
+import com.example.gamevault.service.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpSession;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.SortDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
@@ -18,20 +32,41 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.RequestContextUtils;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
 
 @Controller
 public class GamerController {
     private static final Logger logger = LogManager.getLogger(GamerController.class);
+    // Versions restart with the application, so ETags carry the start time to keep those of earlier runs from matching.
+    private static final String ETAG_EPOCH = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
 
     @Autowired
-    private VideoGameRepository videoGameRepository;
+    private CatalogCacheService catalogCacheService;
+
+    @Autowired
+    private CatalogSearchService catalogSearchService;
 
     @Autowired
     private GamerService gamerService;
 
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionHistoryVersions transactionHistoryVersions;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     public GamerController(GamerService gamerService) {
         this.gamerService = gamerService;
     }
@@ -49,42 +84,102 @@ public class GamerController {
     }
 
     @GetMapping("/gamer/cancellations")
-    public String goToGamerCancellationsPage(Model model) {
+    public String goToGamerCancellationsPage(@RequestParam(value = "before", required = false) Long before, ServletWebRequest webRequest, Model model) {
         Gamer gamer = gamerService.getCurrentGamer();
+        if (isNotModified(webRequest, "cancellations", gamer.getId(), transactionHistoryVersions.getVersion(gamer.getId()), gamer.getTotalCredits())) {
+            return null;
+        }
         logger.info("Currently at Cancellation page of Gamer: {}", gamer);
-        model.addAttribute("cancellations", gamer.getCancellationHistory());
+        addHistoryPageAttributes("cancellations", transactionService.getCancellationHistory(gamer.getId(), before), model);
         model.addAttribute("totalCredits", gamer.getTotalCredits());
         return "gamer-cancellations";
     }
 
     @GetMapping("/gamer/purchases")
-    public String goToGamerPurchasesPage(Model model) {
+    public String goToGamerPurchasesPage(@RequestParam(value = "before", required = false) Long before, ServletWebRequest webRequest, Model model) {
         Gamer gamer = gamerService.getCurrentGamer();
+        if (isNotModified(webRequest, "purchases", gamer.getId(), transactionHistoryVersions.getVersion(gamer.getId()), gamer.getTotalCredits())) {
+            return null;
+        }
         logger.info("Currently at Purchase page of Gamer: {}", gamer);
-        model.addAttribute("purchases", gamer.getPurchaseHistory());
+        addHistoryPageAttributes("purchases", transactionService.getPurchaseHistory(gamer.getId(), before), model);
         model.addAttribute("totalCredits", gamer.getTotalCredits());
         return "gamer-purchases";
     }
 
     @GetMapping("/gamer/reservations")
-    public String goToGamerReservationsPage(Model model) {
+    public String goToGamerReservationsPage(@RequestParam(value = "before", required = false) Long before, ServletWebRequest webRequest, Model model) {
         Gamer gamer = gamerService.getCurrentGamer();
+        if (isNotModified(webRequest, "reservations", gamer.getId(), transactionHistoryVersions.getVersion(gamer.getId()), gamer.getTotalCredits())) {
+            return null;
+        }
         logger.info("Currently at Reservation page of Gamer: {}", gamer);
-        model.addAttribute("reservations", gamer.getReservationHistory());
+        addHistoryPageAttributes("reservations", transactionService.getReservationHistory(gamer.getId(), before), model);
         model.addAttribute("totalCredits", gamer.getTotalCredits());
         return "gamer-reservations";
     }
 
+    /*
+     * Sets a strong ETag made of the versions the page is rendered from and returns true when the request's If-None-Match
+     * already holds it, in which case the response is a 304 and the page is neither queried nor rendered. Browsers must
+     * revalidate every time, and pages showing a flash message are not cached at all so the message never reappears.
+     */
+    private boolean isNotModified(ServletWebRequest webRequest, String page, Object... versions) {
+        Map<String, ?> flashMap = RequestContextUtils.getInputFlashMap(webRequest.getRequest());
+        if (flashMap != null && !flashMap.isEmpty()) {
+            webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+            return false;
+        }
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        StringJoiner etag = new StringJoiner("-").add(page).add(ETAG_EPOCH);
+        for (Object version : versions) {
+            etag.add(String.valueOf(version));
+        }
+        boolean notModified = webRequest.checkNotModified(etag.toString());
+        meterRegistry.counter("gamevault.pages.conditional", "page", page, "result", notModified ? "not-modified" : "modified").increment();
+        return notModified;
+    }
+
+    private void addHistoryPageAttributes(String attributeName, TransactionHistoryPage<?> historyPage, Model model) {
+        model.addAttribute(attributeName, historyPage.transactions());
+        model.addAttribute("nextCursor", historyPage.nextCursor());
+    }
+
     @GetMapping("/gamer/home")
-    public String goToGamerHomePage(Model model) {
+    public String goToGamerHomePage(@RequestParam(value = "q", required = false) String query,
+                                    @RequestParam(value = "creator", required = false) Set<String> creators,
+                                    @RequestParam(value = "minCredits", required = false) BigDecimal minCredits,
+                                    @RequestParam(value = "maxCredits", required = false) BigDecimal maxCredits,
+                                    @RequestParam(value = "includeSoldOut", defaultValue = "false") boolean includeSoldOut,
+                                    @RequestParam(value = "after", required = false) Long after,
+                                    @SortDefault("title") Pageable pageable,
+                                    ServletWebRequest webRequest,
+                                    Model model) {
         try {
             UserDetails personPrincipal = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            CatalogSnapshot catalogSnapshot = catalogCacheService.getSnapshot();
             if (personPrincipal instanceof PersonPrincipal loggedInGamer) {
+                if (isNotModified(webRequest, "home", loggedInGamer.getPerson().getId(), loggedInGamer.getTotalCredits(), catalogSnapshot.getVersion())) {
+                    return null;
+                }
                 model.addAttribute("totalCredits", loggedInGamer.getTotalCredits());
                 model.addAttribute("username", loggedInGamer.getUsername());
             }
-            List<VideoGame> videoGames = videoGameRepository.findAll();
-            model.addAttribute("videoGames", videoGames);
+            if (query != null && !query.isBlank()) {
+                model.addAttribute("videoGames", catalogSearchService.search(query, CatalogSearchService.MAX_RESULTS));
+                model.addAttribute("query", query);
+            } else {
+                CatalogFilter filter = catalogFilter(creators, minCredits, maxCredits, includeSoldOut, after, pageable);
+                CatalogPage catalogPage = catalogSnapshot.filter(filter);
+                model.addAttribute("videoGames", catalogPage.items());
+                model.addAttribute("catalogPage", catalogPage);
+                model.addAttribute("selectedCreators", filter.creators());
+                model.addAttribute("minCredits", minCredits);
+                model.addAttribute("maxCredits", maxCredits);
+                model.addAttribute("includeSoldOut", includeSoldOut);
+                model.addAttribute("pageSize", filter.pageSize());
+            }
+            model.addAttribute("catalogVersion", catalogSnapshot.getVersion());
             logger.info("Currently at Gamer Home page.");
             return "gamer-home";
         } catch (Exception e) {
@@ -93,6 +188,44 @@ public class GamerController {
         return "gamer-index";
     }
 
+    @GetMapping("/gamer/catalog")
+    @ResponseBody
+    public CatalogPage getCatalogPage(@RequestParam(value = "creator", required = false) Set<String> creators,
+                                      @RequestParam(value = "minCredits", required = false) BigDecimal minCredits,
+                                      @RequestParam(value = "maxCredits", required = false) BigDecimal maxCredits,
+                                      @RequestParam(value = "includeSoldOut", defaultValue = "false") boolean includeSoldOut,
+                                      @RequestParam(value = "after", required = false) Long after,
+                                      @SortDefault("title") Pageable pageable,
+                                      ServletWebRequest webRequest) {
+        CatalogSnapshot catalogSnapshot = catalogCacheService.getSnapshot();
+        if (isNotModified(webRequest, "catalog", catalogSnapshot.getVersion())) {
+            return null;
+        }
+        return catalogSnapshot.filter(catalogFilter(creators, minCredits, maxCredits, includeSoldOut, after, pageable));
+    }
+
+    // Page size is capped by spring.data.web.pageable.max-page-size. The page number only applies when there is no after cursor.
+    private static CatalogFilter catalogFilter(Set<String> creators, BigDecimal minCredits, BigDecimal maxCredits, boolean includeSoldOut, Long after, Pageable pageable) {
+        return new CatalogFilter(creators,
+                (minCredits == null) ? null : Credits.of(minCredits),
+                (maxCredits == null) ? null : Credits.of(maxCredits),
+                !includeSoldOut, CatalogSort.of(pageable.getSort()), after, pageable.getPageNumber(), pageable.getPageSize());
+    }
+
+    @GetMapping("/gamer/catalog/search")
+    @ResponseBody
+    public List<CatalogItem> searchCatalog(@RequestParam("q") String query,
+                                           @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return catalogSearchService.search(query, limit);
+    }
+
+    @GetMapping("/gamer/catalog/suggestions")
+    @ResponseBody
+    public List<String> suggestTitles(@RequestParam("prefix") String prefix,
+                                      @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return catalogSearchService.suggestTitles(prefix, limit);
+    }
+
     @GetMapping("/gamer/login")
     public String goToGamerLoginPage(HttpSession httpSession, Model model) {
         logger.info("Currently at Gamer Login page.");
@@ -104,6 +237,12 @@ public class GamerController {
         return "gamer-login";
     }
 
+    @GetMapping("/gamer/registration/username-availability")
+    @ResponseBody
+    public Map<String, Object> checkUsernameAvailability(@RequestParam("username") String username) {
+        return Map.of("username", username, "available", gamerService.isUsernameAvailable(username));
+    }
+
     @PostMapping("/gamer/registration")
     public String register(@RequestParam("name") String name,
                            @RequestParam("username") String username,
@@ -2,181 +2,198 @@ package com.example.gamevault.controller;
 
 import com.example.gamevault.exception.InsufficientCreditsForTransactionException;
 import com.example.gamevault.exception.InsufficientVideoGameQuantityException;
+import com.example.gamevault.exception.PurchaseQueueFullException;
 import com.example.gamevault.exception.ReservationTransactionNotFoundException;
-import com.example.gamevault.exception.VideoGameNotFoundException;
 import com.example.gamevault.model.*;
 import com.example.gamevault.service.GamerService;
+import com.example.gamevault.service.IdempotencyService;
+import com.example.gamevault.service.PurchaseAdmissionService;
+import com.example.gamevault.service.PurchaseOrchestrator;
+import com.example.gamevault.service.RequestOutcome;
+import com.example.gamevault.service.TransactionHistoryPage;
 import com.example.gamevault.service.TransactionService;
-import com.example.gamevault.service.VideoGameService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 @Controller
 public class TransactionController {
     private static final Logger logger = LogManager.getLogger(TransactionController.class);
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String INSUFFICIENT_QUANTITY_MESSAGE = "Unsuccessful purchase - Insufficient video games available.";
+    private static final String QUEUE_FULL_MESSAGE = "Too many orders for this video game right now. Please try again shortly.";
 
     @Autowired
     private GamerService gamerService;
 
+    @Autowired
+    private PurchaseOrchestrator purchaseOrchestrator;
+
     @Autowired
     private TransactionService transactionService;
 
     @Autowired
-    private VideoGameService videoGameService;
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private PurchaseAdmissionService purchaseAdmissionService;
 
+    // The key comes from the Idempotency-Key header, or from the hidden idempotencyKey field the pages fill in on submit.
     @PostMapping("/gamer/buy")
     public String buyVideoGame(@RequestParam("gameId") Long gameId,
                                @RequestParam("quantity") int quantity,
+                               @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKeyHeader,
+                               @RequestParam(value = "idempotencyKey", required = false) String idempotencyKey,
                                RedirectAttributes redirectAttributes) {
+        Gamer gamer = gamerService.getCurrentGamer();
+        RequestOutcome outcome = idempotencyService.execute(gamer.getId(), "buy", firstNonEmpty(idempotencyKeyHeader, idempotencyKey),
+                "gameId=" + gameId + "&quantity=" + quantity, () -> buy(gamer, gameId, quantity));
+        redirectAttributes.addFlashAttribute(outcome.attribute(), outcome.message());
+        return "redirect:/gamer/home";
+    }
+
+    @PostMapping("/gamer/reserve")
+    public String reserveVideoGame(@RequestParam("gameId") Long gameId,
+                                   @RequestParam("quantity") int quantity,
+                                   @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKeyHeader,
+                                   @RequestParam(value = "idempotencyKey", required = false) String idempotencyKey,
+                                   RedirectAttributes redirectAttributes) {
+        Gamer gamer = gamerService.getCurrentGamer();
+        RequestOutcome outcome = idempotencyService.execute(gamer.getId(), "reserve", firstNonEmpty(idempotencyKeyHeader, idempotencyKey),
+                "gameId=" + gameId + "&quantity=" + quantity, () -> reserve(gamer, gameId, quantity));
+        redirectAttributes.addFlashAttribute(outcome.attribute(), outcome.message());
+        return "redirect:/gamer/home";
+    }
+
+    @PostMapping("/gamer/reservations/cancel")
+    public String cancelReservation(@RequestParam("reservationId") Long reservationId,
+                                    @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKeyHeader,
+                                    @RequestParam(value = "idempotencyKey", required = false) String idempotencyKey,
+                                    Model model) {
+        Gamer gamer = gamerService.getCurrentGamer();
+        RequestOutcome outcome = idempotencyService.execute(gamer.getId(), "cancel", firstNonEmpty(idempotencyKeyHeader, idempotencyKey),
+                "reservationId=" + reservationId, () -> cancel(gamer, reservationId));
+        model.addAttribute(outcome.attribute(), outcome.message());
+        addReservationsPageAttributes(gamer, model);
+        return "gamer-reservations";
+    }
+
+    @PostMapping("/gamer/reservations/buy")
+    public String completePurchaseOfReservation(@RequestParam("reservationId") Long reservationTransactionId, Model model) {
+        Gamer gamer = gamerService.getCurrentGamer();
 
         try {
-            Gamer gamer = gamerService.getCurrentGamer();
-            VideoGame videoGame = videoGameService.getVideoGame(gameId);
-            logger.info("Purchase attempt. Gamer: {}, Video Game: {}, Quantity: {}", gamer.toString(), videoGame.toString(), quantity);
-            if (videoGameService.hasSufficientQuantityForTransaction(videoGame, quantity) && gamerService.canAffordTransaction(gamer, videoGame, quantity, "purchase")) {
-                videoGameService.updateVideoGameQuantity(videoGame, quantity,"purchase");
-                Purchase purchase = transactionService.createPurchaseTransaction(gamer, videoGame, quantity);
-                gamerService.deductCredits(gamer, videoGame, quantity, "purchase");
-                gamerService.addPurchaseTransactionForGamer(gamer, purchase);
-                logger.info("Successful purchase: {}. Redirection to Gamer Home page with success message displayed.", purchase.toString());
-                redirectAttributes.addFlashAttribute("success", "Successful purchase.");
-            }
+            Purchase purchase = purchaseOrchestrator.completeReservation(gamer, reservationTransactionId);
+            logger.info("Successful purchase of reservation game/games: {}. Redirection to Gamer Home page with success message displayed.", purchase.toString());
+            model.addAttribute("success", "Successful purchase");
 
-        } catch (InsufficientVideoGameQuantityException e) {
+        } catch (ReservationTransactionNotFoundException e) {
             e.printStackTrace();
-            logger.error("Unsuccessful purchase due to insufficient video game quantity. Redirection to Gamer Home page with error message displayed.");
-            redirectAttributes.addFlashAttribute("error", "Unsuccessful purchase - Insufficient video games available.");
+            logger.error("Cannot find reservationTransaction. Purchase voided.");
+            model.addAttribute("error", "Unsuccessful purchase - Reservation not found.");
 
         } catch (InsufficientCreditsForTransactionException e) {
             e.printStackTrace();
-            logger.error("Unsuccessful purchase due to insufficient credits. Redirection to Gamer Home page with error message displayed.");
-            redirectAttributes.addFlashAttribute("error", "Unsuccessful purchase - Insufficient credits to purchase video games in quantity specified.");
+            logger.error("Gamer ({}) has insufficient credits to complete payment of Reservation. Purchase voided.", gamer.toString());
+            model.addAttribute("error", "Unsuccessful purchase - Insufficient funds for payment of total payable credits.");
 
         } catch (Exception e) {
             e.printStackTrace();
-            logger.fatal("Unsuccessful purchase due to unexpected error. Redirection to Gamer Home page with error message displayed.");
-            redirectAttributes.addFlashAttribute("error", "Unexpected error occurred. Please try again later.");
+            logger.fatal("Unexpected error occurred. Purchase voided.");
+            model.addAttribute("error", "Unexpected error occurred. Please try again later.");
         }
 
-        return "redirect:/gamer/home";
+        addReservationsPageAttributes(gamer, model);
+        return "gamer-reservations";
     }
 
-    @PostMapping("/gamer/reserve")
-    public String reserveVideoGame(@RequestParam("gameId") Long gameId,
-                                   @RequestParam("quantity") int quantity,
-                                   RedirectAttributes redirectAttributes) {
-
+    private RequestOutcome buy(Gamer gamer, Long gameId, int quantity) {
         try {
-            Gamer gamer = gamerService.getCurrentGamer();
-            VideoGame videoGame = videoGameService.getVideoGame(gameId);
-            logger.info("Reservation attempt. Gamer: {}, Video Game: {}, Quantity: {}", gamer.toString(), videoGame.toString(), quantity);
-
-            if (videoGameService.hasSufficientQuantityForTransaction(videoGame, quantity) && gamerService.canAffordTransaction(gamer, videoGame, quantity, "reservation")) {
-                videoGameService.updateVideoGameQuantity(videoGame, quantity,"reservation");
-                Reservation reservation = transactionService.createReservationTransaction(gamer, videoGame, quantity);
-                gamerService.deductCreditsForReservation(gamer, videoGame, quantity, "reservation");
-                gamerService.addReservationTransactionForGamer(gamer, reservation);
-                logger.info("Successful reservation: {}. Redirection to Gamer Home page with success message displayed.", reservation.toString());
-                redirectAttributes.addFlashAttribute("success", "Successful reservation.");
-            }
+            Purchase purchase = purchaseAdmissionService.admit(gameId, () -> purchaseOrchestrator.buy(gamer, gameId, quantity));
+            logger.info("Successful purchase: {}. Redirection to Gamer Home page with success message displayed.", purchase.toString());
+            return RequestOutcome.success("Successful purchase.");
 
         } catch (InsufficientVideoGameQuantityException e) {
             e.printStackTrace();
-            logger.error("Unsuccessful reservation due to insufficient video game quantity. Redirection to Gamer Home page with error message displayed.");
-            redirectAttributes.addFlashAttribute("error", "Unsuccessful purchase - Insufficient video games available.");
+            logger.error("Unsuccessful purchase due to insufficient video game quantity. Redirection to Gamer Home page with error message displayed.");
+            return RequestOutcome.error(INSUFFICIENT_QUANTITY_MESSAGE);
 
         } catch (InsufficientCreditsForTransactionException e) {
             e.printStackTrace();
-            logger.error("Unsuccessful reservation due to insufficient credits. Redirection to Gamer Home page with error message displayed.");
-            redirectAttributes.addFlashAttribute("error", "Unsuccessful purchase - Insufficient credits to purchase video games in quantity specified.");
+            logger.error("Unsuccessful purchase due to insufficient credits. Redirection to Gamer Home page with error message displayed.");
+            return RequestOutcome.error("Unsuccessful purchase - Insufficient credits to purchase video games in quantity specified.");
+
+        } catch (PurchaseQueueFullException e) {
+            logger.error("Unsuccessful purchase as too many orders of VideoGame with id {} are queued. Redirection to Gamer Home page with error message displayed.", gameId);
+            return RequestOutcome.retryableError(QUEUE_FULL_MESSAGE);
 
         } catch (Exception e) {
             e.printStackTrace();
-            logger.fatal("Unsuccessful reservation due to unexpected error. Redirection to Gamer Home page with error message displayed.");
-            redirectAttributes.addFlashAttribute("error", "Unexpected error occurred. Please try again later.");
+            logger.fatal("Unsuccessful purchase due to unexpected error. Redirection to Gamer Home page with error message displayed.");
+            return RequestOutcome.retryableError("Unexpected error occurred. Please try again later.");
         }
-
-        return "redirect:/gamer/home";
     }
 
-    @PostMapping("/gamer/reservations/cancel")
-    public String cancelReservation(@RequestParam("reservationId") Long reservationId, Model model) {
+    private RequestOutcome reserve(Gamer gamer, Long gameId, int quantity) {
         try {
-            Gamer gamer = gamerService.getCurrentGamer();
-            Reservation reservation = transactionService.getReservationTransaction(reservationId);
-            logger.info("Cancellation of Reservation ({}) for Gamer ({})", gamer.toString(), reservation.toString());
-            Cancellation cancellation = transactionService.createCancelTransaction(gamer, reservation);
-            gamerService.addCancelTransaction(gamer, cancellation);
-            gamerService.removeReservationTransaction(gamer, reservation);
-            videoGameService.increaseVideoGameQuantity(reservation);
-            transactionService.deleteReservationTransaction(reservation);
-            model.addAttribute("success", "Successful cancellation.");
+            Reservation reservation = purchaseAdmissionService.admit(gameId, () -> purchaseOrchestrator.reserve(gamer, gameId, quantity));
+            logger.info("Successful reservation: {}. Redirection to Gamer Home page with success message displayed.", reservation.toString());
+            return RequestOutcome.success("Successful reservation.");
 
-        } catch (ReservationTransactionNotFoundException e) {
+        } catch (InsufficientVideoGameQuantityException e) {
             e.printStackTrace();
-            logger.error("Cannot find reservationTransaction. Cancellation voided.");
-            model.addAttribute("error", "Order to cancel cannot be found.");
+            logger.error("Unsuccessful reservation due to insufficient video game quantity. Redirection to Gamer Home page with error message displayed.");
+            return RequestOutcome.error(INSUFFICIENT_QUANTITY_MESSAGE);
 
-        } catch (VideoGameNotFoundException e) {
+        } catch (InsufficientCreditsForTransactionException e) {
             e.printStackTrace();
-            logger.error("Cannot find VideoGame to update. Cancellation voided.");
-            model.addAttribute("error", "Video Game specified in order cannot be found.");
+            logger.error("Unsuccessful reservation due to insufficient credits. Redirection to Gamer Home page with error message displayed.");
+            return RequestOutcome.error("Unsuccessful purchase - Insufficient credits to purchase video games in quantity specified.");
+
+        } catch (PurchaseQueueFullException e) {
+            logger.error("Unsuccessful reservation as too many orders of VideoGame with id {} are queued. Redirection to Gamer Home page with error message displayed.", gameId);
+            return RequestOutcome.retryableError(QUEUE_FULL_MESSAGE);
 
         } catch (Exception e) {
             e.printStackTrace();
-            logger.fatal("Unexpected error occurred.");
-            model.addAttribute("error", "An unexpected error occurred. Please try again later.");
+            logger.fatal("Unsuccessful reservation due to unexpected error. Redirection to Gamer Home page with error message displayed.");
+            return RequestOutcome.retryableError("Unexpected error occurred. Please try again later.");
         }
-
-        return "gamer-reservations";
     }
 
-    @PostMapping("/gamer/reservations/buy")
-    public String completePurchaseOfReservation(@RequestParam("reservationId") Long reservationTransactionId, Model model) {
-        Gamer gamer = gamerService.getCurrentGamer();
-
+    private RequestOutcome cancel(Gamer gamer, Long reservationId) {
         try {
-            Reservation reservation = transactionService.getReservationTransaction(reservationTransactionId);
-            logger.info("Purchase of Reservation ({}) for Gamer ({}).", reservation.toString(), gamer.toString());
-            VideoGame videoGame = videoGameService.getVideoGame(reservation.getTitle());
-            if (gamerService.canAffordTransaction(gamer, videoGame, reservation.getQuantity(), "complete purchase of reservation")) {
-                Purchase purchase = transactionService.createPurchaseTransaction(gamer, videoGame, reservation.getQuantity());
-                gamerService.deductCredits(gamer, videoGame, reservation.getQuantity(), "complete purchase of reservation");
-                gamerService.addPurchaseTransactionForGamer(gamer, purchase);
-                gamerService.removeReservationTransaction(gamer, reservation);
-                logger.info("Successful purchase of reservation game/games: {}. Redirection to Gamer Home page with success message displayed.", purchase.toString());
-                model.addAttribute("success", "Successful purchase");
-                model.addAttribute("purchases", gamer.getPurchaseHistory());
-            }
+            Cancellation cancellation = purchaseOrchestrator.cancelReservation(gamer, reservationId);
+            logger.info("Successful cancellation: {}", cancellation.toString());
+            return RequestOutcome.success("Successful cancellation.");
 
         } catch (ReservationTransactionNotFoundException e) {
             e.printStackTrace();
-            logger.error("Cannot find reservationTransaction. Purchase voided.");
-            model.addAttribute("error", "Unsuccessful purchase - Reservation not found.");
-
-        } catch (VideoGameNotFoundException e) {
-            e.printStackTrace();
-            logger.error("Cannot find VideoGame. Purchase voided.");
-            model.addAttribute("error", "Unsuccessful purchase - Video Game in Reservation not found.");
-
-        } catch (InsufficientCreditsForTransactionException e) {
-            e.printStackTrace();
-            logger.error("Gamer ({}) has insufficient credits to complete payment of Reservation. Purchase voided.", gamer.toString());
-            model.addAttribute("error", "Unsuccessful purchase - Insufficient funds for payment of total payable credits.");
+            logger.error("Cannot find reservationTransaction. Cancellation voided.");
+            return RequestOutcome.error("Order to cancel cannot be found.");
 
         } catch (Exception e) {
             e.printStackTrace();
-            logger.fatal("Unexpected error occurred. Purchase voided.");
-            model.addAttribute("error", "Unexpected error occurred. Please try again later.");
+            logger.fatal("Unexpected error occurred.");
+            return RequestOutcome.retryableError("An unexpected error occurred. Please try again later.");
         }
+    }
 
-        return "gamer-reservations";
+    private static String firstNonEmpty(String header, String parameter) {
+        return (header != null && !header.isEmpty()) ? header : parameter;
+    }
+
+    private void addReservationsPageAttributes(Gamer gamer, Model model) {
+        TransactionHistoryPage<Reservation> reservationHistory = transactionService.getReservationHistory(gamer.getId(), null);
+        model.addAttribute("reservations", reservationHistory.transactions());
+        model.addAttribute("nextCursor", reservationHistory.nextCursor());
+        model.addAttribute("totalCredits", gamer.getTotalCredits());
     }
 
 }
@@ -0,0 +1,5 @@
+package com.example.gamevault.exception;
+
+public class PurchaseQueueFullException extends Throwable {
+
+}
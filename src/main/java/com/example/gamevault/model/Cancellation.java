@@ -5,28 +5,26 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.Instant;
 
 @Entity
 @NoArgsConstructor
 @Getter
 @Setter
 public class Cancellation extends Transaction {
-    private String latestPurchaseDate;
-    private double creditsPaid;
-    private double creditsToPay;
-    private String dateOfCancellation;
-    private String reasonOfCancellation = "Manual Cancellation";
+    public static final String MANUAL_CANCELLATION = "Manual Cancellation";
+    public static final String EXPIRED = "Expired";
 
-    public Cancellation(String title, String creator, int quantity, double reservationCost, double creditsPaid, double creditsToPay, String latestPurchaseDate, Gamer gamer) {
+    private Instant expiresAt;
+    private long creditsPaid;
+    private long creditsToPay;
+    private String reasonOfCancellation = MANUAL_CANCELLATION;
+
+    public Cancellation(String title, String creator, int quantity, long reservationCost, long creditsPaid, long creditsToPay, Instant expiresAt, Gamer gamer) {
         super(title, creator, quantity, reservationCost, gamer);
         this.creditsPaid = creditsPaid;
         this.creditsToPay = creditsToPay;
-        this.latestPurchaseDate = latestPurchaseDate;
-        LocalDateTime localDateTime = LocalDateTime.now();
-        DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
-        this.dateOfCancellation = dateTimeFormatter.format(localDateTime);
+        this.expiresAt = expiresAt;
     }
 
 }
@@ -0,0 +1,43 @@
+package com.example.gamevault.model;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Video games a gamer intends to buy, by id with the quantity of each, kept in the HTTP session until checkout.
+public class Cart implements Serializable {
+    public static final int MAX_LINE_ITEMS = 50;
+
+    private final LinkedHashMap<Long, Integer> quantities = new LinkedHashMap<>();
+
+    // Adding a video game already in the cart adds to its quantity. Returns false when the cart is full.
+    public synchronized boolean add(long videoGameId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive.");
+        }
+        if (!quantities.containsKey(videoGameId) && quantities.size() >= MAX_LINE_ITEMS) {
+            return false;
+        }
+        quantities.merge(videoGameId, quantity, Integer::sum);
+        return true;
+    }
+
+    public synchronized void remove(long videoGameId) {
+        quantities.remove(videoGameId);
+    }
+
+    public synchronized void clear() {
+        quantities.clear();
+    }
+
+    public synchronized boolean isEmpty() {
+        return quantities.isEmpty();
+    }
+
+    // A copy in the order the video games were added.
+    public synchronized Map<Long, Integer> getQuantities() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(quantities));
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.example.gamevault.model;
+
+import lombok.Value;
+import lombok.With;
+
+// Immutable copy of a VideoGame row, safe to share between requests through the catalog snapshot.
+@Value
+public class CatalogItem {
+    long id;
+    String title;
+    String creator;
+    @With
+    int quantity;
+    long credits;
+
+    public static CatalogItem of(VideoGame videoGame) {
+        return new CatalogItem(videoGame.getId(), videoGame.getTitle(), videoGame.getCreator(), videoGame.getQuantity(), videoGame.getCredits());
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.gamevault.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+// A gamer's balance summed over their ledger entries up to lastEntryId, so balances only add up the entries since.
+@Entity
+@Table(name = "credit_balance_snapshots")
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+public class CreditBalanceSnapshot {
+
+    @Id
+    @Column(name = "gamer_id")
+    private long gamerId;
+
+    private long balance;
+
+    private long lastEntryId;
+
+    private Instant takenAt;
+
+}
@@ -0,0 +1,53 @@
+package com.example.gamevault.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.Instant;
+
+// One change to a gamer's credits, in cents, negative for debits. Entries are only ever inserted.
+@Entity
+@Table(name = "credit_ledger_entries", indexes = {
+        @Index(name = "idx_credit_ledger_gamer_id", columnList = "gamer_id, id"),
+        @Index(name = "idx_credit_ledger_gamer_transaction", columnList = "gamer_id, transaction_id")
+})
+@NoArgsConstructor
+@Getter
+@ToString
+public class CreditLedgerEntry {
+
+    public enum Type {
+        OPENING_BALANCE,
+        DEBIT
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(name = "gamer_id", nullable = false)
+    private long gamerId;
+
+    // The purchase or reservation the entry pays for, or -1 when there is none.
+    @Column(name = "transaction_id", nullable = false)
+    private long transactionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Type type;
+
+    private long amount;
+
+    private Instant createdAt;
+
+    public CreditLedgerEntry(long gamerId, long transactionId, Type type, long amount) {
+        this.gamerId = gamerId;
+        this.transactionId = transactionId;
+        this.type = type;
+        this.amount = amount;
+        this.createdAt = Instant.now();
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.example.gamevault.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Credits are stored as a whole number of cents (1 credit = 100 cents) so that money is never rounded through a double.
+public final class Credits {
+    public static final long CENTS_PER_CREDIT = 100;
+    public static final long DEFAULT_GAMER_CREDITS = of(100);
+    public static final int RESERVATION_DEPOSIT_PERCENT = 20;
+
+    private Credits() {
+    }
+
+    public static long of(long wholeCredits) {
+        return wholeCredits * CENTS_PER_CREDIT;
+    }
+
+    // Parses a decimal amount of credits such as "19.99", rounding half up to whole cents.
+    public static long parse(String credits) {
+        return of(new BigDecimal(credits.trim()));
+    }
+
+    public static long of(BigDecimal credits) {
+        return credits.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    // Rounds half up, matching the two decimal place rounding previously applied to deposits.
+    public static long percentOf(long cents, int percent) {
+        return (cents * percent + 50) / 100;
+    }
+
+    public static long reservationDeposit(long cents) {
+        return percentOf(cents, RESERVATION_DEPOSIT_PERCENT);
+    }
+
+    public static long reservationBalance(long cents) {
+        return cents - reservationDeposit(cents);
+    }
+
+}
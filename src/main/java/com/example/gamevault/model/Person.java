@@ -13,7 +13,7 @@ import lombok.Setter;
 public abstract class Person {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @PooledSequence(name = "person_seq")
     private long id;
 
     private String name;
@@ -0,0 +1,21 @@
+package com.example.gamevault.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Generates the annotated id from the named sequence with a PooledSequenceGenerator.
+@IdGeneratorType(PooledSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PooledSequence {
+
+    String name();
+
+    // Used unless overridden by the "gamevault.id.allocation-size.<name>" setting.
+    int allocationSize() default 50;
+
+}
@@ -0,0 +1,56 @@
+package com.example.gamevault.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Sequence generator using the pooled optimizer, for ids annotated with {@link PooledSequence}. The allocation size
+ * given there can be overridden per sequence with the Hibernate setting
+ * "gamevault.id.allocation-size.&lt;sequence name&gt;". One sequence call then hands out a whole block of ids, which
+ * keeps inserts free of round trips and lets Hibernate batch them.
+ * <p>
+ * An entity persisted with an id already taken from its sequence keeps it, so a row can be given its id before it is
+ * inserted, as history rows written behind are.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+    public static final String ALLOCATION_SIZE_SETTING_PREFIX = "gamevault.id.allocation-size.";
+
+    private final String sequenceName;
+    private final int allocationSize;
+
+    public PooledSequenceGenerator(PooledSequence config) {
+        this.sequenceName = config.name();
+        this.allocationSize = config.allocationSize();
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        parameters.setProperty(SEQUENCE_PARAM, sequenceName);
+        Object configuredAllocationSize = serviceRegistry.requireService(ConfigurationService.class).getSettings().get(ALLOCATION_SIZE_SETTING_PREFIX + sequenceName);
+        parameters.setProperty(INCREMENT_PARAM, (configuredAllocationSize != null) ? configuredAllocationSize.toString() : String.valueOf(allocationSize));
+        parameters.putIfAbsent(OPT_PARAM, StandardOptimizerDescriptor.POOLED.getExternalName());
+        super.configure(type, parameters, serviceRegistry);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        Object id = session.getEntityPersister(null, object).getIdentifier(object, session);
+        if (id instanceof Number assigned && assigned.longValue() != 0) {
+            return id;
+        }
+        return super.generate(session, object);
+    }
+
+    @Override
+    public boolean allowAssignedIdentifiers() {
+        return true;
+    }
+
+}
@@ -10,7 +10,7 @@ import lombok.Setter;
 @Getter
 @Setter
 public class Purchase extends Transaction {
-    public Purchase(String title, String creator, int quantityBought, double totalCost, Gamer gamer) {
+    public Purchase(String title, String creator, int quantityBought, long totalCost, Gamer gamer) {
         super(title, creator, quantityBought, totalCost, gamer);
     }
 
@@ -5,32 +5,25 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.text.DecimalFormat;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.Duration;
+import java.time.Instant;
 
 @Entity
 @NoArgsConstructor
 @Getter
 @Setter
 public class Reservation extends Transaction {
-    private String latestPurchaseDate;
-    private double creditsPaid;
-    private double creditsToPay;
+    public static final Duration HOLD_DURATION = Duration.ofHours(48);
 
-    public Reservation(String title, String creator, int quantity, double reservationCost, Gamer gamer) {
-        super(title, creator, quantity, reservationCost, gamer);
-        creditsPaid = roundToTwoDecimalPlaces(0.2 * reservationCost);
-        creditsToPay = roundToTwoDecimalPlaces(reservationCost - creditsPaid);
-        LocalDateTime transactionDateTime = LocalDateTime.parse(super.getTransactionDateTime(), DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss"));
-        LocalDateTime latestPurchaseDateTime = transactionDateTime.plusHours(48);
-        DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
-        this.latestPurchaseDate = dateTimeFormatter.format(latestPurchaseDateTime);
-    }
+    private Instant expiresAt;
+    private long creditsPaid;
+    private long creditsToPay;
 
-    private double roundToTwoDecimalPlaces(double value) {
-        DecimalFormat decimalFormat = new DecimalFormat("#.##");
-        return Double.parseDouble(decimalFormat.format(value));
+    public Reservation(String title, String creator, int quantity, long reservationCost, Gamer gamer) {
+        super(title, creator, quantity, reservationCost, gamer);
+        creditsPaid = Credits.reservationDeposit(reservationCost);
+        creditsToPay = reservationCost - creditsPaid;
+        expiresAt = getTransactionTime().plus(HOLD_DURATION);
     }
 
 }
@@ -4,17 +4,21 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.Instant;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_transaction_gamer_type_id", columnList = "gamer_id, dtype, id"),
+        @Index(name = "idx_transaction_gamer_type_time", columnList = "gamer_id, dtype, transaction_time"),
+        @Index(name = "idx_transaction_type_expires_at", columnList = "dtype, expires_at")
+})
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @NoArgsConstructor
 @Getter
 public abstract class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @PooledSequence(name = "transaction_seq")
     private long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -27,18 +31,16 @@ public abstract class Transaction {
 
     private int quantity;
 
-    private double cost;
+    private long cost;
 
-    private String transactionDateTime;
+    private Instant transactionTime;
 
-    public Transaction(String title, String creator, int quantity, double cost, Gamer gamer) {
+    public Transaction(String title, String creator, int quantity, long cost, Gamer gamer) {
         this.title = title;
         this.creator = creator;
         this.quantity = quantity;
         this.cost = cost;
-        LocalDateTime localDateTime = LocalDateTime.now();
-        DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
-        this.transactionDateTime = dateTimeFormatter.format(localDateTime);
+        this.transactionTime = Instant.now();
         this.gamer = gamer;
     }
 
@@ -25,9 +25,9 @@ public class VideoGame {
     @Setter
     private int quantity;
 
-    private double credits;
+    private long credits;
 
-    public VideoGame(String title, String creator, int quantity, double credits) {
+    public VideoGame(String title, String creator, int quantity, long credits) {
         this.title = title;
         this.creator = creator;
         this.quantity = quantity;
@@ -0,0 +1,37 @@
+package com.example.gamevault.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+// Part of the stock of a hot video game, numbered from 0, held apart from its video_games row so purchases spread over several rows.
+@Entity
+@Table(name = "video_game_stock_shards", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_video_game_stock_shard", columnNames = {"video_game_id", "shard"})
+})
+@NoArgsConstructor
+@Getter
+@ToString
+public class VideoGameStockShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(name = "video_game_id", nullable = false)
+    private long videoGameId;
+
+    private int shard;
+
+    @Setter
+    private int quantity;
+
+    public VideoGameStockShard(long videoGameId, int shard, int quantity) {
+        this.videoGameId = videoGameId;
+        this.shard = shard;
+        this.quantity = quantity;
+    }
+
+}
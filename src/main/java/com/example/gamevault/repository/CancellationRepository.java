@@ -1,10 +1,16 @@
 package com.example.gamevault.repository;
 
 import com.example.gamevault.model.Cancellation;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
+
 @Repository
 public interface CancellationRepository extends JpaRepository<Cancellation, Long> {
-
+    List<Cancellation> findByGamerIdOrderByIdDesc(long gamerId, Limit limit);
+    List<Cancellation> findByGamerIdAndIdLessThanOrderByIdDesc(long gamerId, long id, Limit limit);
+    List<Cancellation> findByGamerIdAndTransactionTimeBetweenOrderByTransactionTimeDesc(long gamerId, Instant from, Instant to, Limit limit);
 }
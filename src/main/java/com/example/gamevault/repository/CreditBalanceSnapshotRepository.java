@@ -0,0 +1,36 @@
+package com.example.gamevault.repository;
+
+import com.example.gamevault.model.CreditBalanceSnapshot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CreditBalanceSnapshotRepository extends JpaRepository<CreditBalanceSnapshot, Long> {
+    // Fails with a duplicate key when the gamer already has a snapshot, where save would overwrite it.
+    @Modifying
+    @Query(value = "INSERT INTO credit_balance_snapshots (gamer_id, balance, last_entry_id, taken_at) VALUES (:gamerId, :balance, :lastEntryId, :takenAt)", nativeQuery = true)
+    void insert(@Param("gamerId") long gamerId, @Param("balance") long balance, @Param("lastEntryId") long lastEntryId, @Param("takenAt") Instant takenAt);
+
+    // Waits for any debit of the gamer in progress, since a debit holds their snapshot until it commits.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM CreditBalanceSnapshot s WHERE s.gamerId = :gamerId")
+    Optional<CreditBalanceSnapshot> findForUpdate(@Param("gamerId") long gamerId);
+
+    @Query("SELECT g.id FROM Gamer g WHERE NOT EXISTS (SELECT s FROM CreditBalanceSnapshot s WHERE s.gamerId = g.id) ORDER BY g.id")
+    List<Long> findGamerIdsWithoutSnapshot(Limit limit);
+
+    @Query("SELECT s.gamerId FROM CreditBalanceSnapshot s WHERE EXISTS (SELECT e FROM CreditLedgerEntry e WHERE e.gamerId = s.gamerId AND e.id > s.lastEntryId) ORDER BY s.gamerId")
+    List<Long> findGamerIdsWithEntriesSinceSnapshot(Limit limit);
+
+    List<CreditBalanceSnapshot> findByGamerIdGreaterThanOrderByGamerId(long gamerId, Limit limit);
+}
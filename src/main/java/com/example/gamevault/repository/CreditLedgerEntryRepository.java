@@ -0,0 +1,19 @@
+package com.example.gamevault.repository;
+
+import com.example.gamevault.model.CreditLedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CreditLedgerEntryRepository extends JpaRepository<CreditLedgerEntry, Long> {
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM CreditLedgerEntry e WHERE e.gamerId = :gamerId AND e.id > :afterId")
+    long sumAmountsAfter(@Param("gamerId") long gamerId, @Param("afterId") long afterId);
+
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM CreditLedgerEntry e WHERE e.gamerId = :gamerId AND e.id <= :lastId")
+    long sumAmountsUpTo(@Param("gamerId") long gamerId, @Param("lastId") long lastId);
+
+    @Query("SELECT COALESCE(MAX(e.id), :afterId) FROM CreditLedgerEntry e WHERE e.gamerId = :gamerId AND e.id > :afterId")
+    long findLastIdAfter(@Param("gamerId") long gamerId, @Param("afterId") long afterId);
+}
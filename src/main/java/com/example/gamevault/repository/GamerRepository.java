@@ -3,12 +3,38 @@ package com.example.gamevault.repository;
 import com.example.gamevault.model.Gamer;
 import com.example.gamevault.model.Person;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface GamerRepository extends JpaRepository<Gamer, Long> {
     Optional<Person> findByUsername(String username);
     Optional<Person> findByEmail(String email);
+    boolean existsByUsername(String username);
+    boolean existsByEmail(String email);
+
+    @Query("SELECT g.username FROM Gamer g")
+    Stream<String> streamAllUsernames();
+
+    @Query("SELECT g.email FROM Gamer g")
+    Stream<String> streamAllEmails();
+
+    // Returns 0 when the gamer does not exist or has insufficient credits.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Gamer g SET g.totalCredits = g.totalCredits - :credits WHERE g.id = :id AND g.totalCredits >= :credits")
+    int deductCredits(@Param("id") long id, @Param("credits") long credits);
+
+    // Sets the credits the gamer's row caches from their credit ledger balance.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Gamer g SET g.totalCredits = :credits WHERE g.id = :id")
+    int updateCredits(@Param("id") long id, @Param("credits") long credits);
+
+    // Waits for any other transaction writing the gamer's row, such as one opening their credit ledger account.
+    @Query(value = "SELECT total_credits FROM gamer WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> findCreditsForUpdate(@Param("id") long id);
 }
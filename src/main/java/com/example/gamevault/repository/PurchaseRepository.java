@@ -1,8 +1,14 @@
 package com.example.gamevault.repository;
 
 import com.example.gamevault.model.Purchase;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
+import java.time.Instant;
+import java.util.List;
 
+public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
+    List<Purchase> findByGamerIdOrderByIdDesc(long gamerId, Limit limit);
+    List<Purchase> findByGamerIdAndIdLessThanOrderByIdDesc(long gamerId, long id, Limit limit);
+    List<Purchase> findByGamerIdAndTransactionTimeBetweenOrderByTransactionTimeDesc(long gamerId, Instant from, Instant to, Limit limit);
 }
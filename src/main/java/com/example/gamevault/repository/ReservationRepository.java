@@ -1,10 +1,27 @@
 package com.example.gamevault.repository;
 
 import com.example.gamevault.model.Reservation;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
+
 @Repository
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+    List<Reservation> findByGamerIdOrderByIdDesc(long gamerId, Limit limit);
+    List<Reservation> findByGamerIdAndIdLessThanOrderByIdDesc(long gamerId, long id, Limit limit);
+    List<Reservation> findByGamerIdAndTransactionTimeBetweenOrderByTransactionTimeDesc(long gamerId, Instant from, Instant to, Limit limit);
+
+    @Query("SELECT r.id FROM Reservation r WHERE r.expiresAt <= :now ORDER BY r.expiresAt, r.id")
+    List<Long> findExpiredIds(@Param("now") Instant now, Limit limit);
 
+    // Returns 0 when the reservation was already completed, cancelled or expired by another transaction.
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Reservation r WHERE r.id = :id")
+    int deleteReservation(@Param("id") long id);
 }
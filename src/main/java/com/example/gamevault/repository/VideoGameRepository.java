@@ -2,6 +2,9 @@ package com.example.gamevault.repository;
 
 import com.example.gamevault.model.VideoGame;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -9,4 +12,26 @@ import java.util.Optional;
 @Repository
 public interface VideoGameRepository extends JpaRepository<VideoGame, Long> {
     Optional<VideoGame> findByTitle(String title);
+
+    // Returns 0 when the video game does not exist or has insufficient quantity left.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE VideoGame v SET v.quantity = v.quantity - :quantity WHERE v.id = :id AND v.quantity >= :quantity")
+    int decreaseQuantity(@Param("id") long id, @Param("quantity") int quantity);
+
+    // Returns 0 when no video game has the given title.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE VideoGame v SET v.quantity = v.quantity + :quantity WHERE v.title = :title")
+    int increaseQuantity(@Param("title") String title, @Param("quantity") int quantity);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE VideoGame v SET v.quantity = :quantity WHERE v.id = :id")
+    int setQuantity(@Param("id") long id, @Param("quantity") int quantity);
+
+    // Read from the locked row, not from a VideoGame the persistence context may already hold.
+    @Query(value = "SELECT quantity FROM video_games WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Integer> findQuantityForUpdate(@Param("id") long id);
+
+    // Locks the row and returns its quantity if it has enough, without waiting for a row another transaction holds.
+    @Query(value = "SELECT quantity FROM video_games WHERE id = :id AND quantity >= :quantity FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<Integer> lockQuantityIfAvailable(@Param("id") long id, @Param("quantity") int quantity);
 }
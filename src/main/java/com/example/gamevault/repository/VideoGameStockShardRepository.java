@@ -0,0 +1,32 @@
+package com.example.gamevault.repository;
+
+import com.example.gamevault.model.VideoGameStockShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface VideoGameStockShardRepository extends JpaRepository<VideoGameStockShard, Long> {
+    long countByVideoGameId(long videoGameId);
+
+    // Locks every shard of the video game, in shard order.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM VideoGameStockShard s WHERE s.videoGameId = :videoGameId ORDER BY s.shard")
+    List<VideoGameStockShard> findForUpdate(@Param("videoGameId") long videoGameId);
+
+    // Locks the shard and returns its quantity if it has enough, without waiting for a shard another transaction holds.
+    @Query(value = "SELECT quantity FROM video_game_stock_shards WHERE video_game_id = :videoGameId AND shard = :shard AND quantity >= :quantity FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<Integer> lockIfAvailable(@Param("videoGameId") long videoGameId, @Param("shard") int shard, @Param("quantity") int quantity);
+
+    // Returns 0 when the shard does not exist or has insufficient quantity left.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE VideoGameStockShard s SET s.quantity = s.quantity - :quantity WHERE s.videoGameId = :videoGameId AND s.shard = :shard AND s.quantity >= :quantity")
+    int decreaseQuantity(@Param("videoGameId") long videoGameId, @Param("shard") int shard, @Param("quantity") int quantity);
+}
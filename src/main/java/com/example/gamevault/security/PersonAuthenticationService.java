@@ -1,7 +1,9 @@
 package com.example.gamevault.security;
 
+import com.example.gamevault.model.Gamer;
 import com.example.gamevault.model.Person;
 import com.example.gamevault.repository.GamerRepository;
+import com.example.gamevault.service.CreditLedgerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -16,10 +18,17 @@ public class PersonAuthenticationService implements UserDetailsService {
     @Autowired
     private GamerRepository gamerRepository;
 
+    @Autowired
+    private CreditLedgerService creditLedgerService;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         Optional<Person> userOptional = gamerRepository.findByUsername(username);
         Person person = userOptional.orElseThrow(() -> new UsernameNotFoundException("Person not found"));
+        // The credits on the row may lag the credit ledger until its next compaction.
+        if (person instanceof Gamer gamer && creditLedgerService.isEnabled()) {
+            creditLedgerService.getBalance(gamer.getId()).ifPresent(gamer::setTotalCredits);
+        }
         return new PersonPrincipal(person);
     }
 }
@@ -55,7 +55,7 @@ public class PersonPrincipal implements UserDetails {
         return true;
     }
 
-    public double getTotalCredits() {
+    public long getTotalCredits() {
         return (person instanceof Gamer) ? ((Gamer) person).getTotalCredits() : 0;
     }
 
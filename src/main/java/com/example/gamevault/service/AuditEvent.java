@@ -0,0 +1,50 @@
+package com.example.gamevault.service;
+
+import lombok.Getter;
+
+// Mutable slot reused by AuditLog. Holds only ids, scalars and references to existing strings, so recording an event never formats anything.
+@Getter
+public final class AuditEvent {
+    public static final long NONE = -1;
+
+    private AuditEventType type;
+    private long timestampMillis;
+    private long gamerId;
+    private long targetId;
+    private long quantity;
+    private long credits;
+    private String detail;
+
+    void set(AuditEventType type, long gamerId, long targetId, long quantity, long credits, String detail) {
+        this.type = type;
+        this.timestampMillis = System.currentTimeMillis();
+        this.gamerId = gamerId;
+        this.targetId = targetId;
+        this.quantity = quantity;
+        this.credits = credits;
+        this.detail = detail;
+    }
+
+    void formatTo(StringBuilder builder) {
+        builder.append("type=").append(type.name()).append(" timestamp=").append(timestampMillis);
+        appendIfPresent(builder, " gamerId=", gamerId);
+        appendIfPresent(builder, " targetId=", targetId);
+        appendIfPresent(builder, " quantity=", quantity);
+        appendIfPresent(builder, " credits=", credits);
+        if (detail != null) {
+            builder.append(" detail=\"").append(detail).append('"');
+        }
+    }
+
+    void clear() {
+        type = null;
+        detail = null;
+    }
+
+    private static void appendIfPresent(StringBuilder builder, String key, long value) {
+        if (value != NONE) {
+            builder.append(key).append(value);
+        }
+    }
+
+}
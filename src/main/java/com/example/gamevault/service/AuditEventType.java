@@ -0,0 +1,15 @@
+package com.example.gamevault.service;
+
+public enum AuditEventType {
+    REGISTRATION,
+    LOGIN_SUCCEEDED,
+    LOGIN_FAILED,
+    CREDITS_DEBITED,
+    STOCK_DECREASED,
+    STOCK_INCREASED,
+    VIDEO_GAME_ADDED,
+    PURCHASE_CREATED,
+    RESERVATION_CREATED,
+    RESERVATION_DELETED,
+    CANCELLATION_CREATED
+}
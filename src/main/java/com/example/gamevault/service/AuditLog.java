@@ -0,0 +1,125 @@
+package com.example.gamevault.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records business events as key=value lines on the "gamevault.audit" logger without formatting on the caller's thread.
+ * <p>
+ * A fixed number of {@link AuditEvent} slots is allocated up front. {@link #record} fills a free slot and hands it to
+ * a single writer thread, which formats it, logs it and returns the slot. When every slot is in use the event is
+ * dropped and counted instead of blocking the request, and a warning with the number dropped is logged at most once
+ * per drop-warning-interval-ms.
+ */
+@Service
+public class AuditLog {
+    private static final Logger logger = LogManager.getLogger(AuditLog.class);
+    private static final Logger auditLogger = LogManager.getLogger("gamevault.audit");
+
+    private final BlockingQueue<AuditEvent> freeEvents;
+    private final BlockingQueue<AuditEvent> pendingEvents;
+    private final Counter recorded;
+    private final Counter dropped;
+    private final int capacity;
+    private final long dropWarningIntervalNanos;
+    private final AtomicLong lastDropWarningNanos;
+    private final AtomicLong droppedSinceWarning = new AtomicLong();
+    private final StringBuilder lineBuilder = new StringBuilder(256);
+    private Thread writer;
+    private volatile boolean running;
+
+    @Autowired
+    public AuditLog(@Value("${gamevault.audit.capacity:8192}") int capacity,
+                    @Value("${gamevault.audit.drop-warning-interval-ms:10000}") long dropWarningIntervalMs,
+                    MeterRegistry meterRegistry) {
+        this.capacity = capacity;
+        this.dropWarningIntervalNanos = TimeUnit.MILLISECONDS.toNanos(dropWarningIntervalMs);
+        // So the first drop is warned of at once.
+        this.lastDropWarningNanos = new AtomicLong(System.nanoTime() - dropWarningIntervalNanos);
+        this.freeEvents = new ArrayBlockingQueue<>(capacity);
+        this.pendingEvents = new ArrayBlockingQueue<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            freeEvents.add(new AuditEvent());
+        }
+        this.recorded = meterRegistry.counter("gamevault.audit.events", "result", "recorded");
+        this.dropped = meterRegistry.counter("gamevault.audit.events", "result", "dropped");
+        Gauge.builder("gamevault.audit.pending", pendingEvents, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::writeEvents, "audit-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void record(AuditEventType type, long gamerId, long targetId, long quantity, long credits) {
+        record(type, gamerId, targetId, quantity, credits, null);
+    }
+
+    public void record(AuditEventType type, long gamerId, long targetId, long quantity, long credits, String detail) {
+        AuditEvent event = freeEvents.poll();
+        if (event == null) {
+            dropped.increment();
+            warnOfDrop();
+            return;
+        }
+        event.set(type, gamerId, targetId, quantity, credits, detail);
+        pendingEvents.add(event);
+        recorded.increment();
+    }
+
+    private void warnOfDrop() {
+        droppedSinceWarning.incrementAndGet();
+        long now = System.nanoTime();
+        long lastWarning = lastDropWarningNanos.get();
+        if (now - lastWarning >= dropWarningIntervalNanos && lastDropWarningNanos.compareAndSet(lastWarning, now)) {
+            logger.warn("Dropped {} audit events since the last warning, with all {} slots in use.", droppedSinceWarning.getAndSet(0), capacity);
+        }
+    }
+
+    private void writeEvents() {
+        while (running || !pendingEvents.isEmpty()) {
+            try {
+                AuditEvent event = pendingEvents.poll(100, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    write(event);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void write(AuditEvent event) {
+        lineBuilder.setLength(0);
+        event.formatTo(lineBuilder);
+        event.clear();
+        freeEvents.add(event);
+        auditLogger.info(lineBuilder);
+    }
+
+    // Pending events are written before the application context closes.
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+        logger.info("Stopped audit log writer with {} events left unwritten.", pendingEvents.size());
+    }
+
+}
@@ -0,0 +1,215 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.CatalogItem;
+import com.example.gamevault.repository.VideoGameRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the catalogue shown on the home page as an immutable {@link CatalogSnapshot}.
+ * <p>
+ * Reads never touch the database once a snapshot is published. Committed stock changes are applied incrementally
+ * from {@link VideoGameChangedEvent}s, and the snapshot is reloaded in full on a fixed interval to pick up changes
+ * made outside {@link VideoGameService}.
+ * <p>
+ * A change is applied after its transaction commits, so a reload cannot tell from its read whether a change committing
+ * around that time is already in it. Video games with a change published or still being committed while a reload
+ * reads are therefore given the quantity the current snapshot holds, which has every change up to then applied once,
+ * and any change still to come is applied to the reloaded snapshot. Changes made outside VideoGameService to those
+ * video games are picked up by the next reload instead.
+ * <p>
+ * Reloads may read from a read replica, but only one that has caught up with the last change applied to the snapshot,
+ * so a reload never reverts a change the snapshot already has.
+ */
+@Service
+public class CatalogCacheService {
+    private static final Logger logger = LogManager.getLogger(CatalogCacheService.class);
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    // A lock rather than a monitor, since load() queries the database and a virtual thread blocked inside synchronized pins its carrier.
+    private final Lock loadLock = new ReentrantLock();
+    private final VideoGameRepository videoGameRepository;
+    private final ShardedStockService shardedStockService;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter incrementalUpdates;
+    private final Counter fullLoads;
+    // Stock changes published in transactions still to complete, by video game id or, when only that is known, title.
+    private final Map<Object, Integer> changesInFlight = new ConcurrentHashMap<>();
+    private volatile Set<Object> changedDuringLoad;
+    private volatile boolean reloadRequested;
+    // Epoch milliseconds by which every change applied to the snapshot had committed, which a replica read must have caught up with.
+    private final AtomicLong lastChangedAt = new AtomicLong();
+    private volatile long lastVersion;
+
+    @Autowired
+    public CatalogCacheService(VideoGameRepository videoGameRepository, ShardedStockService shardedStockService,
+                               ApplicationEventPublisher applicationEventPublisher, PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry) {
+        this.videoGameRepository = videoGameRepository;
+        this.shardedStockService = shardedStockService;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.hits = meterRegistry.counter("gamevault.catalog.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("gamevault.catalog.cache.requests", "result", "miss");
+        this.incrementalUpdates = meterRegistry.counter("gamevault.catalog.cache.updates", "type", "incremental");
+        this.fullLoads = meterRegistry.counter("gamevault.catalog.cache.updates", "type", "full");
+        Gauge.builder("gamevault.catalog.version", this, CatalogCacheService::getVersion)
+                .register(meterRegistry);
+        Gauge.builder("gamevault.catalog.staleness", this, CatalogCacheService::getStalenessSeconds)
+                .baseUnit("seconds")
+                .description("Time since the catalogue snapshot was last reloaded from the database")
+                .register(meterRegistry);
+    }
+
+    public CatalogSnapshot getSnapshot() {
+        CatalogSnapshot currentSnapshot = snapshot.get();
+        if (currentSnapshot != null && !reloadRequested) {
+            hits.increment();
+            return currentSnapshot;
+        }
+        misses.increment();
+        loadLock.lock();
+        try {
+            currentSnapshot = snapshot.get();
+            return (currentSnapshot != null && !reloadRequested) ? currentSnapshot : load();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    public List<CatalogItem> getCatalog() {
+        return getSnapshot().getItems();
+    }
+
+    public long getVersion() {
+        CatalogSnapshot currentSnapshot = snapshot.get();
+        return (currentSnapshot == null) ? lastVersion : currentSnapshot.getVersion();
+    }
+
+    public double getStalenessSeconds() {
+        CatalogSnapshot currentSnapshot = snapshot.get();
+        return (currentSnapshot == null) ? 0 : (System.nanoTime() - currentSnapshot.getLoadedAtNanos()) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    // Runs when the change is published, before its transaction commits.
+    @EventListener
+    public void onVideoGameChanging(VideoGameChangedEvent event) {
+        Object key = keyOf(event);
+        Set<Object> changed = changedDuringLoad;
+        if (changed != null) {
+            changed.add(key);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            changesInFlight.merge(key, 1, Integer::sum);
+            // After completion, so after the change has been applied on commit.
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    changesInFlight.computeIfPresent(key, (k, count) -> (count == 1) ? null : count - 1);
+                }
+            });
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVideoGameChanged(VideoGameChangedEvent event) {
+        lastChangedAt.accumulateAndGet(System.currentTimeMillis(), Math::max);
+        while (true) {
+            CatalogSnapshot currentSnapshot = snapshot.get();
+            if (currentSnapshot == null) {
+                return;
+            }
+            CatalogSnapshot updatedSnapshot = event.added() ? null : currentSnapshot.withQuantityDelta(event.videoGameId(), event.title(), event.quantityDelta());
+            if (updatedSnapshot == null) {
+                // The current snapshot stays published, with its quantities kept up to date, until the reload replaces it.
+                logger.info("Catalogue snapshot cannot apply change to VideoGame ({}) incrementally. Reloading snapshot.", event.title());
+                reloadRequested = true;
+                return;
+            }
+            if (snapshot.compareAndSet(currentSnapshot, updatedSnapshot)) {
+                incrementalUpdates.increment();
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${gamevault.catalog.refresh-interval-ms:60000}", initialDelayString = "${gamevault.catalog.refresh-interval-ms:60000}")
+    public void refresh() {
+        refresh(0);
+    }
+
+    // For changes made outside VideoGameService, which a replica must have caught up with, in epoch milliseconds, to be read from.
+    public void refresh(long changedAt) {
+        lastChangedAt.accumulateAndGet(changedAt, Math::max);
+        loadLock.lock();
+        try {
+            load();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private CatalogSnapshot load() {
+        reloadRequested = false;
+        Set<Object> changed = ConcurrentHashMap.newKeySet();
+        changedDuringLoad = changed;
+        changed.addAll(changesInFlight.keySet());
+        try {
+            List<CatalogItem> items = readOnlyTransactionTemplate.execute(status -> {
+                ReplicaReads.allow(lastChangedAt.get());
+                Map<Long, Integer> shardedQuantities = shardedStockService.getShardedQuantities();
+                return videoGameRepository.findAll().stream()
+                        .map(videoGame -> CatalogItem.of(videoGame).withQuantity(videoGame.getQuantity() + shardedQuantities.getOrDefault(videoGame.getId(), 0)))
+                        .toList();
+            });
+            CatalogSnapshot readSnapshot = CatalogSnapshot.of(getVersion() + 1, items);
+            CatalogSnapshot loadedSnapshot;
+            CatalogSnapshot currentSnapshot;
+            do {
+                currentSnapshot = snapshot.get();
+                // Without a current snapshot, as on the first load, the quantities read are used as they are.
+                loadedSnapshot = (currentSnapshot == null) ? readSnapshot
+                        : readSnapshot.withQuantitiesOf(currentSnapshot, changed, currentSnapshot.getVersion() + 1);
+            } while (!snapshot.compareAndSet(currentSnapshot, loadedSnapshot));
+            lastVersion = loadedSnapshot.getVersion();
+            fullLoads.increment();
+            logger.info("Loaded catalogue snapshot version {} with {} video games, {} of them changed while loading.", loadedSnapshot.getVersion(), items.size(), changed.size());
+            applicationEventPublisher.publishEvent(new CatalogReloadedEvent(loadedSnapshot));
+            return loadedSnapshot;
+        } finally {
+            changedDuringLoad = null;
+        }
+    }
+
+    private static Object keyOf(VideoGameChangedEvent event) {
+        return (event.videoGameId() != null) ? event.videoGameId() : event.title();
+    }
+
+}
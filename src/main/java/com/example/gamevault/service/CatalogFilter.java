@@ -0,0 +1,20 @@
+package com.example.gamevault.service;
+
+import java.util.Set;
+
+/**
+ * Narrows and orders the catalogue. Empty creators and null credit bounds match everything; credit bounds are inclusive,
+ * in cents. Pages are read after the video game with id {@code after} in the chosen order when it is given, otherwise
+ * {@code page} pages from the start.
+ */
+public record CatalogFilter(Set<String> creators, Long minCredits, Long maxCredits, boolean availableOnly,
+                            CatalogSort sort, Long after, int page, int pageSize) {
+
+    public CatalogFilter {
+        creators = (creators == null) ? Set.of() : Set.copyOf(creators);
+        sort = (sort == null) ? CatalogSort.DEFAULT : sort;
+        page = Math.max(page, 0);
+        pageSize = Math.max(pageSize, 1);
+    }
+
+}
@@ -0,0 +1,297 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.CatalogItem;
+
+import java.util.*;
+
+/**
+ * Immutable filter structures over the items of one {@link CatalogSnapshot}, addressed by their position in it.
+ * <p>
+ * Each creator has a bitmap of its positions, credits are kept as a sorted primitive array alongside the positions in
+ * that order so a price range is two binary searches, and availability is a bitmap of the positions still in stock.
+ * A filter resolves to the intersection of those bitmaps. Positions are also kept in title order, and with the credits
+ * order these give each position's rank so a page can resume right after the last video game of the previous one.
+ * Only availability changes with stock, so snapshots derived from a stock change share everything else and copy the
+ * availability bitmap only when an item sells out or returns.
+ */
+final class CatalogFilterIndex {
+    private static final int NO_CREATOR = -1;
+
+    private final int size;
+    private final List<String> creators;
+    private final Map<String, BitSet> positionsByCreator;
+    private final int[] creatorOrdinals;
+    private final long[] sortedCredits;
+    private final int[] positionsByCredits;
+    private final int[] creditsRanks;
+    private final int[] positionsByTitle;
+    private final int[] titleRanks;
+    private final BitSet available;
+
+    // Matching positions with the facet counts for the filter.
+    record FilterResult(BitSet positions, Map<String, Integer> creatorCounts, int availableMatches) {
+    }
+
+    private CatalogFilterIndex(int size, List<String> creators, Map<String, BitSet> positionsByCreator, int[] creatorOrdinals,
+                               long[] sortedCredits, int[] positionsByCredits, int[] positionsByTitle, BitSet available) {
+        this.size = size;
+        this.creators = creators;
+        this.positionsByCreator = positionsByCreator;
+        this.creatorOrdinals = creatorOrdinals;
+        this.sortedCredits = sortedCredits;
+        this.positionsByCredits = positionsByCredits;
+        this.creditsRanks = ranks(positionsByCredits);
+        this.positionsByTitle = positionsByTitle;
+        this.titleRanks = ranks(positionsByTitle);
+        this.available = available;
+    }
+
+    static CatalogFilterIndex of(List<CatalogItem> items) {
+        int size = items.size();
+        TreeMap<String, BitSet> creatorPositions = new TreeMap<>();
+        BitSet available = new BitSet(size);
+        for (int position = 0; position < size; position++) {
+            CatalogItem item = items.get(position);
+            if (item.getCreator() != null) {
+                creatorPositions.computeIfAbsent(item.getCreator(), creator -> new BitSet(size)).set(position);
+            }
+            if (item.getQuantity() > 0) {
+                available.set(position);
+            }
+        }
+        List<String> creators = List.copyOf(creatorPositions.keySet());
+        int[] creatorOrdinals = new int[size];
+        Arrays.fill(creatorOrdinals, NO_CREATOR);
+        for (int ordinal = 0; ordinal < creators.size(); ordinal++) {
+            BitSet positions = creatorPositions.get(creators.get(ordinal));
+            for (int position = positions.nextSetBit(0); position >= 0; position = positions.nextSetBit(position + 1)) {
+                creatorOrdinals[position] = ordinal;
+            }
+        }
+
+        long[] sortedCredits = new long[size];
+        int[] positionsByCredits = new int[size];
+        long highestCredits = items.stream().mapToLong(CatalogItem::getCredits).max().orElse(0);
+        if (highestCredits <= Integer.MAX_VALUE && items.stream().allMatch(item -> item.getCredits() >= 0)) {
+            // Sorts credits and position pairs packed into one long each, avoiding a boxed sort of a large catalogue.
+            long[] packed = new long[size];
+            for (int position = 0; position < size; position++) {
+                packed[position] = items.get(position).getCredits() << 32 | position;
+            }
+            Arrays.sort(packed);
+            for (int i = 0; i < size; i++) {
+                sortedCredits[i] = packed[i] >>> 32;
+                positionsByCredits[i] = (int) packed[i];
+            }
+        } else {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingLong(position -> items.get(position).getCredits()));
+            for (int i = 0; i < size; i++) {
+                positionsByCredits[i] = order[i];
+                sortedCredits[i] = items.get(order[i]).getCredits();
+            }
+        }
+        Integer[] titleOrder = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            titleOrder[i] = i;
+        }
+        Arrays.sort(titleOrder, Comparator.comparing((Integer position) -> items.get(position).getTitle(), Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+                .thenComparing(position -> position));
+        int[] positionsByTitle = Arrays.stream(titleOrder).mapToInt(Integer::intValue).toArray();
+        return new CatalogFilterIndex(size, creators, Collections.unmodifiableMap(creatorPositions), creatorOrdinals, sortedCredits, positionsByCredits, positionsByTitle, available);
+    }
+
+    CatalogFilterIndex withAvailability(int position, boolean isAvailable) {
+        if (available.get(position) == isAvailable) {
+            return this;
+        }
+        BitSet updatedAvailable = (BitSet) available.clone();
+        updatedAvailable.set(position, isAvailable);
+        return new CatalogFilterIndex(this, updatedAvailable);
+    }
+
+    private CatalogFilterIndex(CatalogFilterIndex index, BitSet available) {
+        this.size = index.size;
+        this.creators = index.creators;
+        this.positionsByCreator = index.positionsByCreator;
+        this.creatorOrdinals = index.creatorOrdinals;
+        this.sortedCredits = index.sortedCredits;
+        this.positionsByCredits = index.positionsByCredits;
+        this.creditsRanks = index.creditsRanks;
+        this.positionsByTitle = index.positionsByTitle;
+        this.titleRanks = index.titleRanks;
+        this.available = available;
+    }
+
+    /*
+     * Positions of up to pageSize + 1 matches in the filter's order, starting after the position afterPosition holds in
+     * that order, or filter.page() pages from the start when afterPosition is null. Title and credits orders are fixed
+     * for a snapshot and precomputed, so a page walks them from the cursor. Quantity changes with every purchase, so
+     * its pages are selected from the matches with a heap, which never holds more than about half of them. A page
+     * beyond the last match is empty.
+     */
+    List<Integer> pagePositions(BitSet matches, CatalogFilter filter, Integer afterPosition, List<CatalogItem> items) {
+        int wanted = filter.pageSize() + 1;
+        int skip = 0;
+        if (afterPosition == null) {
+            int matchCount = matches.cardinality();
+            long pageStart;
+            try {
+                pageStart = Math.multiplyExact((long) filter.page(), filter.pageSize());
+            } catch (ArithmeticException e) {
+                return List.of();
+            }
+            if (pageStart >= matchCount) {
+                return List.of();
+            }
+            skip = (int) pageStart;
+        }
+        CatalogSort sort = filter.sort();
+        if (sort.property() == CatalogSort.Property.QUANTITY) {
+            Comparator<Integer> order = Comparator.comparingInt((Integer position) -> items.get(position).getQuantity())
+                    .thenComparingInt(position -> position);
+            return selectPage(matches, sort.descending() ? order.reversed() : order, afterPosition, skip, wanted);
+        }
+
+        int[] order = (sort.property() == CatalogSort.Property.TITLE) ? positionsByTitle : positionsByCredits;
+        int[] ranks = (sort.property() == CatalogSort.Property.TITLE) ? titleRanks : creditsRanks;
+        int step = sort.descending() ? -1 : 1;
+        int start = (afterPosition != null) ? ranks[afterPosition] + step : (sort.descending() ? size - 1 : 0);
+        List<Integer> positions = new ArrayList<>(wanted);
+        for (int i = start; i >= 0 && i < size && positions.size() < wanted; i += step) {
+            if (matches.get(order[i])) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    positions.add(order[i]);
+                }
+            }
+        }
+        return positions;
+    }
+
+    /*
+     * The page holds the matches ranked skip to skip + wanted in the order. When those lie in the second half of the
+     * matches, they are selected as the last ones in the reversed order instead, so the heap holds at most half of the
+     * matches plus a page rather than everything before the page.
+     */
+    private static List<Integer> selectPage(BitSet matches, Comparator<Integer> order, Integer afterPosition, int skip, int wanted) {
+        if (afterPosition == null) {
+            int matchCount = matches.cardinality();
+            int end = (int) Math.min((long) skip + wanted, matchCount);
+            if (skip > matchCount - end) {
+                List<Integer> fromEnd = selectFirst(matches, order.reversed(), null, matchCount - skip);
+                fromEnd = fromEnd.subList(Math.max(matchCount - end, 0), fromEnd.size());
+                List<Integer> positions = new ArrayList<>(fromEnd);
+                Collections.reverse(positions);
+                return positions;
+            }
+        }
+        List<Integer> positions = selectFirst(matches, order, afterPosition, skip + wanted);
+        return positions.subList(Math.min(skip, positions.size()), positions.size());
+    }
+
+    // The first count matches in the order after afterPosition, sorted, with a heap of at most count positions.
+    private static List<Integer> selectFirst(BitSet matches, Comparator<Integer> order, Integer afterPosition, int count) {
+        PriorityQueue<Integer> selected = new PriorityQueue<>(count + 1, order.reversed());
+        for (int position = matches.nextSetBit(0); position >= 0; position = matches.nextSetBit(position + 1)) {
+            if (afterPosition != null && order.compare(position, afterPosition) <= 0) {
+                continue;
+            }
+            if (selected.size() < count) {
+                selected.add(position);
+            } else if (order.compare(position, selected.peek()) < 0) {
+                selected.poll();
+                selected.add(position);
+            }
+        }
+        List<Integer> positions = new ArrayList<>(selected);
+        positions.sort(order);
+        return positions;
+    }
+
+    private static int[] ranks(int[] positionsInOrder) {
+        int[] ranks = new int[positionsInOrder.length];
+        for (int rank = 0; rank < positionsInOrder.length; rank++) {
+            ranks[positionsInOrder[rank]] = rank;
+        }
+        return ranks;
+    }
+
+    FilterResult filter(CatalogFilter filter) {
+        BitSet withoutCreatorOrAvailability = creditsBetween(filter.minCredits(), filter.maxCredits());
+        BitSet withoutAvailability = withoutCreatorOrAvailability;
+        if (!filter.creators().isEmpty()) {
+            withoutAvailability = (BitSet) withoutCreatorOrAvailability.clone();
+            withoutAvailability.and(creatorPositions(filter.creators()));
+        }
+        BitSet availableMatches = (BitSet) withoutAvailability.clone();
+        availableMatches.and(available);
+        BitSet matches = filter.availableOnly() ? availableMatches : withoutAvailability;
+
+        BitSet withoutCreator = withoutCreatorOrAvailability;
+        if (filter.availableOnly()) {
+            withoutCreator = (BitSet) withoutCreatorOrAvailability.clone();
+            withoutCreator.and(available);
+        }
+        return new FilterResult(matches, creatorCounts(withoutCreator), availableMatches.cardinality());
+    }
+
+    private BitSet creditsBetween(Long minCredits, Long maxCredits) {
+        BitSet positions = new BitSet(size);
+        if (minCredits == null && maxCredits == null) {
+            positions.set(0, size);
+            return positions;
+        }
+        int from = (minCredits == null) ? 0 : firstIndexWithCreditsAtLeast(minCredits);
+        int to = (maxCredits == null || maxCredits == Long.MAX_VALUE) ? size : firstIndexWithCreditsAtLeast(maxCredits + 1);
+        for (int i = from; i < to; i++) {
+            positions.set(positionsByCredits[i]);
+        }
+        return positions;
+    }
+
+    private int firstIndexWithCreditsAtLeast(long credits) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedCredits[middle] < credits) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private BitSet creatorPositions(Set<String> selectedCreators) {
+        BitSet positions = new BitSet(size);
+        for (String creator : selectedCreators) {
+            BitSet creatorPositions = positionsByCreator.get(creator);
+            if (creatorPositions != null) {
+                positions.or(creatorPositions);
+            }
+        }
+        return positions;
+    }
+
+    // Counted from each position's creator ordinal, which stays linear in the matches however many creators there are.
+    private Map<String, Integer> creatorCounts(BitSet positions) {
+        int[] counts = new int[creators.size()];
+        for (int position = positions.nextSetBit(0); position >= 0; position = positions.nextSetBit(position + 1)) {
+            if (creatorOrdinals[position] != NO_CREATOR) {
+                counts[creatorOrdinals[position]]++;
+            }
+        }
+        Map<String, Integer> creatorCounts = new LinkedHashMap<>();
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            creatorCounts.put(creators.get(ordinal), counts[ordinal]);
+        }
+        return creatorCounts;
+    }
+
+}
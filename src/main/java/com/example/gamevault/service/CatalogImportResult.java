@@ -0,0 +1,12 @@
+package com.example.gamevault.service;
+
+import java.time.Duration;
+
+public record CatalogImportResult(long rowsRead, long rowsWritten, long rowsRejected, Duration elapsed) {
+
+    public double rowsPerSecond() {
+        double seconds = elapsed.toNanos() / 1_000_000_000.0;
+        return (seconds == 0) ? rowsWritten : rowsWritten / seconds;
+    }
+
+}
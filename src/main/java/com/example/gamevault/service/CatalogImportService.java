@@ -0,0 +1,242 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.Credits;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads video games from a CSV or JSON-lines catalogue, inserting new titles with the quantity given and overwriting
+ * only the creator and credits of titles that already exist, so importing the same file twice leaves the catalogue
+ * unchanged. The stock of an existing title is left alone, since it has been bought and reserved from since it was
+ * first imported, and for a sharded title it is not even held in its video_games row; stock is only ever changed by
+ * orders and by restocking through {@link VideoGameService}.
+ * <p>
+ * A parser thread reads the file one line at a time into batches, and the calling thread writes each batch as one
+ * JDBC batch upsert in its own transaction. Only a few batches are buffered between the two, so memory use does not
+ * grow with the size of the file.
+ * <p>
+ * CSV files need a header naming the title, creator, quantity and credits columns in any order. Fields may be quoted,
+ * but may not span lines. Credits are decimal amounts of credits such as 19.99.
+ */
+@Service
+public class CatalogImportService {
+    private static final Logger logger = LogManager.getLogger(CatalogImportService.class);
+    private static final String UPSERT_SQL = "INSERT INTO video_games (title, creator, quantity, credits) VALUES (?, ?, ?, ?)"
+            + " ON DUPLICATE KEY UPDATE creator = VALUES(creator), credits = VALUES(credits)";
+    private static final int BUFFERED_BATCHES = 4;
+    private static final List<Object[]> END_OF_INPUT = List.of();
+
+    public enum Format {
+        CSV,
+        JSON_LINES;
+
+        public static Format of(String fileName) {
+            String lowerCaseFileName = fileName.toLowerCase(Locale.ROOT);
+            if (lowerCaseFileName.endsWith(".jsonl") || lowerCaseFileName.endsWith(".ndjson")) {
+                return JSON_LINES;
+            } else if (lowerCaseFileName.endsWith(".csv")) {
+                return CSV;
+            }
+            throw new IllegalArgumentException("Unsupported catalogue file: " + fileName);
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CatalogCacheService catalogCacheService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${gamevault.catalog.import.batch-size:1000}")
+    private int batchSize;
+
+    public CatalogImportResult importCatalog(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importCatalog(reader, Format.of(file.getFileName().toString()));
+        }
+    }
+
+    public CatalogImportResult importCatalog(Reader reader, Format format) {
+        long start = System.nanoTime();
+        BlockingQueue<List<Object[]>> batches = new ArrayBlockingQueue<>(BUFFERED_BATCHES);
+        AtomicLong rowsRead = new AtomicLong();
+        AtomicLong rowsRejected = new AtomicLong();
+        AtomicReference<RuntimeException> parseFailure = new AtomicReference<>();
+        BufferedReader bufferedReader = (reader instanceof BufferedReader buffered) ? buffered : new BufferedReader(reader);
+
+        Thread parser = new Thread(() -> {
+            try {
+                parse(bufferedReader, format, batches, rowsRead, rowsRejected);
+            } catch (RuntimeException e) {
+                parseFailure.set(e);
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                batches.put(END_OF_INPUT);
+            } catch (InterruptedException ignored) {
+                // Writer has already given up.
+            }
+        }, "catalog-import-parser");
+        parser.start();
+
+        long rowsWritten = 0;
+        try {
+            List<Object[]> batch;
+            while ((batch = batches.take()) != END_OF_INPUT) {
+                List<Object[]> rows = batch;
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, rows));
+                rowsWritten += rows.size();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while importing catalogue.", e);
+        } finally {
+            parser.interrupt();
+        }
+        if (parseFailure.get() != null) {
+            throw parseFailure.get();
+        }
+
+        CatalogImportResult result = new CatalogImportResult(rowsRead.get(), rowsWritten, rowsRejected.get(), Duration.ofNanos(System.nanoTime() - start));
+        logger.info("Imported {} of {} catalogue rows ({} rejected) in {} ms, {} rows per second.",
+                result.rowsWritten(), result.rowsRead(), result.rowsRejected(), result.elapsed().toMillis(), Math.round(result.rowsPerSecond()));
+        catalogCacheService.refresh(System.currentTimeMillis());
+        return result;
+    }
+
+    private void parse(BufferedReader reader, Format format, BlockingQueue<List<Object[]>> batches, AtomicLong rowsRead, AtomicLong rowsRejected) throws InterruptedException {
+        try {
+            Map<String, Integer> columns = (format == Format.CSV) ? parseCsvHeader(reader.readLine()) : null;
+            List<Object[]> batch = new ArrayList<>(batchSize);
+            long lineNumber = (format == Format.CSV) ? 1 : 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                rowsRead.incrementAndGet();
+                try {
+                    batch.add((format == Format.CSV) ? parseCsvRow(line, columns) : parseJsonRow(line));
+                } catch (RuntimeException e) {
+                    rowsRejected.incrementAndGet();
+                    logger.error("Rejected catalogue line {}: {}", lineNumber, e.getMessage());
+                    continue;
+                }
+                if (batch.size() == batchSize) {
+                    batches.put(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                batches.put(batch);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, Integer> parseCsvHeader(String header) {
+        if (header == null) {
+            throw new IllegalArgumentException("Catalogue CSV has no header.");
+        }
+        List<String> names = splitCsvLine(header);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("title", "creator", "quantity", "credits")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Catalogue CSV header has no " + required + " column.");
+            }
+        }
+        return columns;
+    }
+
+    private static Object[] parseCsvRow(String line, Map<String, Integer> columns) {
+        List<String> fields = splitCsvLine(line);
+        if (fields.size() < columns.size()) {
+            throw new IllegalArgumentException("expected " + columns.size() + " fields but found " + fields.size());
+        }
+        return toRow(fields.get(columns.get("title")), fields.get(columns.get("creator")), fields.get(columns.get("quantity")), fields.get(columns.get("credits")));
+    }
+
+    private Object[] parseJsonRow(String line) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            return toRow(node.path("title").asText(null), node.path("creator").asText(null), node.path("quantity").asText(null), node.path("credits").asText(null));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("malformed JSON");
+        }
+    }
+
+    private static Object[] toRow(String title, String creator, String quantity, String credits) {
+        if (title == null || title.isBlank() || quantity == null || credits == null) {
+            throw new IllegalArgumentException("title, quantity and credits are required");
+        }
+        int parsedQuantity = Integer.parseInt(quantity.trim());
+        long parsedCredits = Credits.parse(credits);
+        if (parsedQuantity < 0 || parsedCredits < 0) {
+            throw new IllegalArgumentException("quantity and credits must not be negative");
+        }
+        return new Object[]{title.trim(), (creator == null) ? null : creator.trim(), parsedQuantity, parsedCredits};
+    }
+
+    // Splits one CSV line, honouring double-quoted fields and "" escapes inside them.
+    private static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+}
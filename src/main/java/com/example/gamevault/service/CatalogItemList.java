@@ -0,0 +1,54 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.CatalogItem;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+// Immutable list of catalogue items held in fixed-size chunks, so replacing one item copies a chunk and the table of chunks rather than the whole catalogue.
+final class CatalogItemList extends AbstractList<CatalogItem> implements RandomAccess {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private final CatalogItem[][] chunks;
+    private final int size;
+
+    private CatalogItemList(CatalogItem[][] chunks, int size) {
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    static CatalogItemList of(List<CatalogItem> items) {
+        int size = items.size();
+        CatalogItem[][] chunks = new CatalogItem[(size + CHUNK_SIZE - 1) >>> CHUNK_BITS][];
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            int from = chunk << CHUNK_BITS;
+            chunks[chunk] = items.subList(from, Math.min(from + CHUNK_SIZE, size)).toArray(new CatalogItem[0]);
+        }
+        return new CatalogItemList(chunks, size);
+    }
+
+    @Override
+    public CatalogItem get(int index) {
+        Objects.checkIndex(index, size);
+        return chunks[index >>> CHUNK_BITS][index & (CHUNK_SIZE - 1)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    CatalogItemList with(int index, CatalogItem item) {
+        Objects.checkIndex(index, size);
+        CatalogItem[][] updatedChunks = Arrays.copyOf(chunks, chunks.length);
+        int chunk = index >>> CHUNK_BITS;
+        updatedChunks[chunk] = Arrays.copyOf(chunks[chunk], chunks[chunk].length);
+        updatedChunks[chunk][index & (CHUNK_SIZE - 1)] = item;
+        return new CatalogItemList(updatedChunks, size);
+    }
+
+}
@@ -0,0 +1,15 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.CatalogItem;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of filtered catalogue. nextCursor is the id to pass as "after" to load the next page, or null on the last
+ * page. Creator counts ignore the creator filter and the available count ignores the availability filter, so each shows
+ * how many video games choosing that option would match.
+ */
+public record CatalogPage(List<CatalogItem> items, CatalogSort sort, Long nextCursor, int totalMatches,
+                          Map<String, Integer> creatorCounts, int availableMatches) {
+}
@@ -0,0 +1,5 @@
+package com.example.gamevault.service;
+
+// Published by CatalogCacheService after it loads a snapshot from the database, which is when titles may have been added, renamed or removed.
+public record CatalogReloadedEvent(CatalogSnapshot snapshot) {
+}
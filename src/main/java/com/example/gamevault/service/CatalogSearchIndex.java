@@ -0,0 +1,507 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.CatalogItem;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thread-safe inverted index over video game titles and creators, with a trie of every indexed word so the last word
+ * of a query can be matched as a prefix while it is still being typed.
+ * <p>
+ * Every query word must match a title or creator word. Matches are ranked by where they were found: an exact title
+ * word scores highest, then a title word prefix, an exact creator word and finally a creator word prefix. Titles
+ * starting with the first query word come first among equal scores, then titles with fewer words.
+ * <p>
+ * Each posting records whether the word came from the creator and whether it starts the title, so queries are scored
+ * by intersecting sorted posting lists, rarest word first, without reading the documents. A prefix matching far more
+ * documents than are still left is checked against those documents' words instead of being expanded.
+ * <p>
+ * Removed and replaced video games leave tombstones in the posting lists until {@link #synchronize} rebuilds the
+ * index once they outnumber the live entries.
+ */
+public final class CatalogSearchIndex {
+    private static final int EXACT_TITLE_SCORE = 8;
+    private static final int PREFIX_TITLE_SCORE = 4;
+    private static final int EXACT_CREATOR_SCORE = 2;
+    private static final int PREFIX_CREATOR_SCORE = 1;
+    private static final int CREATOR_WORD = 1;
+    private static final int LEADING_TITLE_WORD = 2;
+    private static final int FLAG_BITS = 2;
+    private static final int PREFIX_VERIFICATION_RATIO = 8;
+    private static final String[] NO_WORDS = new String[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private TrieNode root = new TrieNode();
+    private List<Document> documents = new ArrayList<>();
+    private Map<Long, Integer> documentsByVideoGameId = new HashMap<>();
+    private long[] videoGameIds = new long[16];
+    private int[] titleWordCounts = new int[16];
+    private int removedDocuments;
+
+    private record Document(long videoGameId, String title, String creator, String[] titleWords, String[] creatorWords) {
+    }
+
+    // Matching documents in ascending order with the score accumulated so far for each.
+    private record ScoredDocuments(int[] documents, int[] scores, int size) {
+        static final ScoredDocuments NONE = new ScoredDocuments(new int[0], new int[0], 0);
+    }
+
+    public void add(long videoGameId, String title, String creator) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(videoGameId);
+            index(videoGameId, title, creator);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long videoGameId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(videoGameId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Makes the index match {@code videoGames}, indexing new and renamed video games and removing missing ones.
+     * Returns the number of video games whose entries changed.
+     */
+    public int synchronize(Collection<CatalogItem> videoGames) {
+        lock.writeLock().lock();
+        try {
+            Set<Long> presentIds = new HashSet<>(videoGames.size() * 2);
+            int changed = 0;
+            for (CatalogItem videoGame : videoGames) {
+                presentIds.add(videoGame.getId());
+                Integer position = documentsByVideoGameId.get(videoGame.getId());
+                Document document = (position == null) ? null : documents.get(position);
+                if (document == null || !Objects.equals(document.title(), videoGame.getTitle()) || !Objects.equals(document.creator(), videoGame.getCreator())) {
+                    removeDocument(videoGame.getId());
+                    index(videoGame.getId(), videoGame.getTitle(), videoGame.getCreator());
+                    changed++;
+                }
+            }
+            for (Long videoGameId : new ArrayList<>(documentsByVideoGameId.keySet())) {
+                if (!presentIds.contains(videoGameId)) {
+                    removeDocument(videoGameId);
+                    changed++;
+                }
+            }
+            if (removedDocuments > documentsByVideoGameId.size()) {
+                rebuild();
+            }
+            return changed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentsByVideoGameId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Returns the ids of at most limit best matching video games, best first.
+    public List<Long> search(String query, int limit) {
+        String[] queryWords = tokenize(query);
+        if (queryWords.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        boolean lastWordIsPrefix = !Character.isWhitespace(query.charAt(query.length() - 1));
+
+        lock.readLock().lock();
+        try {
+            return best(matches(queryWords, lastWordIsPrefix), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Lower cases and splits on anything other than letters and digits, so "Spider-man 2" becomes spider, man and 2.
+    static String[] tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return NO_WORDS;
+        }
+        List<String> words = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordCharacter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordCharacter && start < 0) {
+                start = i;
+            } else if (!wordCharacter && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words.toArray(NO_WORDS);
+    }
+
+    private ScoredDocuments matches(String[] queryWords, boolean lastWordIsPrefix) {
+        TrieNode[] nodes = new TrieNode[queryWords.length];
+        Integer[] order = new Integer[queryWords.length];
+        for (int i = 0; i < queryWords.length; i++) {
+            boolean prefix = lastWordIsPrefix && i == queryWords.length - 1;
+            nodes[i] = root.find(queryWords[i]);
+            if (nodes[i] == null || (!prefix && nodes[i].postings.size == 0)) {
+                return ScoredDocuments.NONE;
+            }
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> estimatedPostings(nodes[i], lastWordIsPrefix && i == queryWords.length - 1)));
+
+        ScoredDocuments matches = null;
+        for (int i : order) {
+            boolean prefix = lastWordIsPrefix && i == queryWords.length - 1;
+            List<TrieNode> wordNodes = wordNodes(nodes[i], prefix);
+            long postings = estimatedPostings(nodes[i], prefix);
+            if (matches == null) {
+                matches = scoredPostings(nodes[i], wordNodes, i == 0);
+            } else if ((long) wordNodes.size() * matches.size() <= postings) {
+                matches = probe(matches, nodes[i], wordNodes, i == 0);
+            } else if (postings > (long) matches.size() * PREFIX_VERIFICATION_RATIO) {
+                matches = verifyPrefix(matches, queryWords[i], i == 0);
+            } else {
+                matches = intersect(matches, scoredPostings(nodes[i], wordNodes, i == 0));
+            }
+            if (matches.size() == 0) {
+                return ScoredDocuments.NONE;
+            }
+        }
+        return matches;
+    }
+
+    private static long estimatedPostings(TrieNode node, boolean prefix) {
+        return prefix ? node.subtreePostings : node.postings.size;
+    }
+
+    /*
+     * Scores are doubled so the bonus for a title starting with the first query word, which is only awarded once, breaks
+     * ties between equal matches without outweighing a better one. Postings are folded to one entry per document,
+     * keeping its best score.
+     */
+    private static ScoredDocuments scoredPostings(TrieNode node, List<TrieNode> wordNodes, boolean firstQueryWord) {
+        int total = 0;
+        for (TrieNode wordNode : wordNodes) {
+            total += wordNode.postings.size;
+        }
+        long[] entries = new long[total];
+        int entryCount = 0;
+        for (TrieNode wordNode : wordNodes) {
+            boolean exact = wordNode == node;
+            IntList postings = wordNode.postings;
+            for (int i = 0; i < postings.size; i++) {
+                int posting = postings.values[i];
+                entries[entryCount++] = ((long) (posting >>> FLAG_BITS) << 32) | postingScore(posting, exact, firstQueryWord);
+            }
+        }
+        // A single word's postings are already in document order.
+        if (wordNodes.size() > 1) {
+            Arrays.sort(entries);
+        }
+
+        int[] documents = new int[entryCount];
+        int[] scores = new int[entryCount];
+        int size = 0;
+        for (int i = 0; i < entryCount; i++) {
+            int document = (int) (entries[i] >>> 32);
+            int score = (int) entries[i];
+            if (size > 0 && documents[size - 1] == document) {
+                scores[size - 1] = Math.max(scores[size - 1], score);
+            } else {
+                documents[size] = document;
+                scores[size++] = score;
+            }
+        }
+        return new ScoredDocuments(documents, scores, size);
+    }
+
+    private static int postingScore(int posting, boolean exact, boolean firstQueryWord) {
+        boolean creatorWord = (posting & CREATOR_WORD) != 0;
+        int score = 2 * (creatorWord ? (exact ? EXACT_CREATOR_SCORE : PREFIX_CREATOR_SCORE) : (exact ? EXACT_TITLE_SCORE : PREFIX_TITLE_SCORE));
+        return (firstQueryWord && (posting & LEADING_TITLE_WORD) != 0) ? score + 1 : score;
+    }
+
+    private static List<TrieNode> wordNodes(TrieNode node, boolean prefix) {
+        if (!prefix) {
+            return List.of(node);
+        }
+        List<TrieNode> wordNodes = new ArrayList<>();
+        node.collectWordNodes(wordNodes);
+        return wordNodes;
+    }
+
+    // Looks each remaining document up in the word's posting lists, for when there are far fewer documents than postings.
+    private static ScoredDocuments probe(ScoredDocuments candidates, TrieNode node, List<TrieNode> wordNodes, boolean firstQueryWord) {
+        int[] wordScores = new int[candidates.size()];
+        for (TrieNode wordNode : wordNodes) {
+            IntList postings = wordNode.postings;
+            boolean exact = wordNode == node;
+            int from = 0;
+            for (int i = 0; i < candidates.size() && from < postings.size; i++) {
+                int first = lowerBound(postings, from, candidates.documents()[i] << FLAG_BITS);
+                for (from = first; from < postings.size && postings.values[from] >>> FLAG_BITS == candidates.documents()[i]; from++) {
+                    wordScores[i] = Math.max(wordScores[i], postingScore(postings.values[from], exact, firstQueryWord));
+                }
+                from = first;
+            }
+        }
+        int[] documents = new int[candidates.size()];
+        int[] scores = new int[candidates.size()];
+        int size = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            if (wordScores[i] > 0) {
+                documents[size] = candidates.documents()[i];
+                scores[size++] = candidates.scores()[i] + wordScores[i];
+            }
+        }
+        return new ScoredDocuments(documents, scores, size);
+    }
+
+    // Index of the first posting at or after from that is not less than key, found by galloping then binary search.
+    private static int lowerBound(IntList postings, int from, int key) {
+        int bound = 1;
+        while (from + bound < postings.size && postings.values[from + bound] < key) {
+            bound <<= 1;
+        }
+        int low = from;
+        int high = Math.min(from + bound + 1, postings.size);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (postings.values[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Keeps the documents present in both, adding their scores. Gallops through the larger list.
+    private static ScoredDocuments intersect(ScoredDocuments first, ScoredDocuments second) {
+        ScoredDocuments smaller = (first.size() <= second.size()) ? first : second;
+        ScoredDocuments larger = (smaller == first) ? second : first;
+        int[] documents = new int[smaller.size()];
+        int[] scores = new int[smaller.size()];
+        int size = 0;
+        int from = 0;
+        for (int i = 0; i < smaller.size() && from < larger.size(); i++) {
+            int document = smaller.documents()[i];
+            int bound = 1;
+            while (from + bound < larger.size() && larger.documents()[from + bound] < document) {
+                bound <<= 1;
+            }
+            int position = Arrays.binarySearch(larger.documents(), from, Math.min(from + bound + 1, larger.size()), document);
+            if (position >= 0) {
+                documents[size] = document;
+                scores[size++] = smaller.scores()[i] + larger.scores()[position];
+                from = position + 1;
+            } else {
+                from = -position - 1;
+            }
+        }
+        return new ScoredDocuments(documents, scores, size);
+    }
+
+    private ScoredDocuments verifyPrefix(ScoredDocuments candidates, String prefix, boolean firstQueryWord) {
+        int[] documents = new int[candidates.size()];
+        int[] scores = new int[candidates.size()];
+        int size = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            Document document = this.documents.get(candidates.documents()[i]);
+            if (document == null) {
+                continue;
+            }
+            int score = 2 * Math.max(
+                    wordScore(document.titleWords(), prefix, EXACT_TITLE_SCORE, PREFIX_TITLE_SCORE),
+                    wordScore(document.creatorWords(), prefix, EXACT_CREATOR_SCORE, PREFIX_CREATOR_SCORE));
+            if (score > 0) {
+                if (firstQueryWord && document.titleWords().length > 0 && document.titleWords()[0].startsWith(prefix)) {
+                    score++;
+                }
+                documents[size] = candidates.documents()[i];
+                scores[size++] = candidates.scores()[i] + score;
+            }
+        }
+        return new ScoredDocuments(documents, scores, size);
+    }
+
+    private static int wordScore(String[] words, String prefix, int exactScore, int prefixScore) {
+        int best = 0;
+        for (String word : words) {
+            if (word.equals(prefix)) {
+                return exactScore;
+            } else if (word.startsWith(prefix)) {
+                best = prefixScore;
+            }
+        }
+        return best;
+    }
+
+    private List<Long> best(ScoredDocuments matches, int limit) {
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, (first, second) -> compareRank(matches, second, first));
+        for (int i = 0; i < matches.size(); i++) {
+            if (documents.get(matches.documents()[i]) == null) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(i);
+            } else if (compareRank(matches, i, best.peek()) < 0) {
+                best.poll();
+                best.add(i);
+            }
+        }
+        List<Integer> ranked = new ArrayList<>(best);
+        ranked.sort((first, second) -> compareRank(matches, first, second));
+        return ranked.stream().map(i -> videoGameIds[matches.documents()[i]]).toList();
+    }
+
+    // Negative when match first ranks above match second: higher score, then fewer title words, then the older video game.
+    private int compareRank(ScoredDocuments matches, int first, int second) {
+        int comparison = Integer.compare(matches.scores()[second], matches.scores()[first]);
+        if (comparison != 0) {
+            return comparison;
+        }
+        int firstDocument = matches.documents()[first];
+        int secondDocument = matches.documents()[second];
+        comparison = Integer.compare(titleWordCounts[firstDocument], titleWordCounts[secondDocument]);
+        return (comparison != 0) ? comparison : Long.compare(videoGameIds[firstDocument], videoGameIds[secondDocument]);
+    }
+
+    private void index(long videoGameId, String title, String creator) {
+        int position = documents.size();
+        String[] titleWords = tokenize(title);
+        String[] creatorWords = tokenize(creator);
+        for (int i = 0; i < titleWords.length; i++) {
+            titleWords[i] = root.add(titleWords[i], position << FLAG_BITS | (i == 0 ? LEADING_TITLE_WORD : 0));
+        }
+        for (int i = 0; i < creatorWords.length; i++) {
+            creatorWords[i] = root.add(creatorWords[i], position << FLAG_BITS | CREATOR_WORD);
+        }
+        documents.add(new Document(videoGameId, title, creator, titleWords, creatorWords));
+        documentsByVideoGameId.put(videoGameId, position);
+        if (position == videoGameIds.length) {
+            videoGameIds = Arrays.copyOf(videoGameIds, position * 2);
+            titleWordCounts = Arrays.copyOf(titleWordCounts, position * 2);
+        }
+        videoGameIds[position] = videoGameId;
+        titleWordCounts[position] = titleWords.length;
+    }
+
+    private void removeDocument(long videoGameId) {
+        Integer position = documentsByVideoGameId.remove(videoGameId);
+        if (position != null) {
+            documents.set(position, null);
+            removedDocuments++;
+        }
+    }
+
+    private void rebuild() {
+        List<Document> liveDocuments = documents.stream().filter(Objects::nonNull).toList();
+        root = new TrieNode();
+        documents = new ArrayList<>(liveDocuments.size());
+        documentsByVideoGameId = new HashMap<>(liveDocuments.size() * 2);
+        removedDocuments = 0;
+        for (Document document : liveDocuments) {
+            index(document.videoGameId(), document.title(), document.creator());
+        }
+    }
+
+    private static final class TrieNode {
+        private static final char[] NO_KEYS = new char[0];
+        private static final TrieNode[] NO_CHILDREN = new TrieNode[0];
+
+        private char[] keys = NO_KEYS;
+        private TrieNode[] children = NO_CHILDREN;
+        private String word;
+        private final IntList postings = new IntList();
+        private long subtreePostings;
+
+        // Returns the trie's copy of the word, so documents share one String per distinct word.
+        String add(String word, int posting) {
+            TrieNode node = this;
+            for (int i = 0; i < word.length(); i++) {
+                node = node.childFor(word.charAt(i));
+            }
+            if (node.word == null) {
+                node.word = word;
+            }
+            // The same word twice in one title or creator adds nothing; the leading occurrence is always indexed first.
+            if (node.postings.size > 0 && node.postings.last() >>> FLAG_BITS == posting >>> FLAG_BITS
+                    && (node.postings.last() & CREATOR_WORD) == (posting & CREATOR_WORD)) {
+                return node.word;
+            }
+            node.postings.add(posting);
+            TrieNode ancestor = this;
+            ancestor.subtreePostings++;
+            for (int i = 0; i < word.length(); i++) {
+                ancestor = ancestor.childFor(word.charAt(i));
+                ancestor.subtreePostings++;
+            }
+            return node.word;
+        }
+
+        TrieNode find(String prefix) {
+            TrieNode node = this;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                int index = Arrays.binarySearch(node.keys, prefix.charAt(i));
+                node = (index < 0) ? null : node.children[index];
+            }
+            return node;
+        }
+
+        void collectWordNodes(List<TrieNode> wordNodes) {
+            if (postings.size > 0) {
+                wordNodes.add(this);
+            }
+            for (TrieNode child : children) {
+                child.collectWordNodes(wordNodes);
+            }
+        }
+
+        private TrieNode childFor(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            TrieNode[] newChildren = new TrieNode[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            TrieNode child = new TrieNode();
+            newKeys[insertAt] = key;
+            newChildren[insertAt] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[2];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int last() {
+            return values[size - 1];
+        }
+    }
+
+}
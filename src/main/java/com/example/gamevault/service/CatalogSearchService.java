@@ -0,0 +1,89 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.CatalogItem;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ranked search and autocomplete over the catalogue, answered from a {@link CatalogSearchIndex} instead of SQL LIKE scans.
+ * <p>
+ * The index only holds titles and creators. It is brought up to date with each snapshot the {@link CatalogCacheService}
+ * loads, indexing only the video games that were added, renamed or removed since the last one, while stock changes
+ * need no index update because matches are read back from the current snapshot with their live quantity.
+ */
+@Service
+public class CatalogSearchService {
+    private static final Logger logger = LogManager.getLogger(CatalogSearchService.class);
+    public static final int MAX_RESULTS = 50;
+
+    private final CatalogSearchIndex index = new CatalogSearchIndex();
+    private final Lock synchronizeLock = new ReentrantLock();
+    private final CatalogCacheService catalogCacheService;
+    private final Timer searches;
+    private final Timer suggestions;
+    private volatile long indexedSnapshotLoadedAtNanos;
+
+    @Autowired
+    public CatalogSearchService(CatalogCacheService catalogCacheService, MeterRegistry meterRegistry) {
+        this.catalogCacheService = catalogCacheService;
+        this.searches = meterRegistry.timer("gamevault.catalog.search", "type", "search");
+        this.suggestions = meterRegistry.timer("gamevault.catalog.search", "type", "suggestion");
+    }
+
+    public List<CatalogItem> search(String query, int limit) {
+        return searches.record(() -> find(query, limit));
+    }
+
+    public List<String> suggestTitles(String prefix, int limit) {
+        return suggestions.record(() -> find(prefix, limit).stream().map(CatalogItem::getTitle).toList());
+    }
+
+    @EventListener
+    public void onCatalogReloaded(CatalogReloadedEvent event) {
+        synchronize(event.snapshot());
+    }
+
+    private List<CatalogItem> find(String query, int limit) {
+        CatalogSnapshot snapshot = currentSnapshot();
+        List<CatalogItem> matches = new ArrayList<>();
+        for (long videoGameId : index.search(query, Math.min(limit, MAX_RESULTS))) {
+            snapshot.findById(videoGameId).ifPresent(matches::add);
+        }
+        return matches;
+    }
+
+    // Catches up with a snapshot loaded before this service existed or while its reload event was being handled.
+    private CatalogSnapshot currentSnapshot() {
+        CatalogSnapshot snapshot = catalogCacheService.getSnapshot();
+        if (snapshot.getLoadedAtNanos() != indexedSnapshotLoadedAtNanos) {
+            synchronize(snapshot);
+        }
+        return snapshot;
+    }
+
+    // Searches arriving during a rebuild wait on a lock, which unlike a monitor frees the carrier of a virtual thread.
+    private void synchronize(CatalogSnapshot snapshot) {
+        synchronizeLock.lock();
+        try {
+            if (snapshot.getLoadedAtNanos() == indexedSnapshotLoadedAtNanos) {
+                return;
+            }
+            int changed = index.synchronize(snapshot.getItems());
+            indexedSnapshotLoadedAtNanos = snapshot.getLoadedAtNanos();
+            logger.info("Search index updated for {} video games from catalogue snapshot version {}.", changed, snapshot.getVersion());
+        } finally {
+            synchronizeLock.unlock();
+        }
+    }
+
+}
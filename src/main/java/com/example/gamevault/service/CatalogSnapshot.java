@@ -0,0 +1,94 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.CatalogItem;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.*;
+
+// Immutable view of the whole catalogue. Stock changes produce a new snapshot with the next version; existing ones are never modified.
+@Getter
+public final class CatalogSnapshot {
+    private final long version;
+    @Getter(AccessLevel.NONE)
+    private final CatalogItemList items;
+    private final long loadedAtNanos;
+    private final Map<Long, Integer> positionsById;
+    private final Map<String, Integer> positionsByTitle;
+    @Getter(AccessLevel.NONE)
+    private final CatalogFilterIndex filterIndex;
+
+    private CatalogSnapshot(long version, CatalogItemList items, long loadedAtNanos, Map<Long, Integer> positionsById, Map<String, Integer> positionsByTitle, CatalogFilterIndex filterIndex) {
+        this.version = version;
+        this.items = items;
+        this.loadedAtNanos = loadedAtNanos;
+        this.positionsById = positionsById;
+        this.positionsByTitle = positionsByTitle;
+        this.filterIndex = filterIndex;
+    }
+
+    static CatalogSnapshot of(long version, List<CatalogItem> items) {
+        List<CatalogItem> sortedItems = new ArrayList<>(items);
+        sortedItems.sort(Comparator.comparingLong(CatalogItem::getId));
+        Map<Long, Integer> positionsById = new HashMap<>(sortedItems.size() * 2);
+        Map<String, Integer> positionsByTitle = new HashMap<>(sortedItems.size() * 2);
+        for (int position = 0; position < sortedItems.size(); position++) {
+            positionsById.put(sortedItems.get(position).getId(), position);
+            positionsByTitle.put(sortedItems.get(position).getTitle(), position);
+        }
+        CatalogItemList itemList = CatalogItemList.of(sortedItems);
+        return new CatalogSnapshot(version, itemList, System.nanoTime(), positionsById, positionsByTitle, CatalogFilterIndex.of(itemList));
+    }
+
+    public List<CatalogItem> getItems() {
+        return items;
+    }
+
+    public Optional<CatalogItem> findById(long videoGameId) {
+        Integer position = positionsById.get(videoGameId);
+        return (position == null) ? Optional.empty() : Optional.of(items.get(position));
+    }
+
+    public CatalogPage filter(CatalogFilter filter) {
+        CatalogFilterIndex.FilterResult result = filterIndex.filter(filter);
+        Integer afterPosition = (filter.after() == null) ? null : positionsById.get(filter.after());
+        List<Integer> positions = filterIndex.pagePositions(result.positions(), filter, afterPosition, items);
+        List<CatalogItem> pageItems = new ArrayList<>(filter.pageSize());
+        for (int i = 0; i < positions.size() && i < filter.pageSize(); i++) {
+            pageItems.add(items.get(positions.get(i)));
+        }
+        Long nextCursor = (positions.size() > filter.pageSize()) ? pageItems.get(pageItems.size() - 1).getId() : null;
+        return new CatalogPage(pageItems, filter.sort(), nextCursor, result.positions().cardinality(), result.creatorCounts(), result.availableMatches());
+    }
+
+    // Returns null when the video game is not part of this snapshot.
+    CatalogSnapshot withQuantityDelta(Long videoGameId, String title, int quantityDelta) {
+        Integer position = (videoGameId != null) ? positionsById.get(videoGameId) : positionsByTitle.get(title);
+        if (position == null) {
+            return null;
+        }
+        return withQuantity(version + 1, position, items.get(position).getQuantity() + quantityDelta);
+    }
+
+    /*
+     * This snapshot as the given version, with the quantities source holds for the video games whose id or title is
+     * among the keys. Video games missing from either snapshot keep the quantity read into this one.
+     */
+    CatalogSnapshot withQuantitiesOf(CatalogSnapshot source, Set<Object> keys, long version) {
+        CatalogSnapshot updated = new CatalogSnapshot(version, items, loadedAtNanos, positionsById, positionsByTitle, filterIndex);
+        for (Object key : keys) {
+            Integer position = (key instanceof Long id) ? positionsById.get(id) : positionsByTitle.get((String) key);
+            Integer sourcePosition = (key instanceof Long id) ? source.positionsById.get(id) : source.positionsByTitle.get((String) key);
+            if (position != null && sourcePosition != null) {
+                updated = updated.withQuantity(version, position, source.items.get(sourcePosition).getQuantity());
+            }
+        }
+        return updated;
+    }
+
+    private CatalogSnapshot withQuantity(long updatedVersion, int position, int quantity) {
+        return new CatalogSnapshot(updatedVersion, items.with(position, items.get(position).withQuantity(quantity)), loadedAtNanos, positionsById, positionsByTitle,
+                filterIndex.withAvailability(position, quantity > 0));
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.example.gamevault.service;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Locale;
+
+// Order of a catalogue page. Ties are broken by video game id in the same direction, so every order is total and stable.
+public record CatalogSort(Property property, boolean descending) {
+    public static final CatalogSort DEFAULT = new CatalogSort(Property.TITLE, false);
+
+    public enum Property {
+        TITLE,
+        CREDITS,
+        QUANTITY
+    }
+
+    // Uses the first order of the sort, falling back to DEFAULT when it is missing or not a sortable property.
+    public static CatalogSort of(Sort sort) {
+        for (Sort.Order order : sort) {
+            try {
+                return new CatalogSort(Property.valueOf(order.getProperty().toUpperCase(Locale.ROOT)), order.isDescending());
+            } catch (IllegalArgumentException e) {
+                return DEFAULT;
+            }
+        }
+        return DEFAULT;
+    }
+
+    // The sort parameter value selecting this order, such as "credits,desc".
+    public String parameter() {
+        return property.name().toLowerCase(Locale.ROOT) + (descending ? ",desc" : ",asc");
+    }
+
+}
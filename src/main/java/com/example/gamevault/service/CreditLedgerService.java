@@ -0,0 +1,227 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.CreditBalanceSnapshot;
+import com.example.gamevault.model.CreditLedgerEntry;
+import com.example.gamevault.model.Gamer;
+import com.example.gamevault.repository.CreditBalanceSnapshotRepository;
+import com.example.gamevault.repository.CreditLedgerEntryRepository;
+import com.example.gamevault.repository.GamerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Optional append-only ledger of gamers' credits, enabled with gamevault.credits.ledger.enabled. Once enabled it holds
+ * the balance orders are debited against: a debit checks the gamer's snapshot plus the entries appended since, and
+ * appends an entry for each purchase or reservation it pays for, without updating any row. Each gamer's account opens
+ * with an entry for the credits on their row when it was opened.
+ * <p>
+ * A debit holds the gamer's snapshot until it commits, so that two debits cannot both spend the same credits, and a
+ * scheduled job folds new entries into the snapshots so the sum of entries since stays short. Compaction also copies
+ * the balance to the credits on the gamer's row, which are only a cache for pages and login between compactions. A
+ * second job reconciles each snapshot with the entries it covers, and the row's cache with the snapshot. Both lock the
+ * snapshot while they read, so they never miss an entry still being appended.
+ */
+@Service
+public class CreditLedgerService {
+    private static final Logger logger = LogManager.getLogger(CreditLedgerService.class);
+
+    private final CreditLedgerEntryRepository entryRepository;
+    private final CreditBalanceSnapshotRepository snapshotRepository;
+    private final GamerRepository gamerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Counter appended;
+    private final Counter compacted;
+    private final Counter matched;
+    private final Counter mismatched;
+
+    // A debit of credits for the purchase or reservation with the given id, or AuditEvent.NONE.
+    public record Debit(long transactionId, long credits) {
+    }
+
+    private enum Reconciliation {
+        MATCHED,
+        MISMATCHED,
+        NOT_OPENED
+    }
+
+    @Autowired
+    public CreditLedgerService(CreditLedgerEntryRepository entryRepository,
+                               CreditBalanceSnapshotRepository snapshotRepository,
+                               GamerRepository gamerRepository,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${gamevault.credits.ledger.enabled:false}") boolean enabled,
+                               @Value("${gamevault.credits.ledger.batch-size:500}") int batchSize) {
+        this.entryRepository = entryRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.gamerRepository = gamerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.appended = meterRegistry.counter("gamevault.credits.ledger.entries");
+        this.compacted = meterRegistry.counter("gamevault.credits.ledger.compactions");
+        this.matched = meterRegistry.counter("gamevault.credits.ledger.reconciliations", "result", "matched");
+        this.mismatched = meterRegistry.counter("gamevault.credits.ledger.reconciliations", "result", "mismatched");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /*
+     * Appends the debits when the gamer's balance covers their total, opening the gamer's account first if need be.
+     * Must join the transaction paying for them, so the entries commit or roll back with it. Returns false when the
+     * credits are insufficient.
+     */
+    public boolean debit(long gamerId, List<Debit> debits) {
+        long credits = 0;
+        for (Debit debit : debits) {
+            credits = Math.addExact(credits, debit.credits());
+        }
+        if (!snapshotRepository.existsById(gamerId)) {
+            openAccountInTransaction(gamerId);
+        }
+        CreditBalanceSnapshot snapshot = snapshotRepository.findForUpdate(gamerId).orElseThrow();
+        if (snapshot.getBalance() + entryRepository.sumAmountsAfter(gamerId, snapshot.getLastEntryId()) < credits) {
+            return false;
+        }
+        for (Debit debit : debits) {
+            entryRepository.save(new CreditLedgerEntry(gamerId, debit.transactionId(), CreditLedgerEntry.Type.DEBIT, -debit.credits()));
+        }
+        appended.increment(debits.size());
+        return true;
+    }
+
+    // Opens the gamer's account with the credits on their row. Returns false when the account was already open.
+    public boolean openAccount(long gamerId) {
+        if (!enabled) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> openAccountInTransaction(gamerId)));
+        } catch (DataIntegrityViolationException e) {
+            // Opened at the same time by another instance or job.
+            return false;
+        }
+    }
+
+    // The gamer's balance; empty when the gamer's account has not been opened yet.
+    public OptionalLong getBalance(long gamerId) {
+        return snapshotRepository.findById(gamerId)
+                .map(snapshot -> OptionalLong.of(snapshot.getBalance() + entryRepository.sumAmountsAfter(gamerId, snapshot.getLastEntryId())))
+                .orElse(OptionalLong.empty());
+    }
+
+    // Opens accounts of gamers registered before the ledger was enabled, then folds new entries into snapshots and rows.
+    @Scheduled(fixedDelayString = "${gamevault.credits.ledger.compaction-interval-ms:300000}")
+    public int compact() {
+        if (!enabled) {
+            return 0;
+        }
+        List<Long> unopened;
+        do {
+            unopened = snapshotRepository.findGamerIdsWithoutSnapshot(Limit.of(batchSize));
+            unopened.forEach(this::openAccount);
+        } while (unopened.size() == batchSize);
+
+        int compactedCount = 0;
+        List<Long> gamerIds;
+        do {
+            gamerIds = snapshotRepository.findGamerIdsWithEntriesSinceSnapshot(Limit.of(batchSize));
+            for (long gamerId : gamerIds) {
+                transactionTemplate.executeWithoutResult(status -> compact(gamerId));
+                compactedCount++;
+            }
+        } while (gamerIds.size() == batchSize);
+        compacted.increment(compactedCount);
+        logger.info("Compacted credit ledger entries of {} gamers into snapshots.", compactedCount);
+        return compactedCount;
+    }
+
+    // Returns the number of gamers whose snapshot disagrees with the ledger or their row, after logging each of them.
+    @Scheduled(fixedDelayString = "${gamevault.credits.ledger.reconciliation-interval-ms:3600000}")
+    public int reconcile() {
+        if (!enabled) {
+            return 0;
+        }
+        int mismatchedCount = 0;
+        long after = Long.MIN_VALUE;
+        List<CreditBalanceSnapshot> snapshots;
+        do {
+            snapshots = snapshotRepository.findByGamerIdGreaterThanOrderByGamerId(after, Limit.of(batchSize));
+            for (CreditBalanceSnapshot snapshot : snapshots) {
+                after = snapshot.getGamerId();
+                // Checked without locking first, and again under the snapshot's lock only if compaction may have been in progress.
+                if (reconcile(snapshot.getGamerId(), false) == Reconciliation.MISMATCHED
+                        && transactionTemplate.execute(status -> reconcile(snapshot.getGamerId(), true)) == Reconciliation.MISMATCHED) {
+                    mismatchedCount++;
+                    mismatched.increment();
+                } else {
+                    matched.increment();
+                }
+            }
+        } while (snapshots.size() == batchSize);
+        logger.info("Reconciled credit ledger with {} mismatched gamers.", mismatchedCount);
+        return mismatchedCount;
+    }
+
+    /*
+     * Locks the gamer's row, so that only one transaction opens their account, and nets out any debits appended before
+     * it was opened.
+     */
+    private boolean openAccountInTransaction(long gamerId) {
+        long credits = gamerRepository.findCreditsForUpdate(gamerId)
+                .orElseThrow(() -> new IllegalArgumentException("No gamer with id " + gamerId + "."));
+        if (snapshotRepository.existsById(gamerId)) {
+            return false;
+        }
+        long opening = credits - entryRepository.sumAmountsAfter(gamerId, 0);
+        CreditLedgerEntry entry = entryRepository.save(new CreditLedgerEntry(gamerId, AuditEvent.NONE, CreditLedgerEntry.Type.OPENING_BALANCE, opening));
+        snapshotRepository.insert(gamerId, credits, entry.getId(), Instant.now());
+        appended.increment();
+        return true;
+    }
+
+    private void compact(long gamerId) {
+        CreditBalanceSnapshot snapshot = snapshotRepository.findForUpdate(gamerId).orElseThrow();
+        long lastEntryId = entryRepository.findLastIdAfter(gamerId, snapshot.getLastEntryId());
+        snapshot.setBalance(snapshot.getBalance() + entryRepository.sumAmountsAfter(gamerId, snapshot.getLastEntryId()));
+        snapshot.setLastEntryId(lastEntryId);
+        snapshot.setTakenAt(Instant.now());
+        gamerRepository.updateCredits(gamerId, snapshot.getBalance());
+    }
+
+    private Reconciliation reconcile(long gamerId, boolean locked) {
+        CreditBalanceSnapshot snapshot = (locked ? snapshotRepository.findForUpdate(gamerId) : snapshotRepository.findById(gamerId)).orElse(null);
+        if (snapshot == null) {
+            return Reconciliation.NOT_OPENED;
+        }
+        long credits = gamerRepository.findById(gamerId).map(Gamer::getTotalCredits).orElse(0L);
+        long ledgerSnapshot = entryRepository.sumAmountsUpTo(gamerId, snapshot.getLastEntryId());
+        if (ledgerSnapshot == snapshot.getBalance() && credits == snapshot.getBalance()) {
+            return Reconciliation.MATCHED;
+        }
+        if (locked) {
+            logger.error("Credit ledger of Gamer with id {} does not reconcile: snapshot {} against entries {} and credits {}.",
+                    gamerId, snapshot.getBalance(), ledgerSnapshot, credits);
+        }
+        return Reconciliation.MISMATCHED;
+    }
+
+}
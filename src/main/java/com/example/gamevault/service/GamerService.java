@@ -6,7 +6,12 @@ import com.example.gamevault.security.PersonPrincipal;
 import com.example.gamevault.repository.GamerRepository;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -16,17 +21,19 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.text.DecimalFormat;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Service
 public class GamerService {
     private static final Logger logger = LogManager.getLogger(GamerService.class);
-    private static final String EMAIL_REGEX = "[a-zA-Z][\\w._-]*@[a-z]+\\.com$";
-    private static final String NAME_REGEX = "^[A-Z][a-z]{2,}(?: [A-Z][a-z]{2,})* [A-Z][a-z]+$";
-    private static final String PASSWORD_REGEX = "^(?=(?:.*[A-Z]){3,})(?=(?:.*[a-z]){3,})(?=(?:.*\\d){2,})[A-Za-z\\d@!#$%^&*()_+={}\\[\\]:;\"'<>?,./~`-]*$";
-    private static final String USERNAME_REGEX = "[a-zA-Z][a-zA-Z0-9]*$";
-    private final DecimalFormat decimalFormat = new DecimalFormat("#.##");
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("[a-zA-Z][\\w._-]*@[a-z]+\\.com$");
+    private static final Pattern NAME_PATTERN = Pattern.compile("^[A-Z][a-z]{2,}(?: [A-Z][a-z]{2,})* [A-Z][a-z]+$");
+    private static final String PASSWORD_SPECIAL_CHARACTERS = "@!#$%^&*()_+={}[]:;\"'<>?,./~`-";
 
     @Autowired
     private GamerRepository gamerRepository;
@@ -37,10 +44,48 @@ public class GamerService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private CreditLedgerService creditLedgerService;
+
+    @Value("${gamevault.registration.filter.expected-insertions:1000000}")
+    private long filterExpectedInsertions;
+
+    @Value("${gamevault.registration.filter.false-positive-probability:0.01}")
+    private double filterFalsePositiveProbability;
+
+    private BloomFilter takenUsernames;
+    private BloomFilter takenEmails;
+    private volatile boolean filtersWarmed;
+
     public GamerService(GamerRepository gamerRepository) {
         this.gamerRepository = gamerRepository;
     }
 
+    @PostConstruct
+    void createAvailabilityFilters() {
+        takenUsernames = new BloomFilter(filterExpectedInsertions, filterFalsePositiveProbability);
+        takenEmails = new BloomFilter(filterExpectedInsertions, filterFalsePositiveProbability);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmAvailabilityFilters() {
+        try (Stream<String> usernames = gamerRepository.streamAllUsernames()) {
+            usernames.filter(Objects::nonNull).forEach(username -> takenUsernames.put(normalise(username)));
+        }
+        try (Stream<String> emails = gamerRepository.streamAllEmails()) {
+            emails.filter(Objects::nonNull).forEach(email -> takenEmails.put(normalise(email)));
+        }
+        filtersWarmed = true;
+        logger.info("Warmed username and email availability filters.");
+    }
+
     public Person register(String name, String username, String email, String password)
             throws InvalidNameException, InvalidUsernameException, InvalidEmailAddressException, InvalidPasswordException, UnavailableUsernameException, UnavailableEmailAddressException {
         if (!isValidName(name)) {
@@ -70,136 +115,176 @@ public class GamerService {
 
         Gamer gamer = new Gamer(name, username, email, passwordEncoder.encode(password));
         gamerRepository.save(gamer);
-        logger.info("Successful registration of Gamer: {}", gamer.toString());
+        takenUsernames.put(normalise(username));
+        takenEmails.put(normalise(email));
+        creditLedgerService.openAccount(gamer.getId());
+        auditLog.record(AuditEventType.REGISTRATION, gamer.getId(), AuditEvent.NONE, AuditEvent.NONE, gamer.getTotalCredits(), gamer.getUsername());
         return gamer;
     }
 
+    public boolean isUsernameAvailable(String username) {
+        return username != null && isValidUsername(username) && isAvailableUsername(username);
+    }
+
+    // A filter miss proves the value is free; only possible matches, or checks made before warm-up, reach the database.
     private boolean isAvailableEmailAddress(String email) {
-        return gamerRepository.findByEmail(email).isEmpty();
+        if (filtersWarmed && !takenEmails.mightContain(normalise(email))) {
+            meterRegistry.counter("gamevault.registration.availability.checks", "field", "email", "source", "filter").increment();
+            return true;
+        }
+        meterRegistry.counter("gamevault.registration.availability.checks", "field", "email", "source", "database").increment();
+        return !gamerRepository.existsByEmail(email);
     }
 
     private boolean isAvailableUsername(String username) {
-        return gamerRepository.findByUsername(username).isEmpty();
+        if (filtersWarmed && !takenUsernames.mightContain(normalise(username))) {
+            meterRegistry.counter("gamevault.registration.availability.checks", "field", "username", "source", "filter").increment();
+            return true;
+        }
+        meterRegistry.counter("gamevault.registration.availability.checks", "field", "username", "source", "database").increment();
+        return !gamerRepository.existsByUsername(username);
+    }
+
+    // MySQL compares usernames and emails case-insensitively, so the filters are keyed on the lower-cased value.
+    private static String normalise(String value) {
+        return value.toLowerCase(Locale.ROOT);
     }
 
     private boolean isValidPassword(String password) {
-        logger.info("Checking validity of password.");
-        if (!password.matches(PASSWORD_REGEX)) {
-            logger.error("Invalid password: {}", password);
+        if (!hasValidPasswordCharacters(password)) {
+            logger.error("Invalid password.");
             return false;
         }
-        logger.info("Valid password: {}", password);
         return true;
     }
 
     private boolean isValidEmailAddress(String email) {
-        logger.info("Checking validity of email address: {}", email);
-        if (!email.matches(EMAIL_REGEX)) {
+        if (!EMAIL_PATTERN.matcher(email).matches()) {
             logger.error("Invalid email address: {}", email);
             return false;
         }
-        logger.info("Valid email address: {}", email);
         return true;
     }
 
     private boolean isValidUsername(String username) {
-        logger.info("Checking validity of username: {}", username);
-        if (username.length() < 8 || !username.matches(USERNAME_REGEX)) {
+        if (username.length() < 8 || !isAlphanumericStartingWithLetter(username)) {
             logger.error("Invalid username: {}", username);
             return false;
         }
-        logger.info("Valid username: {}", username);
         return true;
     }
 
+    // Single pass equivalent of requiring 3 uppercase letters, 3 lowercase letters and 2 digits out of letters, digits and the allowed special characters.
+    private static boolean hasValidPasswordCharacters(String password) {
+        int uppercase = 0;
+        int lowercase = 0;
+        int digits = 0;
+        for (int i = 0; i < password.length(); i++) {
+            char c = password.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                uppercase++;
+            } else if (c >= 'a' && c <= 'z') {
+                lowercase++;
+            } else if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (PASSWORD_SPECIAL_CHARACTERS.indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return uppercase >= 3 && lowercase >= 3 && digits >= 2;
+    }
+
+    private static boolean isAlphanumericStartingWithLetter(String username) {
+        if (username.isEmpty() || !isAsciiLetter(username.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < username.length(); i++) {
+            char c = username.charAt(i);
+            if (!isAsciiLetter(c) && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
     private boolean isValidName(String name) {
-        logger.info("Checking validity of name: {}", name);
-        if (!name.matches(NAME_REGEX)) {
+        if (!NAME_PATTERN.matcher(name).matches()) {
             logger.error("Invalid name: {}", name);
             return false;
         }
-        logger.info("Valid name: {}", name);
         return true;
     }
 
+    // The AuthenticationManager looks the Gamer up and verifies the password once; no separate pre-check is made.
     public PersonPrincipal login(String username, String password) throws UnsuccessfulLoginException {
         logger.info("Validating login credentials (username & password). Username: {}", username);
-        Optional<Person> userOptional = gamerRepository.findByUsername(username);
-        if (userOptional.isPresent()) {
-            Person person = userOptional.get();
-            logger.info("Username found in database. Person: {}", person.toString());
-            if (passwordEncoder.matches(password, person.getPassword())) {
-                logger.info("Raw password matches encoded password for Person: {}", person.toString());
-            } else {
-                logger.error("Raw password does not match encoded password for Person: {}", person.toString());
-            }
-        } else {
-            logger.error("Username not found in database: {}.", username);
-        }
-
         try {
             Authentication authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, password));
-            logger.info("Successful login for Gamer. Username: {}", username);
-            return (PersonPrincipal) authentication.getPrincipal();
+            PersonPrincipal personPrincipal = (PersonPrincipal) authentication.getPrincipal();
+            auditLog.record(AuditEventType.LOGIN_SUCCEEDED, personPrincipal.getPerson().getId(), AuditEvent.NONE, AuditEvent.NONE, AuditEvent.NONE, username);
+            return personPrincipal;
         } catch (AuthenticationException e) {
-            logger.error("Unsuccessful login due to invalid username and/or password.");
+            auditLog.record(AuditEventType.LOGIN_FAILED, AuditEvent.NONE, AuditEvent.NONE, AuditEvent.NONE, AuditEvent.NONE, username);
             throw new UnsuccessfulLoginException();
         }
     }
 
     public boolean canAffordTransaction(Gamer gamer, VideoGame videoGame, int quantity, String transactionType) throws InsufficientCreditsForTransactionException {
-        double videoGameCredit = videoGame.getCredits();
-        double totalCost = 0;
+        long videoGameCredit = videoGame.getCredits();
+        long totalCost = 0;
 
         if (transactionType.equals("complete purchase of reservation")) {
-            totalCost = 0.8 * videoGameCredit * (double) quantity;
+            totalCost = Credits.reservationBalance(videoGameCredit * quantity);
         } else if (transactionType.equals("purchase") || transactionType.equals("reservation")){
-            totalCost = videoGameCredit * (double) quantity;
+            totalCost = videoGameCredit * quantity;
         }
 
-        logger.info("Location: canAffordPurchase method | Gamer: {}, Video Game Credit: {}, Quantity to Buy: {}, Total Cost: {}", gamer, videoGameCredit, quantity, totalCost);
-        if (gamer.getTotalCredits() >= totalCost) {
-            logger.info("Gamer has sufficient credit to pay total cost.");
+        if (balanceOf(gamer) >= totalCost) {
             return true;
         }
-        logger.error("Gamer has insufficient credit to pay total cost. InsufficientCreditsForTransactionException thrown");
+        logger.error("Gamer with id {} has insufficient credits for total cost {} of {}.", gamer.getId(), totalCost, transactionType);
         throw new InsufficientCreditsForTransactionException();
     }
 
-    public void deductCredits(Gamer gamer, VideoGame videoGame, int quantity, String transactionType) {
-        logger.info("At deductCredits method. Gamer: {}, videoGame: {}, quantity: {}, transactionType: {}", gamer, videoGame, quantity, transactionType);
-        double videoGameCost = videoGame.getCredits();
-        double totalGamerCredits = gamer.getTotalCredits();
-        double totalCost;
+    // The transaction id is that of the purchase or reservation paid for, or AuditEvent.NONE, for the credit ledger.
+    @Transactional
+    public void debitCredits(Gamer gamer, long credits, long transactionId) throws InsufficientCreditsForTransactionException {
+        debit(gamer, credits, List.of(new CreditLedgerService.Debit(transactionId, credits)));
+    }
 
-        if (transactionType.equals("purchase")) {
-           totalCost = videoGameCost * (double) quantity;
-        } else {
-            totalCost = 0.8 * videoGameCost * (double) quantity;
+    // Debits the credits once for all the purchases, with a credit ledger entry for each of them.
+    @Transactional
+    public void debitCredits(Gamer gamer, List<Purchase> purchases) throws InsufficientCreditsForTransactionException {
+        long credits = 0;
+        List<CreditLedgerService.Debit> debits = new ArrayList<>(purchases.size());
+        for (Purchase purchase : purchases) {
+            credits = Math.addExact(credits, purchase.getCost());
+            debits.add(new CreditLedgerService.Debit(purchase.getId(), purchase.getCost()));
         }
-
-        logger.info("Reducing Gamer's credit by totalCost ({}). Before - Gamer: {}", totalCost, gamer.toString());
-        gamer.setTotalCredits(Double.parseDouble(decimalFormat.format(totalGamerCredits - totalCost)));
-        logger.info("Reducing Gamer's credit by total cost. After - Gamer: {}", gamer.toString());
-        saveGamer(gamer);
+        debit(gamer, credits, debits);
     }
 
-    public void deductCreditsForReservation(Gamer gamer, VideoGame videoGame, int quantity, String transactionType) {
-        logger.info("At deductCredits method for reservation. Gamer: {}, videoGame: {}, quantity: {}, transactionType: {}", gamer, videoGame, quantity, transactionType);
-        logger.info("Reducing Gamer's credit by 20% of total cost. Before - Gamer: {}", gamer.toString());
-        double gameCreditsCost = videoGame.getCredits();
-        double totalCredits = gamer.getTotalCredits();
-        double totalPurchaseCost = 0.2 * gameCreditsCost * (double) quantity;
-        gamer.setTotalCredits(Double.parseDouble(decimalFormat.format(totalCredits - totalPurchaseCost)));
-        logger.info("Reduced Gamer's credit by total cost. After - Gamer: {}", gamer.toString());
-        saveGamer(gamer);
+    // With the credit ledger enabled, the debit only appends to it, and the gamer's row is left to compaction.
+    private void debit(Gamer gamer, long credits, List<CreditLedgerService.Debit> debits) throws InsufficientCreditsForTransactionException {
+        boolean debited = creditLedgerService.isEnabled() ? creditLedgerService.debit(gamer.getId(), debits)
+                : gamerRepository.deductCredits(gamer.getId(), credits) > 0;
+        if (!debited) {
+            logger.error("Gamer with id {} has insufficient credits to be debited {} credit cents.", gamer.getId(), credits);
+            throw new InsufficientCreditsForTransactionException();
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            gamer.setTotalCredits(gamer.getTotalCredits() - credits);
+            auditLog.record(AuditEventType.CREDITS_DEBITED, gamer.getId(), AuditEvent.NONE, AuditEvent.NONE, credits);
+        });
     }
 
-    @Transactional
-    public void addPurchaseTransactionForGamer(Gamer gamer, Purchase purchase) {
-        logger.info("Adding Purchase({}) to Gamer's({}) purchase history.", purchase.toString(), gamer.toString());
-        gamer.addPurchaseTransaction(purchase);
-        saveGamer(gamer);
+    private long balanceOf(Gamer gamer) {
+        return creditLedgerService.isEnabled() ? creditLedgerService.getBalance(gamer.getId()).orElse(gamer.getTotalCredits())
+                : gamer.getTotalCredits();
     }
 
     public Gamer getCurrentGamer() {
@@ -207,28 +292,4 @@ public class GamerService {
         return (Gamer) person.getPerson();
     }
 
-    public void addReservationTransactionForGamer(Gamer gamer, Reservation reservation) {
-        logger.info("Adding Reservation({}) to Gamer's({}) purchase history.", reservation.toString(), gamer.toString());
-        gamer.addReservationTransaction(reservation);
-        saveGamer(gamer);
-    }
-
-    public void addCancelTransaction(Gamer gamer, Cancellation cancellation) {
-        logger.info("Adding Cancellation ({}) for Gamer ({})", cancellation.toString(), gamer.toString());
-        gamer.addCancelTransaction(cancellation);
-        logger.info("Added Cancellation ({}) for Gamer ({})", cancellation.toString(), gamer.toString());
-    }
-
-    public void removeReservationTransaction(Gamer gamer, Reservation reservation) {
-        logger.info("Removing Reservation ({}) for Gamer ({}).", reservation, gamer);
-        gamer.removeReservationTransaction(reservation);
-        logger.info("Removing aforementioned Reservation for Gamer ({}).", gamer);
-    }
-
-    private void saveGamer(Gamer gamer) {
-        logger.info("Saving Gamer - Before: {}", gamer.toString());
-        gamerRepository.save(gamer);
-        logger.info("Saved Gamer - After: {}", gamer.toString());
-    }
-
 }
@@ -0,0 +1,269 @@
+package com.example.gamevault.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Runs each buy, reserve or cancel request carrying an idempotency key once per gamer, replaying its outcome to any
+ * repeat of the key, such as a double-clicked button or a retry after a dropped response, instead of charging or
+ * cancelling twice. A repeat arriving while the first request is still running waits for its outcome. Each key is held
+ * with a fingerprint of the request's parameters, and a key reused for a request with other parameters is refused
+ * rather than replaying an outcome that belongs to a different order.
+ * <p>
+ * Keys are held in memory for a fixed time to live and evicted oldest first, which is also expiry order, with a cap on
+ * the number held. With gamevault.idempotency.table.enabled, keys are also claimed in the idempotency_keys table
+ * before the request runs, so repeats reaching another instance, or arriving after a restart, are caught as well.
+ */
+@Service
+public class IdempotencyService {
+    private static final Logger logger = LogManager.getLogger(IdempotencyService.class);
+    private static final Pattern KEY_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final RequestOutcome NOT_COMPLETED = RequestOutcome.retryableError("Your earlier request has not completed yet. Please check your transactions before trying again.");
+    private static final RequestOutcome MISMATCHED = RequestOutcome.error("This request reuses the key of an earlier, different request. Please reload the page and try again.");
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedKeys = new AtomicInteger();
+    private final JdbcTemplate jdbcTemplate;
+    private final long ttlNanos;
+    private final int maxKeys;
+    private final long waitTimeoutMs;
+    private final boolean tableEnabled;
+    private final Counter hits;
+    private final Counter waits;
+    private final Counter misses;
+    private final Counter mismatches;
+
+    private record Entry(String id, String fingerprint, CompletableFuture<RequestOutcome> outcome, long createdAtNanos) {
+    }
+
+    @Autowired
+    public IdempotencyService(JdbcTemplate jdbcTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${gamevault.idempotency.ttl-ms:86400000}") long ttlMs,
+                              @Value("${gamevault.idempotency.max-keys:100000}") int maxKeys,
+                              @Value("${gamevault.idempotency.wait-timeout-ms:10000}") long waitTimeoutMs,
+                              @Value("${gamevault.idempotency.table.enabled:false}") boolean tableEnabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.maxKeys = maxKeys;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.tableEnabled = tableEnabled;
+        this.hits = meterRegistry.counter("gamevault.idempotency.requests", "result", "hit");
+        this.waits = meterRegistry.counter("gamevault.idempotency.requests", "result", "in_progress");
+        this.misses = meterRegistry.counter("gamevault.idempotency.requests", "result", "miss");
+        this.mismatches = meterRegistry.counter("gamevault.idempotency.requests", "result", "mismatch");
+        meterRegistry.gauge("gamevault.idempotency.keys", entries, ConcurrentHashMap::size);
+        meterRegistry.gauge("gamevault.idempotency.hit.ratio", this, IdempotencyService::getHitRatio);
+    }
+
+    @PostConstruct
+    public void createTable() {
+        if (tableEnabled) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS idempotency_keys (" +
+                    "id VARCHAR(100) NOT NULL, " +
+                    "outcome_attribute VARCHAR(16) NULL, " +
+                    "outcome_message VARCHAR(255) NULL, " +
+                    "request_fingerprint VARCHAR(255) NULL, " +
+                    "created_at DATETIME(6) NOT NULL, " +
+                    "PRIMARY KEY (id), " +
+                    "INDEX idx_idempotency_keys_created_at (created_at))");
+            // Tables created before fingerprints were stored.
+            if (!Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) IdempotencyService::hasFingerprintColumn))) {
+                jdbcTemplate.execute("ALTER TABLE idempotency_keys ADD COLUMN request_fingerprint VARCHAR(255) NULL");
+            }
+        }
+    }
+
+    // Requests without a key, or with a malformed one, simply run. The fingerprint identifies the request's parameters.
+    public RequestOutcome execute(long gamerId, String operation, String key, String fingerprint, Supplier<RequestOutcome> request) {
+        if (key == null || key.isEmpty()) {
+            return request.get();
+        }
+        if (!KEY_PATTERN.matcher(key).matches()) {
+            logger.error("Ignoring malformed idempotency key on {} request of Gamer with id {}.", operation, gamerId);
+            return request.get();
+        }
+
+        String id = operation + ":" + gamerId + ":" + key;
+        evictExpired();
+        Entry entry = new Entry(id, fingerprint, new CompletableFuture<>(), System.nanoTime());
+        Entry existing;
+        while ((existing = entries.putIfAbsent(id, entry)) != null) {
+            if (!isExpired(existing, entry.createdAtNanos())) {
+                if (!Objects.equals(existing.fingerprint(), fingerprint)) {
+                    return mismatch(operation, gamerId);
+                }
+                return replay(existing);
+            }
+            entries.remove(id, existing);
+        }
+        insertionOrder.add(entry);
+        queuedKeys.incrementAndGet();
+        evictOverflow();
+
+        RequestOutcome outcome = null;
+        boolean ran = false;
+        try {
+            if (tableEnabled) {
+                outcome = findClaimedOutcome(id, fingerprint);
+            }
+            if (outcome == MISMATCHED) {
+                mismatch(operation, gamerId);
+            } else if (outcome != null) {
+                logger.info("Replaying {} request of Gamer with id {} claimed before.", operation, gamerId);
+                hits.increment();
+            } else {
+                misses.increment();
+                ran = true;
+                outcome = request.get();
+            }
+        } finally {
+            // Released before the outcome is saved, so requests waiting on it are not held up or failed by the table. A
+            // mismatched key stays with the request that claimed it.
+            if (outcome == null || outcome.retryable() || outcome == MISMATCHED) {
+                entries.remove(id, entry);
+            }
+            entry.outcome().complete((outcome != null) ? outcome : NOT_COMPLETED);
+            if (ran && tableEnabled) {
+                try {
+                    saveOutcome(id, outcome);
+                } catch (RuntimeException e) {
+                    logger.error("Unable to save outcome of {} request of Gamer with id {}. Other instances see it as not completed until the key expires.",
+                            operation, gamerId, e);
+                }
+            }
+        }
+        return outcome;
+    }
+
+    // Drops expired keys from memory and from the table, for the keys no request has pushed out since.
+    @Scheduled(fixedDelayString = "${gamevault.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        evictExpired();
+        if (tableEnabled) {
+            Instant cutoff = Instant.now().minusNanos(ttlNanos);
+            int purged = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE created_at < ?", Timestamp.from(cutoff));
+            logger.info("Purged {} expired idempotency keys.", purged);
+        }
+    }
+
+    public double getHitRatio() {
+        double replayed = hits.count() + waits.count();
+        double total = replayed + misses.count();
+        return (total == 0) ? 0 : replayed / total;
+    }
+
+    private RequestOutcome mismatch(String operation, long gamerId) {
+        mismatches.increment();
+        logger.error("Refusing {} request of Gamer with id {} reusing the idempotency key of a different request.", operation, gamerId);
+        return MISMATCHED;
+    }
+
+    private RequestOutcome replay(Entry existing) {
+        if (existing.outcome().isDone()) {
+            hits.increment();
+        } else {
+            waits.increment();
+        }
+        try {
+            return existing.outcome().get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.error("Request with idempotency key {} still running after {} ms.", existing.id(), waitTimeoutMs);
+            return NOT_COMPLETED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return NOT_COMPLETED;
+        } catch (ExecutionException e) {
+            return NOT_COMPLETED;
+        }
+    }
+
+    /*
+     * Null when this call claimed the key, otherwise the outcome stored against it, or MISMATCHED when it was claimed by
+     * a different request. Keys claimed before fingerprints were stored have none, and are taken to match.
+     */
+    private RequestOutcome findClaimedOutcome(String id, String fingerprint) {
+        try {
+            jdbcTemplate.update("INSERT INTO idempotency_keys (id, request_fingerprint, created_at) VALUES (?, ?, ?)", id, fingerprint, Timestamp.from(Instant.now()));
+            return null;
+        } catch (DuplicateKeyException e) {
+            List<RequestOutcome> stored = jdbcTemplate.query("SELECT outcome_attribute, outcome_message, request_fingerprint FROM idempotency_keys WHERE id = ?",
+                    (resultSet, rowNumber) -> {
+                        String storedFingerprint = resultSet.getString("request_fingerprint");
+                        if (storedFingerprint != null && !storedFingerprint.equals(fingerprint)) {
+                            return MISMATCHED;
+                        }
+                        return (resultSet.getString("outcome_attribute") == null) ? NOT_COMPLETED
+                                : new RequestOutcome(resultSet.getString("outcome_attribute"), resultSet.getString("outcome_message"), false);
+                    },
+                    id);
+            return stored.isEmpty() ? NOT_COMPLETED : stored.get(0);
+        }
+    }
+
+    // Releases the key when the request failed, so it can be tried again.
+    private void saveOutcome(String id, RequestOutcome outcome) {
+        if (outcome == null || outcome.retryable()) {
+            jdbcTemplate.update("DELETE FROM idempotency_keys WHERE id = ?", id);
+        } else {
+            jdbcTemplate.update("UPDATE idempotency_keys SET outcome_attribute = ?, outcome_message = ? WHERE id = ?", outcome.attribute(), outcome.message(), id);
+        }
+    }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        Entry oldest;
+        while ((oldest = insertionOrder.peek()) != null && isExpired(oldest, now)) {
+            if (insertionOrder.remove(oldest)) {
+                queuedKeys.decrementAndGet();
+                entries.remove(oldest.id(), oldest);
+            }
+        }
+    }
+
+    // Counts keys already dropped from the map but still queued, so the queue is bounded too.
+    private void evictOverflow() {
+        while (queuedKeys.get() > maxKeys) {
+            Entry oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            queuedKeys.decrementAndGet();
+            entries.remove(oldest.id(), oldest);
+        }
+    }
+
+    private static boolean hasFingerprintColumn(Connection connection) throws SQLException {
+        try (ResultSet columns = connection.getMetaData().getColumns(connection.getCatalog(), null, "idempotency_keys", "request_fingerprint")) {
+            return columns.next();
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.createdAtNanos() >= ttlNanos;
+    }
+
+}
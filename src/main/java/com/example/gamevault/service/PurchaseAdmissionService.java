@@ -0,0 +1,182 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.exception.InsufficientCreditsForTransactionException;
+import com.example.gamevault.exception.InsufficientVideoGameQuantityException;
+import com.example.gamevault.exception.PurchaseQueueFullException;
+import com.example.gamevault.model.CatalogItem;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admits buys and reservations of each video game through its own queue, so a flash sale of one title neither takes
+ * every database connection nor slows purchases of the rest of the catalogue.
+ * <p>
+ * A title lets a fixed number of purchases run at once and queues the others fairly, up to a fixed depth. Past that,
+ * or after waiting too long, purchases are turned away with {@link PurchaseQueueFullException} for the gamer to retry.
+ * A title found with no stock left is flagged sold out, and later purchases of it are rejected at once without
+ * touching the database, until {@link VideoGameService#increaseVideoGameQuantity} restocks it or a catalogue reload
+ * shows stock again. Queues and flags only cover purchases made through this instance, and a title's queue only exists
+ * while purchases of it hold or wait for a permit, so ids that are not or no longer in the catalogue leave nothing
+ * behind.
+ */
+@Service
+public class PurchaseAdmissionService {
+    private static final Logger logger = LogManager.getLogger(PurchaseAdmissionService.class);
+
+    private final ConcurrentHashMap<Long, TitleQueue> queues = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, String> soldOutTitles = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final CatalogCacheService catalogCacheService;
+    private final int concurrencyPerTitle;
+    private final int maxQueueDepth;
+    private final long queueTimeoutMs;
+    private final Counter admitted;
+    private final Counter soldOutRejections;
+    private final Counter queueFullRejections;
+    private final Timer queueWait;
+
+    @FunctionalInterface
+    public interface AdmittedPurchase<T> {
+        T run() throws InsufficientVideoGameQuantityException, InsufficientCreditsForTransactionException;
+    }
+
+    // Users counts the purchases holding or waiting for a permit, and is only changed while the queue's entry is locked.
+    private record TitleQueue(Semaphore permits, AtomicInteger waiting, AtomicInteger users) {
+    }
+
+    @Autowired
+    public PurchaseAdmissionService(CatalogCacheService catalogCacheService,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${gamevault.admission.concurrency-per-title:8}") int concurrencyPerTitle,
+                                    @Value("${gamevault.admission.max-queue-depth:64}") int maxQueueDepth,
+                                    @Value("${gamevault.admission.queue-timeout-ms:2000}") long queueTimeoutMs) {
+        this.catalogCacheService = catalogCacheService;
+        this.concurrencyPerTitle = concurrencyPerTitle;
+        this.maxQueueDepth = maxQueueDepth;
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.admitted = meterRegistry.counter("gamevault.admission.requests", "result", "admitted");
+        this.soldOutRejections = meterRegistry.counter("gamevault.admission.requests", "result", "sold_out");
+        this.queueFullRejections = meterRegistry.counter("gamevault.admission.requests", "result", "queue_full");
+        this.queueWait = meterRegistry.timer("gamevault.admission.queue.wait");
+        meterRegistry.gauge("gamevault.admission.waiting", waiting);
+        meterRegistry.gauge("gamevault.admission.sold.out", soldOutTitles, ConcurrentHashMap::size);
+        meterRegistry.gauge("gamevault.admission.queues", queues, ConcurrentHashMap::size);
+    }
+
+    public boolean isSoldOut(long videoGameId) {
+        if (soldOutTitles.containsKey(videoGameId)) {
+            soldOutRejections.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public <T> T admit(long videoGameId, AdmittedPurchase<T> purchase) throws InsufficientVideoGameQuantityException, InsufficientCreditsForTransactionException, PurchaseQueueFullException {
+        if (isSoldOut(videoGameId)) {
+            throw new InsufficientVideoGameQuantityException();
+        }
+        TitleQueue queue = join(videoGameId);
+        try {
+            acquire(videoGameId, queue);
+        } catch (PurchaseQueueFullException e) {
+            leave(videoGameId);
+            throw e;
+        }
+        try {
+            // Purchases queued behind the one that sold the title out are turned away as soon as they are admitted.
+            if (isSoldOut(videoGameId)) {
+                throw new InsufficientVideoGameQuantityException();
+            }
+            admitted.increment();
+            return purchase.run();
+        } catch (InsufficientVideoGameQuantityException e) {
+            markSoldOutIfEmpty(videoGameId);
+            throw e;
+        } finally {
+            queue.permits().release();
+            leave(videoGameId);
+        }
+    }
+
+    public void clearSoldOut(String title) {
+        if (soldOutTitles.values().removeIf(title::equals)) {
+            logger.info("VideoGame with title {} restocked and no longer sold out.", title);
+        }
+    }
+
+    // Also picks up stock added outside VideoGameService, and drops titles no longer in the catalogue.
+    @EventListener
+    public void onCatalogReloaded(CatalogReloadedEvent event) {
+        soldOutTitles.keySet().removeIf(videoGameId -> event.snapshot().findById(videoGameId).map(item -> item.getQuantity() > 0).orElse(true));
+    }
+
+    private TitleQueue join(long videoGameId) {
+        return queues.compute(videoGameId, (id, queue) -> {
+            TitleQueue joined = queue != null ? queue : new TitleQueue(new Semaphore(concurrencyPerTitle, true), new AtomicInteger(), new AtomicInteger());
+            joined.users().incrementAndGet();
+            return joined;
+        });
+    }
+
+    // The last purchase to leave removes the title's queue.
+    private void leave(long videoGameId) {
+        queues.computeIfPresent(videoGameId, (id, queue) -> queue.users().decrementAndGet() == 0 ? null : queue);
+    }
+
+    private void acquire(long videoGameId, TitleQueue queue) throws PurchaseQueueFullException {
+        if (queue.permits().tryAcquire()) {
+            return;
+        }
+        if (queue.waiting().incrementAndGet() > maxQueueDepth) {
+            queue.waiting().decrementAndGet();
+            queueFullRejections.increment();
+            logger.error("Purchase queue of VideoGame with id {} is full.", videoGameId);
+            throw new PurchaseQueueFullException();
+        }
+        waiting.incrementAndGet();
+        long startNanos = System.nanoTime();
+        boolean acquired = false;
+        try {
+            acquired = queue.permits().tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            queue.waiting().decrementAndGet();
+            waiting.decrementAndGet();
+            queueWait.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            queueFullRejections.increment();
+            logger.error("Purchase of VideoGame with id {} not admitted within {} ms.", videoGameId, queueTimeoutMs);
+            throw new PurchaseQueueFullException();
+        }
+    }
+
+    // A purchase can also fail for asking more than is left, so the flag is only set once the catalogue shows none left.
+    private void markSoldOutIfEmpty(long videoGameId) {
+        CatalogItem item = catalogCacheService.getSnapshot().findById(videoGameId).orElse(null);
+        if (item == null || item.getQuantity() > 0) {
+            return;
+        }
+        soldOutTitles.put(videoGameId, item.getTitle());
+        // A restock committed since the snapshot was read has already cleared the flag, so it is read again.
+        if (catalogCacheService.getSnapshot().findById(videoGameId).map(CatalogItem::getQuantity).orElse(0) > 0) {
+            soldOutTitles.remove(videoGameId);
+            return;
+        }
+        logger.info("VideoGame with id {} sold out. Later purchases are rejected without querying the database.", videoGameId);
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.exception.InsufficientCreditsForTransactionException;
+import com.example.gamevault.exception.InsufficientVideoGameQuantityException;
+import com.example.gamevault.exception.ReservationTransactionNotFoundException;
+import com.example.gamevault.model.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Runs each buy, reservation, reservation completion and cancellation as a single database transaction.
+ * <p>
+ * Stock and credits are changed with conditional updates, so a failure at any step throws and rolls back every
+ * write made before it. The credits of the logged-in {@link Gamer} held by the security context are only updated
+ * after the transaction commits, so a rolled back order never leaves a stale balance in memory.
+ */
+@Service
+@Transactional(rollbackFor = Throwable.class)
+public class PurchaseOrchestrator {
+    private static final Logger logger = LogManager.getLogger(PurchaseOrchestrator.class);
+
+    @Autowired
+    private GamerService gamerService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private VideoGameService videoGameService;
+
+    public Purchase buy(Gamer gamer, long videoGameId, int quantity) throws InsufficientVideoGameQuantityException, InsufficientCreditsForTransactionException {
+        VideoGame videoGame = videoGameService.getVideoGame(videoGameId);
+        logger.info("Purchase attempt. Gamer id: {}, VideoGame id: {}, Quantity: {}", gamer.getId(), videoGameId, quantity);
+        videoGameService.hasSufficientQuantityForTransaction(videoGame, quantity);
+        gamerService.canAffordTransaction(gamer, videoGame, quantity, "purchase");
+
+        videoGameService.decreaseVideoGameQuantity(videoGameId, quantity);
+        Purchase purchase = transactionService.createPurchaseTransaction(gamer, videoGame, quantity);
+        gamerService.debitCredits(gamer, purchase.getCost(), purchase.getId());
+        return purchase;
+    }
+
+    public Reservation reserve(Gamer gamer, long videoGameId, int quantity) throws InsufficientVideoGameQuantityException, InsufficientCreditsForTransactionException {
+        VideoGame videoGame = videoGameService.getVideoGame(videoGameId);
+        logger.info("Reservation attempt. Gamer id: {}, VideoGame id: {}, Quantity: {}", gamer.getId(), videoGameId, quantity);
+        videoGameService.hasSufficientQuantityForTransaction(videoGame, quantity);
+        gamerService.canAffordTransaction(gamer, videoGame, quantity, "reservation");
+
+        videoGameService.decreaseVideoGameQuantity(videoGameId, quantity);
+        Reservation reservation = transactionService.createReservationTransaction(gamer, videoGame, quantity);
+        gamerService.debitCredits(gamer, reservation.getCreditsPaid(), reservation.getId());
+        return reservation;
+    }
+
+    /*
+     * Buys every line of a cart in one transaction: all of it commits or none of it does. Stock rows are decremented in
+     * ascending video game id order and always before the gamer's row is debited, the same order a single buy takes
+     * them in, so overlapping carts wait for one another instead of deadlocking. The purchases are inserted as one
+     * batch, and credits are debited once for the whole order, with a credit ledger entry for each purchase.
+     */
+    public List<Purchase> checkout(Gamer gamer, Map<Long, Integer> quantities) throws InsufficientVideoGameQuantityException, InsufficientCreditsForTransactionException {
+        if (quantities.isEmpty()) {
+            throw new IllegalArgumentException("Cannot check out an empty cart.");
+        }
+        SortedMap<Long, Integer> lines = new TreeMap<>(quantities);
+        logger.info("Checkout attempt. Gamer id: {}, Line items: {}", gamer.getId(), lines);
+        for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+            videoGameService.decreaseVideoGameQuantity(line.getKey(), line.getValue());
+        }
+
+        Map<Long, VideoGame> videoGames = videoGameService.getVideoGames(lines.keySet());
+        List<Purchase> purchases = transactionService.createPurchaseTransactions(gamer, videoGames, lines);
+        gamerService.debitCredits(gamer, purchases);
+        return purchases;
+    }
+
+    public Purchase completeReservation(Gamer gamer, long reservationId) throws ReservationTransactionNotFoundException, InsufficientCreditsForTransactionException {
+        Reservation reservation = getReservationOfGamer(gamer, reservationId);
+        logger.info("Completing purchase of Reservation with id {} for Gamer with id {}.", reservationId, gamer.getId());
+
+        transactionService.deleteReservationTransaction(reservation);
+        gamerService.debitCredits(gamer, reservation.getCreditsToPay(), reservation.getId());
+        return transactionService.createPurchaseTransaction(gamer, reservation);
+    }
+
+    public Cancellation cancelReservation(Gamer gamer, long reservationId) throws ReservationTransactionNotFoundException {
+        Reservation reservation = getReservationOfGamer(gamer, reservationId);
+        logger.info("Cancelling Reservation with id {} for Gamer with id {}.", reservationId, gamer.getId());
+
+        transactionService.deleteReservationTransaction(reservation);
+        Cancellation cancellation = transactionService.createCancelTransaction(gamer, reservation);
+        videoGameService.increaseVideoGameQuantity(reservation);
+        return cancellation;
+    }
+
+    private Reservation getReservationOfGamer(Gamer gamer, long reservationId) throws ReservationTransactionNotFoundException {
+        Reservation reservation = transactionService.getReservationTransaction(reservationId);
+        if (reservation.getGamer() == null || reservation.getGamer().getId() != gamer.getId()) {
+            logger.error("Reservation with id {} does not belong to Gamer with id {}.", reservationId, gamer.getId());
+            throw new ReservationTransactionNotFoundException();
+        }
+        return reservation;
+    }
+
+}
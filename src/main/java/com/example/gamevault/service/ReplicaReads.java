@@ -0,0 +1,45 @@
+package com.example.gamevault.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Lets the current read-only transaction read from a read replica. Only transactions that ask for it do, so reads
+ * made through the repositories' own read-only transactions, such as finding a gamer who has just registered, stay on
+ * the primary. A replica is only used once it has caught up with the primary's writes up to the time given, so a
+ * gamer reading their own history right after a purchase is not shown a page without it. Has no effect unless read
+ * replicas are configured.
+ */
+public final class ReplicaReads {
+    private static final ThreadLocal<Long> requiredSince = new ThreadLocal<>();
+
+    private ReplicaReads() {
+    }
+
+    public static boolean isAllowed() {
+        return requiredSince.get() != null;
+    }
+
+    // Epoch milliseconds, or 0 when any replica within its allowed lag will do.
+    public static long getRequiredSince() {
+        Long since = requiredSince.get();
+        return (since == null) ? 0 : since;
+    }
+
+    // Applies until the surrounding transaction completes, and only inside one.
+    public static void allow(long changedSince) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        if (requiredSince.get() == null) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    requiredSince.remove();
+                }
+            });
+        }
+        requiredSince.set(Math.max(getRequiredSince(), changedSince));
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.example.gamevault.service;
+
+/**
+ * The message a buy, reserve or cancel request showed the gamer, under the "success" or "error" attribute. Retryable
+ * outcomes, from unexpected errors, are not kept against the request's idempotency key, so trying again runs the
+ * request again.
+ */
+public record RequestOutcome(String attribute, String message, boolean retryable) {
+
+    public static RequestOutcome success(String message) {
+        return new RequestOutcome("success", message, false);
+    }
+
+    public static RequestOutcome error(String message) {
+        return new RequestOutcome("error", message, false);
+    }
+
+    public static RequestOutcome retryableError(String message) {
+        return new RequestOutcome("error", message, true);
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.exception.ReservationTransactionNotFoundException;
+import com.example.gamevault.model.Cancellation;
+import com.example.gamevault.model.Reservation;
+import com.example.gamevault.repository.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Turns reservations past their {@link Reservation#HOLD_DURATION} into cancellations with reason
+ * {@link Cancellation#EXPIRED} and returns their quantity to stock.
+ * <p>
+ * Expired ids are read from the indexed expires_at column in bounded batches and spread over a small pool of workers.
+ * Each reservation expires in its own short transaction that claims it by deleting its row, so a gamer completing or
+ * cancelling the same reservation at the same time either wins outright or finds it gone, and live purchases only
+ * ever wait on one stock row update.
+ */
+@Service
+public class ReservationExpiryService {
+    private static final Logger logger = LogManager.getLogger(ReservationExpiryService.class);
+
+    private final ReservationRepository reservationRepository;
+    private final TransactionService transactionService;
+    private final VideoGameService videoGameService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers;
+    private final int workerCount;
+    private final int batchSize;
+    private final Counter expired;
+
+    @Autowired
+    public ReservationExpiryService(ReservationRepository reservationRepository,
+                                    TransactionService transactionService,
+                                    VideoGameService videoGameService,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${gamevault.reservations.expiry.workers:4}") int workerCount,
+                                    @Value("${gamevault.reservations.expiry.batch-size:500}") int batchSize) {
+        this.reservationRepository = reservationRepository;
+        this.transactionService = transactionService;
+        this.videoGameService = videoGameService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.workerCount = workerCount;
+        this.batchSize = batchSize;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "reservation-expiry-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.expired = meterRegistry.counter("gamevault.reservations.expired");
+    }
+
+    @Scheduled(fixedDelayString = "${gamevault.reservations.expiry.interval-ms:60000}")
+    public void expireReservations() {
+        expireReservations(Instant.now());
+    }
+
+    // Returns the number of reservations expired. Stops once a batch comes back short or makes no progress.
+    public int expireReservations(Instant now) {
+        int total = 0;
+        while (true) {
+            List<Long> expiredIds = reservationRepository.findExpiredIds(now, Limit.of(batchSize));
+            if (expiredIds.isEmpty()) {
+                break;
+            }
+            int expiredInBatch = expireInParallel(expiredIds);
+            total += expiredInBatch;
+            if (expiredIds.size() < batchSize || expiredInBatch == 0) {
+                break;
+            }
+        }
+        if (total > 0) {
+            logger.info("Expired {} reservations due before {}.", total, now);
+        }
+        return total;
+    }
+
+    private int expireInParallel(List<Long> reservationIds) {
+        List<List<Long>> partitions = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < reservationIds.size(); i++) {
+            partitions.get(i % workerCount).add(reservationIds.get(i));
+        }
+
+        List<Future<Integer>> results = new ArrayList<>(workerCount);
+        for (List<Long> partition : partitions) {
+            if (!partition.isEmpty()) {
+                results.add(workers.submit(() -> expireAll(partition)));
+            }
+        }
+        int expiredCount = 0;
+        for (Future<Integer> result : results) {
+            try {
+                expiredCount += result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return expiredCount;
+            } catch (ExecutionException e) {
+                logger.error("Reservation expiry worker failed.", e.getCause());
+            }
+        }
+        return expiredCount;
+    }
+
+    private int expireAll(List<Long> reservationIds) {
+        int expiredCount = 0;
+        for (long reservationId : reservationIds) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> expire(reservationId)))) {
+                    expiredCount++;
+                    expired.increment();
+                }
+            } catch (RuntimeException e) {
+                logger.error("Unable to expire Reservation with id {}.", reservationId, e);
+            }
+        }
+        return expiredCount;
+    }
+
+    private boolean expire(long reservationId) {
+        Optional<Reservation> reservationOptional = reservationRepository.findById(reservationId);
+        if (reservationOptional.isEmpty()) {
+            return false;
+        }
+        Reservation reservation = reservationOptional.get();
+        try {
+            transactionService.deleteReservationTransaction(reservation);
+        } catch (ReservationTransactionNotFoundException e) {
+            return false;
+        }
+        transactionService.createCancelTransaction(reservation.getGamer(), reservation, Cancellation.EXPIRED);
+        videoGameService.increaseVideoGameQuantity(reservation);
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+}
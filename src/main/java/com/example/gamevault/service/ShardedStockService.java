@@ -0,0 +1,177 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.VideoGameStockShard;
+import com.example.gamevault.repository.VideoGameRepository;
+import com.example.gamevault.repository.VideoGameStockShardRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Optional sharded stock for hot titles, enabled with gamevault.stock.sharding.enabled. A sharded video game keeps its
+ * stock in several video_game_stock_shards rows instead of its video_games row, so concurrent purchases of the same
+ * title mostly update different rows instead of queueing on one. Its video_games row keeps only stock returned since,
+ * by cancellations and expired reservations, and its quantity is the sum of the two.
+ * <p>
+ * A decrement first claims one row that holds the whole quantity: a shard chosen at random, then the other shards,
+ * then the video_games row, skipping rows other purchases hold rather than waiting for them. Only when none can be
+ * claimed does it wait to lock every shard in shard order, then the video_games row, and take the quantity from several
+ * of them, so a purchase fails only when the total left is short and sold out stays exact. Transactions only ever wait
+ * for these rows in that one order, holding none of them before, so purchases of the same title cannot deadlock. On
+ * MySQL (8.0 or later, for SKIP LOCKED) this holds under READ COMMITTED isolation; REPEATABLE READ keeps locks on
+ * rows the claim finds short.
+ */
+@Service
+public class ShardedStockService {
+    private static final Logger logger = LogManager.getLogger(ShardedStockService.class);
+
+    private final ConcurrentHashMap<Long, Integer> shardCounts = new ConcurrentHashMap<>();
+    private final VideoGameRepository videoGameRepository;
+    private final VideoGameStockShardRepository shardRepository;
+    private final boolean enabled;
+    private final Counter singleRowDecrements;
+    private final Counter spanningDecrements;
+    private final Counter rejectedDecrements;
+
+    @Autowired
+    public ShardedStockService(VideoGameRepository videoGameRepository,
+                               VideoGameStockShardRepository shardRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${gamevault.stock.sharding.enabled:false}") boolean enabled) {
+        this.videoGameRepository = videoGameRepository;
+        this.shardRepository = shardRepository;
+        this.enabled = enabled;
+        this.singleRowDecrements = meterRegistry.counter("gamevault.stock.sharded.decrements", "path", "single_row");
+        this.spanningDecrements = meterRegistry.counter("gamevault.stock.sharded.decrements", "path", "spanning");
+        this.rejectedDecrements = meterRegistry.counter("gamevault.stock.sharded.decrements", "path", "insufficient");
+    }
+
+    @PostConstruct
+    public void loadShardCounts() {
+        if (enabled) {
+            getShardedQuantities();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isSharded(long videoGameId) {
+        return enabled && shardCounts.containsKey(videoGameId);
+    }
+
+    // Stock held in shards, by video game id, which the catalogue adds to each video_games row.
+    public Map<Long, Integer> getShardedQuantities() {
+        Map<Long, Integer> quantities = new HashMap<>();
+        Map<Long, Integer> counts = new HashMap<>();
+        for (VideoGameStockShard shard : shardRepository.findAll()) {
+            quantities.merge(shard.getVideoGameId(), shard.getQuantity(), Integer::sum);
+            counts.merge(shard.getVideoGameId(), 1, Integer::sum);
+        }
+        shardCounts.putAll(counts);
+        return quantities;
+    }
+
+    // Moves all stock of the video game into the given number of shards, rebalancing any it already has.
+    @Transactional
+    public void shardVideoGame(long videoGameId, int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("A sharded video game needs at least one shard.");
+        }
+        List<VideoGameStockShard> existingShards = shardRepository.findForUpdate(videoGameId);
+        int unsharded = videoGameRepository.findQuantityForUpdate(videoGameId)
+                .orElseThrow(() -> new IllegalArgumentException("No video game with id " + videoGameId + "."));
+        int total = unsharded + existingShards.stream().mapToInt(VideoGameStockShard::getQuantity).sum();
+
+        for (int shard = 0; shard < shards; shard++) {
+            int quantity = total / shards + ((shard < total % shards) ? 1 : 0);
+            if (shard < existingShards.size()) {
+                existingShards.get(shard).setQuantity(quantity);
+            } else {
+                shardRepository.save(new VideoGameStockShard(videoGameId, shard, quantity));
+            }
+        }
+        if (existingShards.size() > shards) {
+            shardRepository.deleteAll(existingShards.subList(shards, existingShards.size()));
+        }
+        videoGameRepository.setQuantity(videoGameId, 0);
+        logger.info("Sharded stock of {} of VideoGame with id {} across {} rows.", total, videoGameId, shards);
+        TransactionCallbacks.afterCommit(() -> shardCounts.put(videoGameId, shards));
+    }
+
+    // Returns all stock of the video game to its video_games row.
+    @Transactional
+    public void unshardVideoGame(long videoGameId) {
+        List<VideoGameStockShard> existingShards = shardRepository.findForUpdate(videoGameId);
+        int unsharded = videoGameRepository.findQuantityForUpdate(videoGameId).orElse(0);
+        int total = unsharded + existingShards.stream().mapToInt(VideoGameStockShard::getQuantity).sum();
+        shardRepository.deleteAll(existingShards);
+        videoGameRepository.setQuantity(videoGameId, total);
+        logger.info("Unsharded stock of {} of VideoGame with id {}.", total, videoGameId);
+        TransactionCallbacks.afterCommit(() -> shardCounts.remove(videoGameId));
+    }
+
+    // Returns false, having changed nothing, when the shards and video_games row together hold less than the quantity.
+    @Transactional
+    public boolean decreaseQuantity(long videoGameId, int quantity) {
+        Integer cachedShards = shardCounts.get(videoGameId);
+        int shards = (cachedShards != null) ? cachedShards : (int) shardRepository.countByVideoGameId(videoGameId);
+        if (shards == 0) {
+            return false;
+        }
+
+        int firstShard = ThreadLocalRandom.current().nextInt(shards);
+        for (int i = 0; i < shards; i++) {
+            int shard = (firstShard + i) % shards;
+            if (shardRepository.lockIfAvailable(videoGameId, shard, quantity).isPresent()) {
+                shardRepository.decreaseQuantity(videoGameId, shard, quantity);
+                singleRowDecrements.increment();
+                return true;
+            }
+        }
+        if (videoGameRepository.lockQuantityIfAvailable(videoGameId, quantity).isPresent()) {
+            videoGameRepository.decreaseQuantity(videoGameId, quantity);
+            singleRowDecrements.increment();
+            return true;
+        }
+        return decreaseAcrossRows(videoGameId, quantity);
+    }
+
+    private boolean decreaseAcrossRows(long videoGameId, int quantity) {
+        List<VideoGameStockShard> lockedShards = shardRepository.findForUpdate(videoGameId);
+        int unsharded = videoGameRepository.findQuantityForUpdate(videoGameId).orElse(0);
+        long available = unsharded + lockedShards.stream().mapToLong(VideoGameStockShard::getQuantity).sum();
+        if (available < quantity) {
+            rejectedDecrements.increment();
+            return false;
+        }
+
+        int remaining = quantity;
+        for (VideoGameStockShard shard : lockedShards) {
+            int taken = Math.min(shard.getQuantity(), remaining);
+            if (taken > 0) {
+                shardRepository.decreaseQuantity(videoGameId, shard.getShard(), taken);
+                remaining -= taken;
+            }
+        }
+        if (remaining > 0) {
+            videoGameRepository.decreaseQuantity(videoGameId, remaining);
+        }
+        spanningDecrements.increment();
+        return true;
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.Transaction;
+
+import java.util.List;
+
+// One page of a gamer's history, newest first. nextCursor is the id to pass as "before" to load the next page, or null on the last page.
+public record TransactionHistoryPage<T extends Transaction>(List<T> transactions, Long nextCursor) {
+}
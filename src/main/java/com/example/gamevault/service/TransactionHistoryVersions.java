@@ -0,0 +1,41 @@
+package com.example.gamevault.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Version counters for each gamer's transaction history, advanced after every committed purchase, reservation or
+ * cancellation, so history pages can tell whether anything changed without querying the database.
+ * <p>
+ * Gamers share a fixed number of counters by id, which bounds memory however many gamers register. A write also
+ * advances the version seen by the other gamers on its counter, which only costs them a re-render. Like the catalogue
+ * snapshot, the counters only see writes made through this instance and start from zero on every start.
+ */
+@Service
+public class TransactionHistoryVersions {
+    private static final int COUNTERS = 4096;
+
+    private final AtomicLongArray versions = new AtomicLongArray(COUNTERS);
+    private final AtomicLongArray changedAt = new AtomicLongArray(COUNTERS);
+
+    public long getVersion(long gamerId) {
+        return versions.get(counterOf(gamerId));
+    }
+
+    // Epoch milliseconds of the last write seen on the gamer's counter, or 0 if none since start.
+    public long getChangedAt(long gamerId) {
+        return changedAt.get(counterOf(gamerId));
+    }
+
+    void increment(long gamerId) {
+        int counter = counterOf(gamerId);
+        changedAt.set(counter, System.currentTimeMillis());
+        versions.incrementAndGet(counter);
+    }
+
+    private static int counterOf(long gamerId) {
+        return (int) (gamerId & (COUNTERS - 1));
+    }
+
+}
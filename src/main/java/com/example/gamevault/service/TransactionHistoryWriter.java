@@ -0,0 +1,305 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.Cancellation;
+import com.example.gamevault.model.Purchase;
+import com.example.gamevault.model.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional write-behind for purchase and cancellation history rows, enabled with gamevault.history.write-behind.enabled.
+ * Once an order commits, its row is queued here instead of being inserted on the request thread, and a single writer
+ * thread inserts queued rows in batches of up to batch-size, or whatever is queued after flush-interval-ms. With JDBC
+ * batching and rewriteBatchedStatements on MySQL, each batch goes out as multi-row inserts.
+ * <p>
+ * Stock, credits and reservations are still written by the order's own transaction. Each row takes its id from its
+ * sequence when queued, so that transaction can already refer to it, as the credit ledger does. A row is only audited and shown in
+ * the gamer's history once written. When the queue is full for longer than enqueue-timeout-ms, or the writer has
+ * stopped, the row is inserted on the caller's thread instead. A row that fails to insert is retried by the writer,
+ * after retry-backoff-ms doubled for each failure up to max-retry-backoff-ms. Queued and retried rows are written
+ * before the application context closes, so only a crash, or the database being unavailable throughout
+ * shutdown-timeout-ms, loses them.
+ */
+@Service
+public class TransactionHistoryWriter {
+    private static final Logger logger = LogManager.getLogger(TransactionHistoryWriter.class);
+    private static final long STOP_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long enqueueTimeoutMs;
+    private final long shutdownTimeoutMs;
+    private final long retryBackoffMs;
+    private final long maxRetryBackoffMs;
+    private final BlockingQueue<PendingRow> pendingRows;
+    private final DelayQueue<PendingRow> retryRows = new DelayQueue<>();
+    private final Counter written;
+    private final Counter writtenDirectly;
+    private final Counter failed;
+    private final Counter batches;
+    private Thread writer;
+    private volatile boolean running;
+
+    // Delayed until the row's next retry, once it has failed to insert.
+    private record PendingRow(Transaction transaction, Runnable onWritten, int failures, long retryAtNanos) implements Delayed {
+        PendingRow(Transaction transaction, Runnable onWritten) {
+            this(transaction, onWritten, 0, 0);
+        }
+
+        PendingRow failed(long backoffMs) {
+            return new PendingRow(transaction, onWritten, failures + 1, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs));
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(retryAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    @Autowired
+    public TransactionHistoryWriter(EntityManager entityManager,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${gamevault.history.write-behind.enabled:false}") boolean enabled,
+                                    @Value("${gamevault.history.write-behind.capacity:10000}") int capacity,
+                                    @Value("${gamevault.history.write-behind.batch-size:500}") int batchSize,
+                                    @Value("${gamevault.history.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                                    @Value("${gamevault.history.write-behind.enqueue-timeout-ms:100}") long enqueueTimeoutMs,
+                                    @Value("${gamevault.history.write-behind.shutdown-timeout-ms:30000}") long shutdownTimeoutMs,
+                                    @Value("${gamevault.history.write-behind.retry-backoff-ms:500}") long retryBackoffMs,
+                                    @Value("${gamevault.history.write-behind.max-retry-backoff-ms:10000}") long maxRetryBackoffMs) {
+        this.entityManager = entityManager;
+        // Rows are also written from after-commit callbacks, where only a new transaction can write.
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.retryBackoffMs = retryBackoffMs;
+        this.maxRetryBackoffMs = maxRetryBackoffMs;
+        this.pendingRows = new ArrayBlockingQueue<>(capacity);
+        this.written = meterRegistry.counter("gamevault.history.write-behind.rows", "result", "written");
+        this.writtenDirectly = meterRegistry.counter("gamevault.history.write-behind.rows", "result", "direct");
+        this.failed = meterRegistry.counter("gamevault.history.write-behind.rows", "result", "failed");
+        this.batches = meterRegistry.counter("gamevault.history.write-behind.batches");
+        Gauge.builder("gamevault.history.write-behind.pending", pendingRows, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("gamevault.history.write-behind.retrying", retryRows, DelayQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::writeRows, "history-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Assigns the row its id, then queues it once the surrounding transaction commits. onWritten runs once the row is in the database.
+    public void writeAfterCommit(Transaction transaction, Runnable onWritten) {
+        assignId(transaction);
+        TransactionCallbacks.afterCommit(() -> submit(new PendingRow(transaction, onWritten)));
+    }
+
+    private void assignId(Transaction transaction) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            transactionTemplate.executeWithoutResult(status -> assignId(transaction));
+            return;
+        }
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getEntityPersister(null, transaction);
+        Object id = ((BeforeExecutionGenerator) persister.getGenerator()).generate(session, transaction, null, EventType.INSERT);
+        persister.setIdentifier(transaction, id, session);
+    }
+
+    private void submit(PendingRow row) {
+        try {
+            if (running && pendingRows.offer(row, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writtenDirectly.increment();
+        write(List.of(row));
+    }
+
+    private void writeRows() {
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+        while (running || !pendingRows.isEmpty() || !retryRows.isEmpty()) {
+            writeRetries();
+            try {
+                // Once stopping with only retries left, waits for the next of them instead of spinning.
+                if (!running && pendingRows.isEmpty()) {
+                    PendingRow row = retryRows.poll(STOP_CHECK_NANOS, TimeUnit.NANOSECONDS);
+                    if (row != null) {
+                        write(List.of(row));
+                    }
+                    continue;
+                }
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    long remainingNanos = deadline - System.nanoTime();
+                    // Once stopping, whatever is queued is written without waiting for the batch to fill.
+                    if (!running || remainingNanos <= 0) {
+                        pendingRows.drainTo(batch, batchSize - batch.size());
+                        break;
+                    }
+                    PendingRow row = pendingRows.poll(Math.min(remainingNanos, STOP_CHECK_NANOS), TimeUnit.NANOSECONDS);
+                    if (row != null) {
+                        batch.add(row);
+                        pendingRows.drainTo(batch, batchSize - batch.size());
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Queued rows are still written, so an interrupt only cuts the wait short.
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Rows that failed before are written one at a time, so one that still fails does not hold back the others.
+    private void writeRetries() {
+        List<PendingRow> rows = new ArrayList<>();
+        retryRows.drainTo(rows);
+        for (PendingRow row : rows) {
+            write(List.of(row));
+        }
+    }
+
+    // A failed batch is retried row by row, so one bad row does not hold back the others, and rows that still fail are retried later.
+    private void write(List<PendingRow> rows) {
+        try {
+            insert(rows);
+            batches.increment();
+        } catch (RuntimeException e) {
+            List<PendingRow> writtenRows = new ArrayList<>(rows.size());
+            if (rows.size() == 1) {
+                retryLater(rows.get(0), e);
+            } else {
+                logger.error("Unable to write batch of {} history rows. Retrying one at a time.", rows.size(), e);
+                for (PendingRow row : rows) {
+                    try {
+                        insert(List.of(row));
+                        writtenRows.add(row);
+                    } catch (RuntimeException rowException) {
+                        retryLater(row, rowException);
+                    }
+                }
+            }
+            rows = writtenRows;
+        }
+        written.increment(rows.size());
+        for (PendingRow row : rows) {
+            try {
+                row.onWritten().run();
+            } catch (RuntimeException e) {
+                logger.error("Unable to run callback of written history row.", e);
+            }
+        }
+    }
+
+    // Only the writer retries rows, so one that fails once it has stopped is lost.
+    private void retryLater(PendingRow row, RuntimeException e) {
+        failed.increment();
+        Transaction transaction = row.transaction();
+        if (writer == null || !writer.isAlive()) {
+            logger.fatal("Unable to write history row of {} {} x {} for {} credits with the writer stopped.", transaction.getClass().getSimpleName(),
+                    transaction.getTitle(), transaction.getQuantity(), transaction.getCost(), e);
+            return;
+        }
+        long backoffMs = Math.min(retryBackoffMs << Math.min(row.failures(), 20), maxRetryBackoffMs);
+        logger.error("Unable to write history row of {} {} x {} for {} credits after {} attempts. Retrying in {} ms.", transaction.getClass().getSimpleName(),
+                transaction.getTitle(), transaction.getQuantity(), transaction.getCost(), row.failures() + 1, backoffMs, e);
+        retryRows.add(row.failed(backoffMs));
+    }
+
+    private void insert(List<PendingRow> rows) {
+        List<Purchase> purchases = new ArrayList<>();
+        List<Cancellation> cancellations = new ArrayList<>();
+        for (PendingRow row : rows) {
+            if (row.transaction() instanceof Purchase purchase) {
+                purchases.add(purchase);
+            } else if (row.transaction() instanceof Cancellation cancellation) {
+                cancellations.add(cancellation);
+            } else {
+                throw new IllegalArgumentException("Only purchases and cancellations are written behind.");
+            }
+        }
+        // Persisted rather than saved, since rows that already have an id would otherwise be merged, selecting each first.
+        transactionTemplate.executeWithoutResult(status -> {
+            purchases.forEach(entityManager::persist);
+            cancellations.forEach(entityManager::persist);
+        });
+    }
+
+    // Rows queued before the application context closes are written first.
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(shutdownTimeoutMs);
+        // Rows queued by callers that saw the writer running just before it stopped.
+        if (!writer.isAlive()) {
+            List<PendingRow> rows = new ArrayList<>();
+            pendingRows.drainTo(rows);
+            if (!rows.isEmpty()) {
+                write(rows);
+            }
+        }
+        List<PendingRow> unwritten = new ArrayList<>(pendingRows);
+        unwritten.addAll(retryRows);
+        for (PendingRow row : unwritten) {
+            logger.fatal("Unable to write history row of {} {} x {} for {} credits before shutdown.", row.transaction().getClass().getSimpleName(),
+                    row.transaction().getTitle(), row.transaction().getQuantity(), row.transaction().getCost());
+        }
+        logger.info("Stopped history writer with {} rows left unwritten.", unwritten.size());
+    }
+
+}
@@ -8,11 +8,22 @@ import com.example.gamevault.repository.ReservationRepository;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 @Service
 public class TransactionService {
     private static final Logger logger = LogManager.getLogger(TransactionService.class);
+    public static final int HISTORY_PAGE_SIZE = 20;
+    public static final int MAX_HISTORY_RANGE_SIZE = 500;
 
     @Autowired
     private PurchaseRepository purchaseRepository;
@@ -23,37 +34,62 @@ public class TransactionService {
     @Autowired
     private CancellationRepository cancellationRepository;
 
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private TransactionHistoryVersions transactionHistoryVersions;
+
+    @Autowired
+    private TransactionHistoryWriter transactionHistoryWriter;
+
     public Purchase createPurchaseTransaction(Gamer gamer, VideoGame videoGame, int quantity) {
-        double videoGameCost = videoGame.getCredits();
-        double totalCost = videoGameCost * (double) quantity;
-        logger.info("Currently at successfulPurchase method. Gamer: {}, VideoGame: {}, Quantity: {}, TotalCost: {}", gamer, videoGame, quantity, totalCost);
+        long videoGameCost = videoGame.getCredits();
+        long totalCost = videoGameCost * quantity;
         Purchase purchase = new Purchase(videoGame.getTitle(), videoGame.getCreator(), quantity, totalCost, gamer);
-        purchaseRepository.save(purchase);
-        logger.info("Created and saved Purchase ({}) for Gamer: {}", purchase.toString(), gamer.toString());
+        savePurchase(purchase);
+        return purchase;
+    }
+
+    public Purchase createPurchaseTransaction(Gamer gamer, Reservation reservation) {
+        Purchase purchase = new Purchase(reservation.getTitle(), reservation.getCreator(), reservation.getQuantity(), reservation.getCost(), gamer);
+        savePurchase(purchase);
         return purchase;
     }
 
+    // Saved together so Hibernate inserts them as one JDBC batch when the transaction flushes.
+    public List<Purchase> createPurchaseTransactions(Gamer gamer, Map<Long, VideoGame> videoGames, Map<Long, Integer> quantities) {
+        List<Purchase> purchases = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            VideoGame videoGame = videoGames.get(line.getKey());
+            purchases.add(new Purchase(videoGame.getTitle(), videoGame.getCreator(), line.getValue(), Math.multiplyExact(videoGame.getCredits(), (long) line.getValue()), gamer));
+        }
+        if (transactionHistoryWriter.isEnabled()) {
+            purchases.forEach(purchase -> transactionHistoryWriter.writeAfterCommit(purchase, () -> record(AuditEventType.PURCHASE_CREATED, purchase)));
+        } else {
+            purchaseRepository.saveAll(purchases);
+            purchases.forEach(purchase -> recordAfterCommit(AuditEventType.PURCHASE_CREATED, purchase));
+        }
+        return purchases;
+    }
+
     public Reservation createReservationTransaction(Gamer gamer, VideoGame videoGame, int quantity) {
-        double totalCost = videoGame.getCredits() * (double) quantity;
-        logger.info("Currently at successfulReservation method. Gamer: {}, VideoGame: {}, Quantity: {}, TotalCost: {}", gamer, videoGame, quantity, totalCost);
+        long totalCost = videoGame.getCredits() * quantity;
         Reservation reservation = new Reservation(videoGame.getTitle(), videoGame.getCreator(), quantity, totalCost, gamer);
         reservationRepository.save(reservation);
-        logger.info("Created and saved Reservation ({}) for Gamer: {}", reservation, gamer.toString());
+        recordAfterCommit(AuditEventType.RESERVATION_CREATED, reservation);
         return reservation;
     }
 
     public Reservation getReservationTransaction(long id) throws ReservationTransactionNotFoundException {
-        logger.info("Currently at getReservationTransaction method, finding Reservation with id {}", id);
-        if (reservationRepository.findById(id).isPresent()) {
-            Reservation reservation = reservationRepository.findById(id).get();
-            logger.info("Found Reservation: {}", reservation.toString());
-            return reservation;
-        }
-        throw new ReservationTransactionNotFoundException();
+        return reservationRepository.findById(id).orElseThrow(ReservationTransactionNotFoundException::new);
     }
 
     public Cancellation createCancelTransaction(Gamer gamer, Reservation reservation) {
-        logger.info("Currently at createCancelTransaction method. Cancellation for Gamer ({}) involving Reservation: {}", reservation.toString(), gamer.toString());
+        return createCancelTransaction(gamer, reservation, Cancellation.MANUAL_CANCELLATION);
+    }
+
+    public Cancellation createCancelTransaction(Gamer gamer, Reservation reservation, String reasonOfCancellation) {
         Cancellation cancellation = new Cancellation(
                 reservation.getTitle(),
                 reservation.getCreator(),
@@ -61,22 +97,119 @@ public class TransactionService {
                 reservation.getCost(),
                 reservation.getCreditsPaid(),
                 reservation.getCreditsToPay(),
-                reservation.getLatestPurchaseDate(),
+                reservation.getExpiresAt(),
                 gamer);
+        cancellation.setReasonOfCancellation(reasonOfCancellation);
         saveCancelTransaction(cancellation);
-        logger.info("Created Cancellation, saved into CancellationRepository: {}", cancellation.toString());
         return cancellation;
     }
 
     public void saveCancelTransaction(Cancellation cancellation) {
-        logger.info("Saving Cancellation ({}) into CancellationRepository.", cancellation.toString());
+        if (transactionHistoryWriter.isEnabled()) {
+            transactionHistoryWriter.writeAfterCommit(cancellation, () -> record(AuditEventType.CANCELLATION_CREATED, cancellation));
+            return;
+        }
         cancellationRepository.save(cancellation);
+        recordAfterCommit(AuditEventType.CANCELLATION_CREATED, cancellation);
+    }
+
+    @Transactional(readOnly = true)
+    public TransactionHistoryPage<Purchase> getPurchaseHistory(long gamerId, Long before) {
+        readHistoryFromReplica(gamerId);
+        return getHistoryPage(before,
+                limit -> purchaseRepository.findByGamerIdOrderByIdDesc(gamerId, limit),
+                (id, limit) -> purchaseRepository.findByGamerIdAndIdLessThanOrderByIdDesc(gamerId, id, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public TransactionHistoryPage<Reservation> getReservationHistory(long gamerId, Long before) {
+        readHistoryFromReplica(gamerId);
+        return getHistoryPage(before,
+                limit -> reservationRepository.findByGamerIdOrderByIdDesc(gamerId, limit),
+                (id, limit) -> reservationRepository.findByGamerIdAndIdLessThanOrderByIdDesc(gamerId, id, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public TransactionHistoryPage<Cancellation> getCancellationHistory(long gamerId, Long before) {
+        readHistoryFromReplica(gamerId);
+        return getHistoryPage(before,
+                limit -> cancellationRepository.findByGamerIdOrderByIdDesc(gamerId, limit),
+                (id, limit) -> cancellationRepository.findByGamerIdAndIdLessThanOrderByIdDesc(gamerId, id, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Purchase> getPurchaseHistoryBetween(long gamerId, Instant from, Instant to) {
+        readHistoryFromReplica(gamerId);
+        return purchaseRepository.findByGamerIdAndTransactionTimeBetweenOrderByTransactionTimeDesc(gamerId, from, to, Limit.of(MAX_HISTORY_RANGE_SIZE));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Reservation> getReservationHistoryBetween(long gamerId, Instant from, Instant to) {
+        readHistoryFromReplica(gamerId);
+        return reservationRepository.findByGamerIdAndTransactionTimeBetweenOrderByTransactionTimeDesc(gamerId, from, to, Limit.of(MAX_HISTORY_RANGE_SIZE));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Cancellation> getCancellationHistoryBetween(long gamerId, Instant from, Instant to) {
+        readHistoryFromReplica(gamerId);
+        return cancellationRepository.findByGamerIdAndTransactionTimeBetweenOrderByTransactionTimeDesc(gamerId, from, to, Limit.of(MAX_HISTORY_RANGE_SIZE));
+    }
+
+    // History reads may go to a read replica, but only to one that has caught up with the gamer's latest transaction.
+    private void readHistoryFromReplica(long gamerId) {
+        ReplicaReads.allow(transactionHistoryVersions.getChangedAt(gamerId));
+    }
+
+    // Fetches one row more than a page to find out whether an older page exists, without counting the whole history.
+    private <T extends Transaction> TransactionHistoryPage<T> getHistoryPage(Long before, Function<Limit, List<T>> firstPage, BiFunction<Long, Limit, List<T>> pageBefore) {
+        Limit limit = Limit.of(HISTORY_PAGE_SIZE + 1);
+        List<T> transactions = (before == null) ? firstPage.apply(limit) : pageBefore.apply(before, limit);
+        if (transactions.size() <= HISTORY_PAGE_SIZE) {
+            return new TransactionHistoryPage<>(transactions, null);
+        }
+        List<T> page = transactions.subList(0, HISTORY_PAGE_SIZE);
+        return new TransactionHistoryPage<>(page, page.get(HISTORY_PAGE_SIZE - 1).getId());
+    }
+
+    // Deleting the row is what claims a reservation, so only one of a completion, cancellation or expiry can succeed.
+    public void deleteReservationTransaction(Reservation reservation) throws ReservationTransactionNotFoundException {
+        if (reservationRepository.deleteReservation(reservation.getId()) == 0) {
+            logger.error("Reservation with id {} was already completed, cancelled or expired.", reservation.getId());
+            throw new ReservationTransactionNotFoundException();
+        }
+        recordAfterCommit(AuditEventType.RESERVATION_DELETED, reservation);
+    }
+
+    // Written behind once the order commits, when enabled, and only then audited and counted in the gamer's history.
+    private void savePurchase(Purchase purchase) {
+        if (transactionHistoryWriter.isEnabled()) {
+            transactionHistoryWriter.writeAfterCommit(purchase, () -> record(AuditEventType.PURCHASE_CREATED, purchase));
+            return;
+        }
+        purchaseRepository.save(purchase);
+        recordAfterCommit(AuditEventType.PURCHASE_CREATED, purchase);
+    }
+
+    private void record(AuditEventType type, Transaction transaction) {
+        long gamerId = (transaction.getGamer() != null) ? transaction.getGamer().getId() : AuditEvent.NONE;
+        auditLog.record(type, gamerId, transaction.getId(), transaction.getQuantity(), transaction.getCost(), transaction.getTitle());
+        if (gamerId != AuditEvent.NONE) {
+            transactionHistoryVersions.increment(gamerId);
+        }
     }
 
-    public void deleteReservationTransaction(Reservation reservation) {
-        logger.info("Deleting Reservation ({}) from ReservationRepository.", reservation.toString());
-        reservationRepository.delete(reservation);
-        logger.info("Deleted aforementioned Reservation from ReservationRepository.");
+    private void recordAfterCommit(AuditEventType type, Transaction transaction) {
+        long gamerId = (transaction.getGamer() != null) ? transaction.getGamer().getId() : AuditEvent.NONE;
+        long transactionId = transaction.getId();
+        long quantity = transaction.getQuantity();
+        long cost = transaction.getCost();
+        String title = transaction.getTitle();
+        TransactionCallbacks.afterCommit(() -> {
+            auditLog.record(type, gamerId, transactionId, quantity, cost, title);
+            if (gamerId != AuditEvent.NONE) {
+                transactionHistoryVersions.increment(gamerId);
+            }
+        });
     }
 
 }
@@ -0,0 +1,5 @@
+package com.example.gamevault.service;
+
+// Published by VideoGameService whenever stock changes or a video game is added. videoGameId is null when only the title is known.
+public record VideoGameChangedEvent(Long videoGameId, String title, int quantityDelta, boolean added) {
+}
@@ -8,10 +8,16 @@ import com.example.gamevault.repository.VideoGameRepository;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class VideoGameService {
@@ -20,79 +26,96 @@ public class VideoGameService {
     @Autowired
     private VideoGameRepository videoGameRepository;
 
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private ShardedStockService shardedStockService;
+
+    @Autowired
+    private PurchaseAdmissionService purchaseAdmissionService;
+
+    @Transactional(readOnly = true)
     public List<VideoGame> getAllVideoGames() {
-        logger.info("Retrieving all video games in the database.");
+        ReplicaReads.allow(0);
         return videoGameRepository.findAll();
     }
 
     public VideoGame getVideoGame(long id) {
-        logger.info("Search attempt of VideoGame object with id {}", id);
         return videoGameRepository.findById(id).orElseThrow(() -> new RuntimeException("Game not found."));
     }
 
+    // Video games found among the ids, by id, read in one query.
+    public Map<Long, VideoGame> getVideoGames(Collection<Long> ids) {
+        return videoGameRepository.findAllById(ids).stream().collect(Collectors.toMap(VideoGame::getId, Function.identity()));
+    }
+
+    // The stock of a sharded video game is only checked by the decrement itself.
     public boolean hasSufficientQuantityForTransaction(VideoGame videoGame, int quantity) throws InsufficientVideoGameQuantityException {
-        logger.info("Check if Video Game has sufficient quantity for a transaction.");
-        logger.info("VideoGame: {}, Quantity: {}", videoGame.toString(), quantity);
-        if (videoGame.getQuantity() >= quantity) {
-            logger.info("Video Game has sufficient quantity for transaction.");
+        if (videoGame.getQuantity() >= quantity || shardedStockService.isSharded(videoGame.getId())) {
             return true;
         }
-        logger.error("Video Game has insufficient quantity for transaction.");
+        logger.error("VideoGame with id {} has insufficient quantity {} for transaction of {}.", videoGame.getId(), videoGame.getQuantity(), quantity);
         throw new InsufficientVideoGameQuantityException();
     }
 
-    public void updateVideoGameQuantity(VideoGame videoGame, int quantity, String transactionType) {
-        logger.info("Updating VideoGame ({}) for TransactionType ({}) involving Quantity ({})", videoGame.toString(), quantity, transactionType);
-        int updatedQuantity;
+    @Transactional
+    public void updateVideoGameQuantity(VideoGame videoGame, int quantity, String transactionType) throws InsufficientVideoGameQuantityException {
         if (transactionType.equals("purchase") || transactionType.equals("reservation")) {
-            updatedQuantity = videoGame.getQuantity() - quantity;
-            if (updatedQuantity == 0) {
-                logger.info("Removing VideoGame({}) because its quantity after transaction is 0.", videoGame.toString());
-                videoGameRepository.delete(videoGame);
-            } else {
-                logger.info("Transaction Type ({}): Decrease VideoGame quantity by {}", transactionType, quantity);
-                videoGame.setQuantity(videoGame.getQuantity() - quantity);
-                logger.info("Updated VideoGame: {}", videoGame);
-                videoGameRepository.save(videoGame);
-            }
+            decreaseVideoGameQuantity(videoGame.getId(), quantity);
         }
     }
 
-    public double getVideoGameCost(Long gameId) {
+    @Transactional
+    public void decreaseVideoGameQuantity(long videoGameId, int quantity) throws InsufficientVideoGameQuantityException {
+        if (quantity <= 0 || !decreaseStock(videoGameId, quantity)) {
+            logger.error("Unable to decrease quantity of VideoGame with id {} by {}: insufficient quantity.", videoGameId, quantity);
+            throw new InsufficientVideoGameQuantityException();
+        }
+        TransactionCallbacks.afterCommit(() -> auditLog.record(AuditEventType.STOCK_DECREASED, AuditEvent.NONE, videoGameId, quantity, AuditEvent.NONE));
+        applicationEventPublisher.publishEvent(new VideoGameChangedEvent(videoGameId, null, -quantity, false));
+    }
+
+    // Falls back to shards for a video game not known to be sharded, which another instance may have sharded.
+    private boolean decreaseStock(long videoGameId, int quantity) {
+        if (shardedStockService.isSharded(videoGameId)) {
+            return shardedStockService.decreaseQuantity(videoGameId, quantity);
+        }
+        return videoGameRepository.decreaseQuantity(videoGameId, quantity) > 0
+                || (shardedStockService.isEnabled() && shardedStockService.decreaseQuantity(videoGameId, quantity));
+    }
+
+    public long getVideoGameCost(Long gameId) {
         VideoGame videoGame = getVideoGame(gameId);
         return videoGame.getCredits();
     }
 
     public VideoGame getVideoGame(String title) throws VideoGameNotFoundException {
-        logger.info("Currently at getVideoGame method. Title: {}", title);
         Optional<VideoGame> videoGameOptional = videoGameRepository.findByTitle(title);
         if (videoGameOptional.isPresent()) {
-            VideoGame videoGame = videoGameOptional.get();
-            logger.info("Found VideoGame with title {}: {}", videoGame.toString(), title);
-            return videoGame;
+            return videoGameOptional.get();
         }
+        logger.error("VideoGame with title {} not found.", title);
         throw new VideoGameNotFoundException();
     }
 
-    public void increaseVideoGameQuantity(Reservation reservation) throws VideoGameNotFoundException {
+    @Transactional
+    public void increaseVideoGameQuantity(Reservation reservation) {
         String title = reservation.getTitle();
         int quantity = reservation.getQuantity();
-        logger.info("Currently at increaseVideoGameQuality method. Title: {}, Quantity: {}", title, quantity);
-        logger.info("Finding VideoGame with title: {}", title);
-        if (videoGameRepository.findByTitle(title).isEmpty()) {
-            logger.info("Video game not in catalogue. Create one and add it in.");
-            VideoGame videoGame = new VideoGame(title, reservation.getCreator(), reservation.getQuantity(), reservation.getCost());
-            logger.info("Created and saved videoGame: {}", videoGame.toString());
+        if (videoGameRepository.increaseQuantity(title, quantity) == 0) {
+            VideoGame videoGame = new VideoGame(title, reservation.getCreator(), quantity, reservation.getCost() / quantity);
             videoGameRepository.save(videoGame);
-
+            TransactionCallbacks.afterCommit(() -> auditLog.record(AuditEventType.VIDEO_GAME_ADDED, AuditEvent.NONE, videoGame.getId(), quantity, videoGame.getCredits(), title));
+            applicationEventPublisher.publishEvent(new VideoGameChangedEvent(videoGame.getId(), title, quantity, true));
         } else {
-            VideoGame videoGame = getVideoGame(title);
-            logger.info("Increasing quantity. Before: {}.", videoGame.toString());
-            int currentQuantity = videoGame.getQuantity();
-            int updatedQuantity = currentQuantity + quantity;
-            videoGame.setQuantity(updatedQuantity);
-            logger.info("Increased quantity. After: {}.", videoGame.toString());
+            TransactionCallbacks.afterCommit(() -> auditLog.record(AuditEventType.STOCK_INCREASED, AuditEvent.NONE, AuditEvent.NONE, quantity, AuditEvent.NONE, title));
+            applicationEventPublisher.publishEvent(new VideoGameChangedEvent(null, title, quantity, false));
         }
-
+        // Registered after the catalogue update, so a purchase failing meanwhile does not find the title still empty.
+        TransactionCallbacks.afterCommit(() -> purchaseAdmissionService.clearSoldOut(title));
     }
 }
@@ -0,0 +1,15 @@
+// Gives a buy, reserve or cancel form a key on its first submission, which a double click or resubmission reuses,
+// so the server applies the request once. Keys are cleared when the page is shown again from the back-forward cache.
+document.querySelectorAll("input[name=idempotencyKey]").forEach(input => {
+    input.form.addEventListener("submit", () => {
+        if (input.value === "") {
+            input.value = (window.crypto && crypto.randomUUID) ? crypto.randomUUID()
+                : Date.now().toString(36) + "-" + Math.random().toString(36).slice(2);
+        }
+    });
+});
+window.addEventListener("pageshow", event => {
+    if (event.persisted) {
+        document.querySelectorAll("input[name=idempotencyKey]").forEach(input => input.value = "");
+    }
+});
@@ -0,0 +1,147 @@
+package com.example.gamevault.benchmark;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.example.gamevault.model.*;
+import com.example.gamevault.service.AuditEvent;
+import com.example.gamevault.service.AuditEventType;
+import com.example.gamevault.service.AuditLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-request logging cost of a purchase: the eager toString logging the services used to do, against two
+ * {@link AuditLog} records. Both loggers write to a discarding appender so only formatting and encoding are measured.
+ * Audit records are measured as sustained throughput including the writer thread: an invocation waits whenever more
+ * records are outstanding than half the log's capacity, so the loop runs no faster than the writer formats and
+ * writes, and no record is dropped. An iteration that drops one fails.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditLoggingBenchmark {
+    private static final Logger requestLogger = LogManager.getLogger("benchmark.request");
+    private static final int AUDIT_CAPACITY = 8192;
+
+    @Param({"0", "100"})
+    public int historySize;
+
+    private AuditLog auditLog;
+    private SimpleMeterRegistry meterRegistry;
+    private final AtomicLong auditLinesWritten = new AtomicLong();
+    private long auditLinesExpected;
+    private Gamer gamer;
+    private VideoGame videoGame;
+    private Purchase purchase;
+
+    @Setup
+    public void setUp() {
+        discardOutputOf("benchmark.request", new AtomicLong());
+        discardOutputOf("gamevault.audit", auditLinesWritten);
+        meterRegistry = new SimpleMeterRegistry();
+        auditLog = new AuditLog(AUDIT_CAPACITY, 10_000, meterRegistry);
+        auditLog.start();
+
+        gamer = new HistoryPrintingGamer("Benchmark Gamer", "benchmarkgamer", "benchmark@gmail.com", "password");
+        videoGame = new VideoGame("Benchmark Title", "Benchmark Creator", 100, Credits.of(15));
+        List<Purchase> purchaseHistory = new ArrayList<>();
+        for (int i = 0; i < historySize; i++) {
+            purchaseHistory.add(new Purchase("Title " + i, "Creator " + i, 1, Credits.of(15), gamer));
+        }
+        gamer.setPurchaseHistory(purchaseHistory);
+        gamer.setReservationHistory(new ArrayList<>());
+        gamer.setCancellationHistory(new ArrayList<>());
+        purchase = new Purchase(videoGame.getTitle(), videoGame.getCreator(), 2, Credits.of(30), gamer);
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkNothingDropped() {
+        if (meterRegistry.get("gamevault.audit.events").tag("result", "dropped").counter().count() > 0) {
+            throw new IllegalStateException("Audit records were dropped, so the writer was not measured for them.");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        auditLog.stop();
+    }
+
+    @Benchmark
+    public void eagerToStringLogging() {
+        requestLogger.info("Purchase attempt. Gamer: {}, VideoGame: {}, Quantity: {}", gamer.toString(), videoGame.toString(), 2);
+        requestLogger.info("VideoGame: {}, Quantity: {}", videoGame.toString(), 2);
+        requestLogger.info("Location: canAffordPurchase method | Gamer: {}, Video Game Credit: {}, Quantity to Buy: {}", gamer.toString(), videoGame.getCredits(), 2);
+        requestLogger.info("Updating VideoGame ({}) for TransactionType ({}) involving Quantity ({})", videoGame.toString(), "purchase", 2);
+        requestLogger.info("Currently at successfulPurchase method. Gamer: {}, VideoGame: {}", gamer.toString(), videoGame.toString());
+        requestLogger.info("Created and saved Purchase ({}) for Gamer: {}", purchase.toString(), gamer.toString());
+        requestLogger.info("Reducing Gamer's credit by totalCost. Before - Gamer: {}", gamer.toString());
+        requestLogger.info("Reducing Gamer's credit by total cost. After - Gamer: {}", gamer.toString());
+    }
+
+    @Benchmark
+    public void asynchronousAuditLogging() {
+        auditLog.record(AuditEventType.PURCHASE_CREATED, gamer.getId(), purchase.getId(), purchase.getQuantity(), purchase.getCost(), purchase.getTitle());
+        auditLog.record(AuditEventType.CREDITS_DEBITED, gamer.getId(), AuditEvent.NONE, AuditEvent.NONE, purchase.getCost());
+        auditLinesExpected += 2;
+        while (auditLinesExpected - auditLinesWritten.get() > AUDIT_CAPACITY / 2) {
+            Thread.onSpinWait();
+        }
+    }
+
+    // Counts the lines the logger writes, so a benchmark can wait for an asynchronous writer.
+    private static void discardOutputOf(String loggerName, AtomicLong linesWritten) {
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern("%d %-5level [%thread] %logger - %msg%n");
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                super.append(event);
+                linesWritten.incrementAndGet();
+            }
+        };
+        appender.setContext(loggerContext);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        ch.qos.logback.classic.Logger logger = loggerContext.getLogger(loggerName);
+        logger.detachAndStopAllAppenders();
+        logger.addAppender(appender);
+        logger.setAdditive(false);
+        logger.setLevel(ch.qos.logback.classic.Level.INFO);
+    }
+
+    // Formats its whole history like Gamer.toString did before histories were made lazy.
+    private static class HistoryPrintingGamer extends Gamer {
+        HistoryPrintingGamer(String name, String username, String email, String password) {
+            super(name, username, email, password);
+        }
+
+        @Override
+        public String toString() {
+            return "Gamer{" +
+                    "purchaseHistory=" + getPurchaseHistory() +
+                    ", reservationHistory=" + getReservationHistory() +
+                    ", cancellationHistory=" + getCancellationHistory() +
+                    ", totalCredits=" + getTotalCredits() +
+                    '}';
+        }
+    }
+
+}
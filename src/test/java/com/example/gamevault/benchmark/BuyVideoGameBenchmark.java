@@ -0,0 +1,94 @@
+package com.example.gamevault.benchmark;
+
+import com.example.gamevault.GamevaultApplication;
+import com.example.gamevault.controller.TransactionController;
+import com.example.gamevault.exception.InsufficientCreditsForTransactionException;
+import com.example.gamevault.model.Credits;
+import com.example.gamevault.model.Gamer;
+import com.example.gamevault.model.VideoGame;
+import com.example.gamevault.repository.VideoGameRepository;
+import com.example.gamevault.security.PersonAuthenticationService;
+import com.example.gamevault.security.PersonPrincipal;
+import com.example.gamevault.service.AuditEvent;
+import com.example.gamevault.service.GamerService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * One purchase through {@link TransactionController#buyVideoGame}, from the security filters to the commit, with the
+ * application started on the test profile's embedded H2 database, and on its own the conditional credit debit
+ * {@link GamerService#debitCredits} every order commits. The gamer is signed in as samtan95 and given enough credits,
+ * and the title enough stock, never to run out. Logging below WARN is off, so audit records are dropped before
+ * formatting.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class BuyVideoGameBenchmark {
+    private static final long CREDITS = Credits.of(1_000_000_000);
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private UserDetails gamer;
+    private Gamer debitedGamer;
+    private GamerService gamerService;
+    private String gameId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(GamevaultApplication.class)
+                .profiles("test")
+                .properties("spring.datasource.url=jdbc:h2:mem:buy-benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+                        "server.port=0",
+                        "logging.level.root=WARN")
+                .run();
+        VideoGame videoGame = context.getBean(VideoGameRepository.class).save(new VideoGame("Benchmark Title", "Benchmark Creator", 1_000_000_000, Credits.of(1)));
+        gameId = String.valueOf(videoGame.getId());
+        context.getBean(JdbcTemplate.class).update("UPDATE gamer SET total_credits = ? WHERE username = 'samtan95'", CREDITS);
+        gamer = context.getBean(PersonAuthenticationService.class).loadUserByUsername("samtan95");
+        debitedGamer = (Gamer) ((PersonPrincipal) gamer).getPerson();
+        gamerService = context.getBean(GamerService.class);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).apply(springSecurity()).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult buyVideoGame() throws Exception {
+        MvcResult result = mockMvc.perform(post("/gamer/buy")
+                        .param("gameId", gameId)
+                        .param("quantity", "1")
+                        .with(user(gamer)))
+                .andReturn();
+        if (result.getFlashMap().get("success") == null) {
+            throw new IllegalStateException("Purchase failed: " + result.getFlashMap());
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long debitCredits() throws InsufficientCreditsForTransactionException {
+        gamerService.debitCredits(debitedGamer, Credits.of(1), AuditEvent.NONE);
+        return debitedGamer.getTotalCredits();
+    }
+
+}
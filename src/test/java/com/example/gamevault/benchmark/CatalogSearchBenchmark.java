@@ -0,0 +1,87 @@
+package com.example.gamevault.benchmark;
+
+import com.example.gamevault.model.CatalogItem;
+import com.example.gamevault.service.CatalogSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalogue search over a million generated titles through {@link CatalogSearchIndex}, against the case-insensitive
+ * substring scan a SQL LIKE '%query%' has to do. Titles are three words drawn from 8000 made-up words plus a number.
+ * The two letter prefix matches about a seventh of the catalogue and is the index's worst case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class CatalogSearchBenchmark {
+    private static final String[] SYLLABLES = {
+            "ka", "ro", "mi", "zen", "tor", "va", "lu", "dra", "shi", "gon",
+            "bel", "nox", "ar", "qui", "fen", "sol", "ty", "mar", "eco", "rin"};
+    private static final String[] CREATORS = {
+            "EA Sports", "Konami", "Treyarch", "Visual Concepts", "Nintendo", "Capcom", "Ubisoft", "Bandai Namco",
+            "Square Enix", "Sega", "Bethesda", "Rockstar", "Valve", "Blizzard", "Remedy", "FromSoftware"};
+
+    @Param({"1000000"})
+    public int titles;
+
+    private CatalogSearchIndex index;
+    private List<CatalogItem> catalog;
+    private String searchQuery;
+    private String autocompleteQuery;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        catalog = new ArrayList<>(titles);
+        for (int id = 1; id <= titles; id++) {
+            String title = word(random) + " " + word(random) + " " + word(random) + " " + id;
+            catalog.add(new CatalogItem(id, title, CREATORS[random.nextInt(CREATORS.length)], 10, 1999));
+        }
+        index = new CatalogSearchIndex();
+        index.synchronize(catalog);
+
+        String[] searched = catalog.get(titles / 3).getTitle().split(" ");
+        searchQuery = searched[0] + " " + searched[2] + " ";
+        String[] completed = catalog.get(titles / 2).getTitle().split(" ");
+        autocompleteQuery = completed[0] + " " + completed[1].substring(0, 3);
+    }
+
+    @Benchmark
+    public List<Long> indexSearch() {
+        return index.search(searchQuery, 20);
+    }
+
+    @Benchmark
+    public List<Long> indexAutocomplete() {
+        return index.search(autocompleteQuery, 10);
+    }
+
+    @Benchmark
+    public List<Long> indexShortPrefix() {
+        return index.search("ka", 10);
+    }
+
+    @Benchmark
+    public List<Long> substringScan() {
+        List<Long> matches = new ArrayList<>();
+        for (CatalogItem item : catalog) {
+            if (item.getTitle().toLowerCase(Locale.ROOT).contains(autocompleteQuery) && matches.size() < 10) {
+                matches.add(item.getId());
+            }
+        }
+        return matches;
+    }
+
+    private static String word(Random random) {
+        return SYLLABLES[random.nextInt(SYLLABLES.length)] + SYLLABLES[random.nextInt(SYLLABLES.length)] + SYLLABLES[random.nextInt(SYLLABLES.length)];
+    }
+
+}
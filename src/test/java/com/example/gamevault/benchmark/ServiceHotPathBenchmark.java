@@ -0,0 +1,119 @@
+package com.example.gamevault.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import com.example.gamevault.exception.InsufficientCreditsForTransactionException;
+import com.example.gamevault.exception.InvalidPasswordException;
+import com.example.gamevault.model.*;
+import com.example.gamevault.repository.GamerRepository;
+import com.example.gamevault.security.PersonPrincipal;
+import com.example.gamevault.service.GamerService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory steps of registration and ordering, without Spring or a database. Registration is measured through
+ * {@link GamerService#register} with an invalid password, the last of the format checks, so every validator runs and
+ * nothing reaches the availability filters or the database. Orders debit credits in SQL, which
+ * {@link BuyVideoGameBenchmark} covers. Gamer.toString is measured with histories of different sizes set on the gamer,
+ * and application logging is switched off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceHotPathBenchmark {
+
+    private GamerService gamerService;
+    private Gamer gamer;
+    private VideoGame videoGame;
+    private Instant expiresAt;
+
+    @State(Scope.Benchmark)
+    public static class GamerWithHistory {
+        @Param({"0", "1000"})
+        public int historySize;
+
+        private Gamer gamer;
+
+        @Setup
+        public void setUp() {
+            gamer = new Gamer("Benchmark Gamer", "benchmarkgamer", "benchmark@gmail.com", "password");
+            List<Purchase> purchaseHistory = new ArrayList<>();
+            List<Reservation> reservationHistory = new ArrayList<>();
+            for (int i = 0; i < historySize; i++) {
+                purchaseHistory.add(new Purchase("Title " + i, "Creator " + i, 1, Credits.of(15), gamer));
+                reservationHistory.add(new Reservation("Title " + i, "Creator " + i, 1, Credits.of(15), gamer));
+            }
+            gamer.setPurchaseHistory(purchaseHistory);
+            gamer.setReservationHistory(reservationHistory);
+            gamer.setCancellationHistory(new ArrayList<>());
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).getLogger("com.example.gamevault").setLevel(Level.OFF);
+        GamerRepository gamerRepository = (GamerRepository) Proxy.newProxyInstance(GamerRepository.class.getClassLoader(),
+                new Class<?>[]{GamerRepository.class}, (proxy, method, args) -> (args == null) ? null : args[0]);
+        gamerService = new GamerService(gamerRepository);
+
+        gamer = new Gamer("Benchmark Gamer", "benchmarkgamer", "benchmark@gmail.com", "password");
+        videoGame = new VideoGame("Benchmark Title", "Benchmark Creator", 100, Credits.of(15));
+        expiresAt = Instant.now().plus(Reservation.HOLD_DURATION);
+    }
+
+    @Benchmark
+    public boolean canAffordPurchase() throws InsufficientCreditsForTransactionException {
+        return gamerService.canAffordTransaction(gamer, videoGame, 2, "purchase");
+    }
+
+    @Benchmark
+    public boolean canAffordReservationBalance() throws InsufficientCreditsForTransactionException {
+        return gamerService.canAffordTransaction(gamer, videoGame, 2, "complete purchase of reservation");
+    }
+
+    @Benchmark
+    public Throwable registrationValidators() {
+        try {
+            gamerService.register("Benchmark Gamer", "benchmarkgamer", "benchmark@gmail.com", "invalid password");
+            throw new IllegalStateException("Invalid password accepted.");
+        } catch (InvalidPasswordException e) {
+            return e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Registration stopped before the password check.", e);
+        }
+    }
+
+    @Benchmark
+    public Reservation newReservation() {
+        return new Reservation(videoGame.getTitle(), videoGame.getCreator(), 2, Credits.of(30), gamer);
+    }
+
+    @Benchmark
+    public Cancellation newCancellation() {
+        return new Cancellation(videoGame.getTitle(), videoGame.getCreator(), 2, Credits.of(30), Credits.of(6), Credits.of(24), expiresAt, gamer);
+    }
+
+    @Benchmark
+    public String gamerToString(GamerWithHistory gamerWithHistory) {
+        return gamerWithHistory.gamer.toString();
+    }
+
+    @Benchmark
+    public void newPersonPrincipal(Blackhole blackhole) {
+        PersonPrincipal principal = new PersonPrincipal(gamer);
+        blackhole.consume(principal.getAuthorities());
+        blackhole.consume(principal.getTotalCredits());
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.example.gamevault.benchmark;
+
+import com.example.gamevault.service.ShardedStockService;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Purchases of one hot title by concurrent clients, with its stock in one row as before and spread over shards as by
+ * {@link ShardedStockService}. Each purchase claims a row the way the service does, then holds it for a millisecond
+ * standing in for the rest of the order's statements and the commit. The "purchases" result is purchases per
+ * millisecond; the primary score counts rounds of one purchase per client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class ShardedStockBenchmark {
+    private static final long ORDER_MILLIS = 1;
+    private static final int STOCK = 1_000_000_000;
+
+    @Param({"1", "4", "16"})
+    public int clients;
+
+    @Param({"1", "4", "16"})
+    public int shards;
+
+    private HikariDataSource pool;
+    private ExecutorService clientThreads;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Purchases {
+        public long purchases;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            purchases = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:sharded-stock-benchmark-" + clients + "-" + shards + ";MODE=MySQL;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(clients);
+        config.setMinimumIdle(clients);
+        pool = new HikariDataSource(config);
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE video_game_stock_shards (video_game_id BIGINT NOT NULL, shard INT NOT NULL, quantity INT NOT NULL, PRIMARY KEY (video_game_id, shard))");
+            for (int shard = 0; shard < shards; shard++) {
+                statement.execute("INSERT INTO video_game_stock_shards VALUES (1, " + shard + ", " + STOCK / shards + ")");
+            }
+        }
+        clientThreads = Executors.newFixedThreadPool(clients);
+    }
+
+    @TearDown
+    public void tearDown() {
+        clientThreads.shutdownNow();
+        pool.close();
+    }
+
+    @Benchmark
+    public void purchase(Purchases purchases) throws Exception {
+        List<Callable<Boolean>> round = new ArrayList<>();
+        for (int client = 0; client < clients; client++) {
+            round.add(this::buyOne);
+        }
+        for (Future<Boolean> purchase : clientThreads.invokeAll(round)) {
+            if (purchase.get()) {
+                purchases.purchases++;
+            }
+        }
+    }
+
+    private boolean buyOne() throws Exception {
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            int shard = claimShard(connection);
+            try (PreparedStatement decrease = connection.prepareStatement(
+                    "UPDATE video_game_stock_shards SET quantity = quantity - 1 WHERE video_game_id = 1 AND shard = ? AND quantity >= 1")) {
+                decrease.setInt(1, shard);
+                boolean bought = decrease.executeUpdate() > 0;
+                Thread.sleep(ORDER_MILLIS);
+                connection.commit();
+                return bought;
+            }
+        }
+    }
+
+    // A random shard first, skipping shards other purchases hold; waits for one only when all are held.
+    private int claimShard(Connection connection) throws Exception {
+        int firstShard = ThreadLocalRandom.current().nextInt(shards);
+        try (PreparedStatement claim = connection.prepareStatement(
+                "SELECT quantity FROM video_game_stock_shards WHERE video_game_id = 1 AND shard = ? AND quantity >= 1 FOR UPDATE SKIP LOCKED")) {
+            for (int i = 0; i < shards; i++) {
+                int shard = (firstShard + i) % shards;
+                claim.setInt(1, shard);
+                try (ResultSet resultSet = claim.executeQuery()) {
+                    if (resultSet.next()) {
+                        return shard;
+                    }
+                }
+            }
+        }
+        return firstShard;
+    }
+
+}
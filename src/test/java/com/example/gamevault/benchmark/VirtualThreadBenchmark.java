@@ -0,0 +1,94 @@
+package com.example.gamevault.benchmark;
+
+import com.example.gamevault.configuration.ConnectionAdmissionDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.*;
+
+/**
+ * Request handling on the 200 platform threads Tomcat uses by default, against a virtual thread per request with the
+ * {@link ConnectionAdmissionDataSource} in front of the pool, as with spring.threads.virtual.enabled.
+ * <p>
+ * Two groups of clients share one server. Database pages hold one of ten pooled connections for a query plus two
+ * milliseconds of simulated database latency, and outnumber the servlet threads. Cached pages, like the home page
+ * served from the catalogue snapshot, only use CPU. Throughput and, in sample mode, p99 latency are reported for
+ * each group. Needs a Java 21 runtime.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class VirtualThreadBenchmark {
+    private static final int SERVLET_THREADS = 200;
+    private static final int POOL_SIZE = 10;
+    private static final long DATABASE_LATENCY_MILLIS = 2;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private HikariDataSource pool;
+    private DataSource dataSource;
+    private ExecutorService server;
+
+    @Setup
+    public void setUp() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:virtual-thread-benchmark;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(POOL_SIZE);
+        config.setMinimumIdle(POOL_SIZE);
+        pool = new HikariDataSource(config);
+        if (threads.equals("virtual")) {
+            // Waits as long as the pool's own connection timeout, so requests queue rather than being rejected.
+            dataSource = new ConnectionAdmissionDataSource(pool, POOL_SIZE * 4, Duration.ofSeconds(30), new SimpleMeterRegistry());
+            VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("request-");
+            server = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0, TimeUnit.SECONDS, new SynchronousQueue<>(), executor.getVirtualThreadFactory());
+        } else {
+            dataSource = pool;
+            server = Executors.newFixedThreadPool(SERVLET_THREADS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.shutdownNow();
+        pool.close();
+    }
+
+    @Benchmark
+    @Group("requests")
+    @GroupThreads(32)
+    public Object cachedPage() throws Exception {
+        return server.submit(() -> {
+            Blackhole.consumeCPU(2_000);
+            return Boolean.TRUE;
+        }).get();
+    }
+
+    @Benchmark
+    @Group("requests")
+    @GroupThreads(256)
+    public Object databasePage() throws Exception {
+        return server.submit(() -> {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT 1")) {
+                resultSet.next();
+                Thread.sleep(DATABASE_LATENCY_MILLIS);
+                return resultSet.getInt(1);
+            }
+        }).get();
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.example.gamevault.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionAdmissionDataSourceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConnectionAdmissionDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:gamevault-admission;DB_CLOSE_DELAY=-1");
+        meterRegistry = new SimpleMeterRegistry();
+        dataSource = new ConnectionAdmissionDataSource(h2, 2, Duration.ofMillis(50), meterRegistry);
+    }
+
+    @Test
+    void getConnection_rejectsPastLimitUntilAConnectionIsClosed() throws Exception {
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(1, meterRegistry.counter("gamevault.database.admissions.rejected").count());
+
+        first.close();
+        first.close();
+        try (Connection third = dataSource.getConnection()) {
+            assertTrue(third.isValid(1));
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        }
+        second.close();
+        assertEquals(0, meterRegistry.get("gamevault.database.admissions.holders").gauge().value());
+    }
+
+    @Test
+    void close_closesWrappedPool() throws Exception {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:gamevault-admission;DB_CLOSE_DELAY=-1");
+        ConnectionAdmissionDataSource admissionDataSource = new ConnectionAdmissionDataSource(pool, 2, Duration.ofMillis(50), meterRegistry);
+        try (Connection connection = admissionDataSource.getConnection()) {
+            assertTrue(connection.isValid(1));
+        }
+
+        admissionDataSource.close();
+
+        assertTrue(pool.isClosed());
+        dataSource.close();
+    }
+
+    @Test
+    void connectionAdmissionPostProcessor_admitsForPrimaryAndReplicaPoolsOfRoutingDataSource() throws Exception {
+        HikariDataSource primary = pool(6);
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(primary, List.of(pool(3), pool(2)),
+                Duration.ofSeconds(1), Duration.ofSeconds(1), meterRegistry);
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", meterRegistry);
+        BeanPostProcessor postProcessor = VirtualThreadConfiguration.connectionAdmissionPostProcessor(0, 50, beanFactory.getBeanProvider(MeterRegistry.class));
+
+        ConnectionAdmissionDataSource admissionDataSource = (ConnectionAdmissionDataSource) postProcessor.postProcessAfterInitialization(routingDataSource, "dataSource");
+        ConnectionAdmissionDataSource plainAdmissionDataSource = (ConnectionAdmissionDataSource) postProcessor.postProcessAfterInitialization(pool(6), "plainDataSource");
+
+        assertEquals((6 + 3 + 2) * 4, admissionDataSource.getMaxConnectionHolders());
+        assertEquals(6 * 4, plainAdmissionDataSource.getMaxConnectionHolders());
+        admissionDataSource.close();
+        plainAdmissionDataSource.close();
+        assertTrue(primary.isClosed());
+        dataSource.close();
+    }
+
+    private static HikariDataSource pool(int maximumPoolSize) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:gamevault-admission;DB_CLOSE_DELAY=-1");
+        pool.setMaximumPoolSize(maximumPoolSize);
+        return pool;
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.example.gamevault.configuration;
+
+import com.example.gamevault.model.Credits;
+import com.example.gamevault.model.Gamer;
+import com.example.gamevault.model.VideoGame;
+import com.example.gamevault.repository.GamerRepository;
+import com.example.gamevault.repository.VideoGameRepository;
+import com.example.gamevault.service.CatalogCacheService;
+import com.example.gamevault.service.PurchaseOrchestrator;
+import com.example.gamevault.service.TransactionService;
+import com.example.gamevault.service.VideoGameService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Its own database, since this context's pooled id blocks would otherwise overlap those of the shared test context.
+// The replica is a second pool on that same database, so it has caught up with whatever a check finds.
+// Replicas are checked by hand, so the background check never runs during the test.
+@SpringBootTest(properties = {
+        "gamevault.datasource.replica.enabled=true",
+        "gamevault.datasource.replica.urls=jdbc:h2:mem:gamevault-replicas;MODE=MySQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "gamevault.datasource.replica.max-lag-ms=60000",
+        "gamevault.datasource.replica.check-interval-ms=3600000",
+        "spring.datasource.url=jdbc:h2:mem:gamevault-replicas;MODE=MySQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class ReadReplicaConfigurationTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private VideoGameService videoGameService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private PurchaseOrchestrator purchaseOrchestrator;
+
+    @Autowired
+    private GamerRepository gamerRepository;
+
+    @Autowired
+    private VideoGameRepository videoGameRepository;
+
+    @Autowired
+    private CatalogCacheService catalogCacheService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void catalogueAndHistoryReadsGoToReplicaWhileOrdersGoToPrimary() throws Throwable {
+        assertInstanceOf(ReadWriteRoutingDataSource.class, dataSource);
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        Gamer gamer = gamerRepository.save(new Gamer("Replica Gamer", "replica" + suffix, suffix + "@gmail.com", "password"));
+        VideoGame videoGame = videoGameRepository.save(new VideoGame("Replica Title " + suffix, "Replica Creator", 10, Credits.of(1)));
+        ((ReadWriteRoutingDataSource) dataSource).checkReplicas();
+        ((ReadWriteRoutingDataSource) dataSource).checkReplicas();
+        double replicaReads = replicaReads();
+
+        assertTrue(videoGameService.getAllVideoGames().stream().anyMatch(game -> game.getId() == videoGame.getId()));
+        assertEquals(replicaReads + 1, replicaReads());
+
+        Thread.sleep(5);
+        purchaseOrchestrator.buy(gamer, videoGame.getId(), 2);
+        assertEquals(replicaReads + 1, replicaReads());
+
+        // Not yet caught up with the purchase, so the history is read from the primary until the next check.
+        assertEquals(1, transactionService.getPurchaseHistory(gamer.getId(), null).transactions().size());
+        assertEquals(replicaReads + 1, replicaReads());
+        ((ReadWriteRoutingDataSource) dataSource).checkReplicas();
+        ((ReadWriteRoutingDataSource) dataSource).checkReplicas();
+        assertEquals(1, transactionService.getPurchaseHistory(gamer.getId(), null).transactions().size());
+        assertEquals(replicaReads + 2, replicaReads());
+    }
+
+    @Test
+    void catalogueReloadsFromReplicaOnlyOnceItHasCaughtUpWithAppliedChanges() throws Throwable {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        Gamer gamer = gamerRepository.save(new Gamer("Replica Gamer", "replica" + suffix, suffix + "@gmail.com", "password"));
+        VideoGame videoGame = videoGameRepository.save(new VideoGame("Replica Title " + suffix, "Replica Creator", 10, Credits.of(1)));
+        Thread.sleep(5);
+        ((ReadWriteRoutingDataSource) dataSource).checkReplicas();
+        ((ReadWriteRoutingDataSource) dataSource).checkReplicas();
+        double replicaReads = replicaReads();
+
+        catalogCacheService.refresh();
+        assertEquals(replicaReads + 1, replicaReads());
+        assertEquals(10, catalogCacheService.getSnapshot().findById(videoGame.getId()).orElseThrow().getQuantity());
+
+        // The replica has not caught up with the purchase applied to the snapshot, so the reload reads from the primary.
+        Thread.sleep(5);
+        purchaseOrchestrator.buy(gamer, videoGame.getId(), 2);
+        catalogCacheService.refresh();
+        assertEquals(replicaReads + 1, replicaReads());
+        assertEquals(8, catalogCacheService.getSnapshot().findById(videoGame.getId()).orElseThrow().getQuantity());
+    }
+
+    private double replicaReads() {
+        return meterRegistry.counter("gamevault.datasource.reads", "target", "replica").count();
+    }
+
+}
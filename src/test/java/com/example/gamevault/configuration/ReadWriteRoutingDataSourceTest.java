@@ -0,0 +1,132 @@
+package com.example.gamevault.configuration;
+
+import com.example.gamevault.service.ReplicaReads;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private SimpleMeterRegistry meterRegistry;
+    private ReadWriteRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(h2("jdbc:h2:mem:gamevault-routing-primary;DB_CLOSE_DELAY=-1"));
+        replica = new JdbcTemplate(h2("jdbc:h2:mem:gamevault-routing-replica;DB_CLOSE_DELAY=-1"));
+        for (JdbcTemplate database : List.of(primary, replica)) {
+            database.execute("DROP ALL OBJECTS");
+            database.execute("CREATE TABLE marker (name VARCHAR(16))");
+            database.execute("CREATE TABLE replica_heartbeats (instance_id VARCHAR(36) NOT NULL PRIMARY KEY, beat_at BIGINT NOT NULL)");
+        }
+        primary.update("INSERT INTO marker VALUES ('primary')");
+        replica.update("INSERT INTO marker VALUES ('replica')");
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @Test
+    void readOnlyTransactionAllowingReplica_readsFromCaughtUpReplica() {
+        start(replica.getDataSource());
+        assertEquals("primary", readOnly(0));
+
+        replicate();
+        assertEquals("replica", readOnly(0));
+        assertEquals("replica", readOnly(System.currentTimeMillis() - 1000));
+        assertFalse(ReplicaReads.isAllowed());
+        assertEquals(2, meterRegistry.counter("gamevault.datasource.reads", "target", "replica").count());
+        assertEquals(1, meterRegistry.counter("gamevault.datasource.reads", "target", "primary_fallback").count());
+    }
+
+    @Test
+    void writesAndReadsNotAllowingReplica_goToPrimary() {
+        start(replica.getDataSource());
+        replicate();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        assertEquals("primary", transactionTemplate.execute(status -> {
+            ReplicaReads.allow(0);
+            return marker();
+        }));
+        transactionTemplate.setReadOnly(true);
+        assertEquals("primary", transactionTemplate.execute(status -> marker()));
+        assertEquals("primary", marker());
+    }
+
+    @Test
+    void laggingReplica_fallsBackToPrimary() {
+        start(replica.getDataSource());
+        replicate();
+        assertEquals("primary", readOnly(System.currentTimeMillis() + 1000));
+
+        replica.update("UPDATE replica_heartbeats SET beat_at = ?", System.currentTimeMillis() - 5000);
+        dataSource.checkReplicas();
+        assertEquals("primary", readOnly(0));
+
+        replicate();
+        assertEquals("replica", readOnly(0));
+    }
+
+    @Test
+    void unreachableReplica_fallsBackToPrimary() {
+        start(h2("jdbc:h2:tcp://localhost:1/gamevault-routing-unreachable"));
+        replicate();
+        assertEquals("primary", readOnly(0));
+    }
+
+    private void start(DataSource replicaDataSource) {
+        // Replicas are checked by hand, so the background check never runs during a test.
+        dataSource = new ReadWriteRoutingDataSource(primary.getDataSource(), List.of(replicaDataSource),
+                Duration.ofSeconds(1), Duration.ofHours(1), meterRegistry);
+        dataSource.afterPropertiesSet();
+    }
+
+    // Copies the primary's heartbeats to the replica, as replication would, then lets the routing notice.
+    private void replicate() {
+        for (Map<String, Object> heartbeat : primary.queryForList("SELECT instance_id, beat_at FROM replica_heartbeats")) {
+            replica.update("MERGE INTO replica_heartbeats KEY (instance_id) VALUES (?, ?)", heartbeat.get("instance_id"), heartbeat.get("beat_at"));
+        }
+        dataSource.checkReplicas();
+    }
+
+    private String readOnly(long changedSince) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(status -> {
+            ReplicaReads.allow(changedSince);
+            return marker();
+        });
+    }
+
+    private String marker() {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private static JdbcDataSource h2(String url) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL(url);
+        return h2;
+    }
+
+}
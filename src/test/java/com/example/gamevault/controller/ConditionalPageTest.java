@@ -0,0 +1,102 @@
+package com.example.gamevault.controller;
+
+import com.example.gamevault.model.Credits;
+import com.example.gamevault.model.Gamer;
+import com.example.gamevault.model.VideoGame;
+import com.example.gamevault.repository.GamerRepository;
+import com.example.gamevault.repository.VideoGameRepository;
+import com.example.gamevault.service.PurchaseOrchestrator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Its own database, since this context's pooled id blocks would otherwise overlap those of the shared test context.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:gamevault-conditional;MODE=MySQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalPageTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PurchaseOrchestrator purchaseOrchestrator;
+
+    @Autowired
+    private GamerRepository gamerRepository;
+
+    @Autowired
+    private VideoGameRepository videoGameRepository;
+
+    @Test
+    @WithUserDetails("samtan95")
+    void historyPage_isNotModifiedUntilGamerTransacts() throws Throwable {
+        String etag = etagOf("/gamer/purchases");
+
+        mockMvc.perform(get("/gamer/purchases").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        purchaseOrchestrator.buy(gamer("samtan95"), newVideoGame().getId(), 1);
+
+        mockMvc.perform(get("/gamer/purchases").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        assertNotEquals(etag, etagOf("/gamer/purchases"));
+    }
+
+    @Test
+    @WithUserDetails("samtan95")
+    void homePage_isNotModifiedUntilCatalogChanges() throws Throwable {
+        String etag = etagOf("/gamer/home");
+
+        mockMvc.perform(get("/gamer/home").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        purchaseOrchestrator.buy(gamer("alihassan1"), newVideoGame().getId(), 1);
+
+        mockMvc.perform(get("/gamer/home").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithUserDetails("samtan95")
+    void pageWithFlashMessage_isNeverCached() throws Exception {
+        String etag = etagOf("/gamer/home");
+
+        mockMvc.perform(get("/gamer/home").flashAttr("success", "Successful purchase.").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"));
+    }
+
+    private String etagOf(String path) throws Exception {
+        String etag = mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertFalse(etag.startsWith("W/"));
+        return etag;
+    }
+
+    private Gamer gamer(String username) {
+        return (Gamer) gamerRepository.findByUsername(username).orElseThrow();
+    }
+
+    private VideoGame newVideoGame() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        return videoGameRepository.save(new VideoGame("Conditional Title " + suffix, "Conditional Creator", 10, Credits.of(1)));
+    }
+
+}
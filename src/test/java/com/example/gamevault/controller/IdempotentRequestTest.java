@@ -0,0 +1,95 @@
+package com.example.gamevault.controller;
+
+import com.example.gamevault.model.Credits;
+import com.example.gamevault.model.Gamer;
+import com.example.gamevault.model.VideoGame;
+import com.example.gamevault.repository.GamerRepository;
+import com.example.gamevault.repository.VideoGameRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Its own database, since this context's pooled id blocks would otherwise overlap those of the shared test context.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:gamevault-idempotent;MODE=MySQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IdempotentRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private GamerRepository gamerRepository;
+
+    @Autowired
+    private VideoGameRepository videoGameRepository;
+
+    @Test
+    @WithUserDetails("samtan95")
+    void buyVideoGame_repeatedKeyChargesOnce() throws Exception {
+        VideoGame videoGame = newVideoGame();
+        long creditsBefore = gamer().getTotalCredits();
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/gamer/buy")
+                            .param("gameId", String.valueOf(videoGame.getId()))
+                            .param("quantity", "1")
+                            .param("idempotencyKey", idempotencyKey))
+                    .andExpect(status().is3xxRedirection())
+                    .andExpect(flash().attribute("success", "Successful purchase."));
+        }
+
+        assertEquals(creditsBefore - Credits.of(1), gamer().getTotalCredits());
+        assertEquals(9, videoGameRepository.findById(videoGame.getId()).orElseThrow().getQuantity());
+
+        mockMvc.perform(post("/gamer/buy")
+                        .param("gameId", String.valueOf(videoGame.getId()))
+                        .param("quantity", "1")
+                        .header("Idempotency-Key", UUID.randomUUID().toString()))
+                .andExpect(flash().attribute("success", "Successful purchase."));
+        assertEquals(8, videoGameRepository.findById(videoGame.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @WithUserDetails("samtan95")
+    void buyVideoGame_keyReusedForOtherQuantityIsRefused() throws Exception {
+        VideoGame videoGame = newVideoGame();
+        String idempotencyKey = UUID.randomUUID().toString();
+        mockMvc.perform(post("/gamer/buy")
+                        .param("gameId", String.valueOf(videoGame.getId()))
+                        .param("quantity", "1")
+                        .param("idempotencyKey", idempotencyKey))
+                .andExpect(flash().attribute("success", "Successful purchase."));
+
+        mockMvc.perform(post("/gamer/buy")
+                        .param("gameId", String.valueOf(videoGame.getId()))
+                        .param("quantity", "3")
+                        .param("idempotencyKey", idempotencyKey))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(flash().attributeExists("error"));
+
+        assertEquals(9, videoGameRepository.findById(videoGame.getId()).orElseThrow().getQuantity());
+    }
+
+    private Gamer gamer() {
+        return (Gamer) gamerRepository.findByUsername("samtan95").orElseThrow();
+    }
+
+    private VideoGame newVideoGame() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        return videoGameRepository.save(new VideoGame("Idempotent Title " + suffix, "Idempotent Creator", 10, Credits.of(1)));
+    }
+
+}
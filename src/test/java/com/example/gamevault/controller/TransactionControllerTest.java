@@ -2,20 +2,30 @@ package com.example.gamevault.controller;
 
 import com.example.gamevault.exception.InsufficientCreditsForTransactionException;
 import com.example.gamevault.exception.InsufficientVideoGameQuantityException;
+import com.example.gamevault.exception.PurchaseQueueFullException;
+import com.example.gamevault.exception.ReservationTransactionNotFoundException;
 import com.example.gamevault.model.Gamer;
 import com.example.gamevault.model.Purchase;
 import com.example.gamevault.model.Reservation;
 import com.example.gamevault.model.VideoGame;
 import com.example.gamevault.service.GamerService;
+import com.example.gamevault.service.IdempotencyService;
+import com.example.gamevault.service.PurchaseAdmissionService;
+import com.example.gamevault.service.PurchaseOrchestrator;
+import com.example.gamevault.service.RequestOutcome;
+import com.example.gamevault.service.TransactionHistoryPage;
 import com.example.gamevault.service.TransactionService;
-import com.example.gamevault.service.VideoGameService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.ui.Model;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.util.List;
+import java.util.function.Supplier;
+
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -24,15 +34,24 @@ class TransactionControllerTest {
     @Mock
     private GamerService gamerService;
 
+    @Mock
+    private PurchaseOrchestrator purchaseOrchestrator;
+
     @Mock
     private TransactionService transactionService;
 
     @Mock
-    private VideoGameService videoGameService;
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private PurchaseAdmissionService purchaseAdmissionService;
 
     @Mock
     private RedirectAttributes redirectAttributes;
 
+    @Mock
+    private Model model;
+
     @InjectMocks
     private TransactionController transactionController;
 
@@ -41,31 +60,33 @@ class TransactionControllerTest {
     private VideoGame videoGame2;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws Throwable {
         MockitoAnnotations.openMocks(this);
         gamer = new Gamer("Syed Ali", "syedali123", "syedAli@gmail.com", "MMMaaa12");
         videoGame1 = new VideoGame("FIFA 20", "EA Sports", 4, 20);
         videoGame2 = new VideoGame("FIFA Street", "EA Sports", 2, 200);
+        when(transactionService.getReservationHistory(anyLong(), any())).thenReturn(new TransactionHistoryPage<>(List.of(), null));
+        when(idempotencyService.execute(anyLong(), anyString(), any(), any(), any())).thenAnswer(invocation -> invocation.<Supplier<RequestOutcome>>getArgument(4).get());
+        when(purchaseAdmissionService.admit(anyLong(), any())).thenAnswer(invocation -> invocation.<PurchaseAdmissionService.AdmittedPurchase<?>>getArgument(1).run());
     }
 
     @Test
-    void buyVideoGame_unsuccessfulDueToInsufficientQuantity() throws InsufficientVideoGameQuantityException {
+    void buyVideoGame_unsuccessfulDueToInsufficientQuantity() throws InsufficientVideoGameQuantityException, InsufficientCreditsForTransactionException {
         int quantity = 15;
         when(gamerService.getCurrentGamer()).thenReturn(gamer);
-        when(videoGameService.getVideoGame(1L)).thenReturn(videoGame1);
-        when(videoGameService.hasSufficientQuantityForTransaction(videoGame1, quantity)).thenThrow(InsufficientVideoGameQuantityException.class);
-        String result = transactionController.buyVideoGame(1L, quantity, redirectAttributes);
+        when(purchaseOrchestrator.buy(gamer, 1L, quantity)).thenThrow(InsufficientVideoGameQuantityException.class);
+        String result = transactionController.buyVideoGame(1L, quantity, null, null, redirectAttributes);
         verify(redirectAttributes).addFlashAttribute("error", "Unsuccessful purchase - Insufficient video games available.");
         assertEquals("redirect:/gamer/home", result);
     }
 
     @Test
-    void buyVideoGame_unsuccessfulDueToInsufficientCredits() throws InsufficientCreditsForTransactionException {
+    void buyVideoGame_unsuccessfulDueToInsufficientCredits() throws InsufficientVideoGameQuantityException, InsufficientCreditsForTransactionException {
         int quantity = 1;
         when(gamerService.getCurrentGamer()).thenReturn(gamer);
-        when(videoGameService.getVideoGame(2L)).thenReturn(videoGame2);
-        when(gamerService.canAffordTransaction(gamer, videoGame2, quantity, "purchase")).thenThrow(InsufficientCreditsForTransactionException.class);
-        String result = transactionController.buyVideoGame(2L, quantity, redirectAttributes);
+        when(purchaseOrchestrator.buy(gamer, 2L, quantity)).thenThrow(InsufficientCreditsForTransactionException.class);
+        String result = transactionController.buyVideoGame(2L, quantity, null, null, redirectAttributes);
+        verify(redirectAttributes).addFlashAttribute("error", "Unsuccessful purchase - Insufficient credits to purchase video games in quantity specified.");
         assertEquals("redirect:/gamer/home", result);
     }
 
@@ -75,44 +96,43 @@ class TransactionControllerTest {
         Purchase purchase = new Purchase(videoGame2.getTitle(), videoGame2.getCreator(), 1, videoGame2.getCredits(), gamer);
 
         when(gamerService.getCurrentGamer()).thenReturn(gamer);
-        when(videoGameService.getVideoGame(2L)).thenReturn(videoGame2);
-        when(videoGameService.hasSufficientQuantityForTransaction(videoGame2, quantity)).thenReturn(true);
-        when(gamerService.canAffordTransaction(gamer, videoGame2, quantity, "purchase")).thenReturn(true);
-        when(transactionService.createPurchaseTransaction(gamer, videoGame2, quantity)).thenReturn(purchase);
-        doNothing().when(videoGameService).updateVideoGameQuantity(videoGame2, quantity, "purchase");
-        doNothing().when(gamerService).deductCredits(gamer, videoGame2, quantity, "purchase");
-
-        String result = transactionController.buyVideoGame(2L, quantity, redirectAttributes);
+        when(purchaseOrchestrator.buy(gamer, 2L, quantity)).thenReturn(purchase);
+
+        String result = transactionController.buyVideoGame(2L, quantity, null, null, redirectAttributes);
         verify(gamerService).getCurrentGamer();
-        verify(videoGameService).getVideoGame(2L);
-        verify(videoGameService).hasSufficientQuantityForTransaction(videoGame2, quantity);
-        verify(gamerService).canAffordTransaction(gamer, videoGame2, quantity, "purchase");
-        verify(videoGameService).updateVideoGameQuantity(videoGame2, quantity, "purchase");
-        verify(transactionService).createPurchaseTransaction(gamer, videoGame2, quantity);
-        verify(gamerService).deductCredits(gamer, videoGame2, quantity, "purchase");
-        verify(gamerService).addPurchaseTransactionForGamer(gamer, purchase);
+        verify(purchaseOrchestrator).buy(gamer, 2L, quantity);
         verify(redirectAttributes).addFlashAttribute("success", "Successful purchase.");
         assertEquals("redirect:/gamer/home", result);
     }
 
     @Test
-    void reserveVideoGame_unsuccessfulDueToInsufficientQuantity() throws InsufficientVideoGameQuantityException {
+    void buyVideoGame_unsuccessfulDueToFullQueue() throws Throwable {
+        int quantity = 1;
+        when(gamerService.getCurrentGamer()).thenReturn(gamer);
+        doThrow(PurchaseQueueFullException.class).when(purchaseAdmissionService).admit(eq(2L), any());
+        String result = transactionController.buyVideoGame(2L, quantity, null, null, redirectAttributes);
+        verify(purchaseOrchestrator, never()).buy(any(), anyLong(), anyInt());
+        verify(redirectAttributes).addFlashAttribute("error", "Too many orders for this video game right now. Please try again shortly.");
+        assertEquals("redirect:/gamer/home", result);
+    }
+
+    @Test
+    void reserveVideoGame_unsuccessfulDueToInsufficientQuantity() throws InsufficientVideoGameQuantityException, InsufficientCreditsForTransactionException {
         int quantity = 15;
         when(gamerService.getCurrentGamer()).thenReturn(gamer);
-        when(videoGameService.getVideoGame(1L)).thenReturn(videoGame1);
-        when(videoGameService.hasSufficientQuantityForTransaction(videoGame1, quantity)).thenThrow(InsufficientVideoGameQuantityException.class);
-        String result = transactionController.reserveVideoGame(1L, quantity, redirectAttributes);
+        when(purchaseOrchestrator.reserve(gamer, 1L, quantity)).thenThrow(InsufficientVideoGameQuantityException.class);
+        String result = transactionController.reserveVideoGame(1L, quantity, null, null, redirectAttributes);
         verify(redirectAttributes).addFlashAttribute("error", "Unsuccessful purchase - Insufficient video games available.");
         assertEquals("redirect:/gamer/home", result);
     }
 
     @Test
-    void reserveVideoGame_unsuccessfulDueToInsufficientCredits() throws InsufficientCreditsForTransactionException {
+    void reserveVideoGame_unsuccessfulDueToInsufficientCredits() throws InsufficientVideoGameQuantityException, InsufficientCreditsForTransactionException {
         int quantity = 1;
         when(gamerService.getCurrentGamer()).thenReturn(gamer);
-        when(videoGameService.getVideoGame(2L)).thenReturn(videoGame2);
-        when(gamerService.canAffordTransaction(gamer, videoGame2, quantity, "purchase")).thenThrow(InsufficientCreditsForTransactionException.class);
-        String result = transactionController.reserveVideoGame(2L, quantity, redirectAttributes);
+        when(purchaseOrchestrator.reserve(gamer, 2L, quantity)).thenThrow(InsufficientCreditsForTransactionException.class);
+        String result = transactionController.reserveVideoGame(2L, quantity, null, null, redirectAttributes);
+        verify(redirectAttributes).addFlashAttribute("error", "Unsuccessful purchase - Insufficient credits to purchase video games in quantity specified.");
         assertEquals("redirect:/gamer/home", result);
     }
 
@@ -122,24 +142,31 @@ class TransactionControllerTest {
         Reservation reservation = new Reservation(videoGame2.getTitle(), videoGame2.getCreator(), 1, videoGame2.getCredits(), gamer);
 
         when(gamerService.getCurrentGamer()).thenReturn(gamer);
-        when(videoGameService.getVideoGame(2L)).thenReturn(videoGame2);
-        when(videoGameService.hasSufficientQuantityForTransaction(videoGame2, quantity)).thenReturn(true);
-        when(gamerService.canAffordTransaction(gamer, videoGame2, quantity, "purchase")).thenReturn(true);
-        when(transactionService.createReservationTransaction(gamer, videoGame2, quantity)).thenReturn(reservation);
-        doNothing().when(videoGameService).updateVideoGameQuantity(videoGame2, quantity, "reservation");
-        doNothing().when(gamerService).deductCredits(gamer, videoGame2, quantity, "reservation");
-
-        String result = transactionController.reserveVideoGame(2L, quantity, redirectAttributes);
+        when(purchaseOrchestrator.reserve(gamer, 2L, quantity)).thenReturn(reservation);
+
+        String result = transactionController.reserveVideoGame(2L, quantity, null, null, redirectAttributes);
         verify(gamerService).getCurrentGamer();
-        verify(videoGameService).getVideoGame(2L);
-        verify(videoGameService).hasSufficientQuantityForTransaction(videoGame2, quantity);
-        verify(gamerService).canAffordTransaction(gamer, videoGame2, quantity, "reservation");
-        verify(videoGameService).updateVideoGameQuantity(videoGame2, quantity, "reservation");
-        verify(transactionService).createReservationTransaction(gamer, videoGame2, quantity);
-        verify(gamerService).deductCredits(gamer, videoGame2, quantity, "reservation");
-        verify(gamerService).addReservationTransactionForGamer(gamer, reservation);
+        verify(purchaseOrchestrator).reserve(gamer, 2L, quantity);
         verify(redirectAttributes).addFlashAttribute("success", "Successful reservation.");
         assertEquals("redirect:/gamer/home", result);
     }
 
+    @Test
+    void cancelReservation_unsuccessfulDueToMissingReservation() throws ReservationTransactionNotFoundException {
+        when(gamerService.getCurrentGamer()).thenReturn(gamer);
+        when(purchaseOrchestrator.cancelReservation(gamer, 3L)).thenThrow(ReservationTransactionNotFoundException.class);
+        String result = transactionController.cancelReservation(3L, null, null, model);
+        verify(model).addAttribute("error", "Order to cancel cannot be found.");
+        assertEquals("gamer-reservations", result);
+    }
+
+    @Test
+    void completePurchaseOfReservation_unsuccessfulDueToInsufficientCredits() throws ReservationTransactionNotFoundException, InsufficientCreditsForTransactionException {
+        when(gamerService.getCurrentGamer()).thenReturn(gamer);
+        when(purchaseOrchestrator.completeReservation(gamer, 3L)).thenThrow(InsufficientCreditsForTransactionException.class);
+        String result = transactionController.completePurchaseOfReservation(3L, model);
+        verify(model).addAttribute("error", "Unsuccessful purchase - Insufficient funds for payment of total payable credits.");
+        assertEquals("gamer-reservations", result);
+    }
+
 }
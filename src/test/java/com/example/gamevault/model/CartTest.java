@@ -0,0 +1,36 @@
+package com.example.gamevault.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartTest {
+
+    @Test
+    void add_mergesQuantitiesOfTheSameVideoGame() {
+        Cart cart = new Cart();
+
+        cart.add(2L, 1);
+        cart.add(1L, 2);
+        cart.add(2L, 3);
+
+        assertEquals(Map.of(2L, 4, 1L, 2), cart.getQuantities());
+        assertEquals(2L, cart.getQuantities().keySet().iterator().next());
+        assertThrows(IllegalArgumentException.class, () -> cart.add(3L, 0));
+    }
+
+    @Test
+    void add_refusesNewVideoGamesOnceFull() {
+        Cart cart = new Cart();
+        for (long id = 1; id <= Cart.MAX_LINE_ITEMS; id++) {
+            assertTrue(cart.add(id, 1));
+        }
+
+        assertFalse(cart.add(Cart.MAX_LINE_ITEMS + 1, 1));
+        assertTrue(cart.add(1L, 1));
+        assertEquals(2, cart.getQuantities().get(1L));
+    }
+
+}
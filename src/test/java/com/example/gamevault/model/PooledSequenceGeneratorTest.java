@@ -0,0 +1,36 @@
+package com.example.gamevault.model;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.PooledOptimizer;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PooledSequenceGeneratorTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void pooledSequence_configuresGeneratorFromAnnotationAndSettings() {
+        assertSequence(Gamer.class, "person_seq");
+        assertSequence(Purchase.class, "transaction_seq");
+    }
+
+    private void assertSequence(Class<?> entityClass, String sequenceName) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        SequenceStyleGenerator generator = assertInstanceOf(PooledSequenceGenerator.class,
+                sessionFactory.getMappingMetamodel().getEntityDescriptor(entityClass).getGenerator());
+        assertEquals(sequenceName, generator.getDatabaseStructure().getPhysicalName().getObjectName().getText());
+        assertInstanceOf(PooledOptimizer.class, generator.getOptimizer());
+        assertEquals(50, generator.getOptimizer().getIncrementSize());
+    }
+
+}
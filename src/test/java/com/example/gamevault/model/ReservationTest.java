@@ -0,0 +1,34 @@
+package com.example.gamevault.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReservationTest {
+
+    @Test
+    void createReservationTransaction_splitsCostIntoDepositAndBalance() {
+        Gamer gamer = new Gamer("Ali Hassan", "alihassan", "ali_hassan@gmail.com", "QQaa123!");
+        Reservation reservation = new Reservation("FIFA 19", "EA Sports", 3, 3333, gamer);
+        assertEquals(3333, reservation.getCost());
+        assertEquals(667, reservation.getCreditsPaid());
+        assertEquals(2666, reservation.getCreditsToPay());
+        assertEquals(reservation.getCost(), reservation.getCreditsPaid() + reservation.getCreditsToPay());
+    }
+
+    @Test
+    void createReservationTransaction_expiresHoldDurationAfterReservation() {
+        Gamer gamer = new Gamer("Ali Hassan", "alihassan", "ali_hassan@gmail.com", "QQaa123!");
+        Reservation reservation = new Reservation("FIFA 19", "EA Sports", 3, 3333, gamer);
+        assertEquals(reservation.getTransactionTime().plus(Duration.ofHours(48)), reservation.getExpiresAt());
+    }
+
+    @Test
+    void createGamer_startsWithDefaultCredits() {
+        Gamer gamer = new Gamer("Ali Hassan", "alihassan", "ali_hassan@gmail.com", "QQaa123!");
+        assertEquals(Credits.of(100), gamer.getTotalCredits());
+    }
+
+}
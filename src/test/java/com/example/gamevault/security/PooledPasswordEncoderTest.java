@@ -0,0 +1,69 @@
+package com.example.gamevault.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PooledPasswordEncoder pooledPasswordEncoder;
+
+    @AfterEach
+    void tearDown() {
+        pooledPasswordEncoder.destroy();
+    }
+
+    @Test
+    void encodeAndMatches_delegateToWrappedEncoderAndRecordLatency() {
+        pooledPasswordEncoder = new PooledPasswordEncoder(new BCryptPasswordEncoder(4), 2, 4, meterRegistry);
+
+        String encodedPassword = pooledPasswordEncoder.encode("Password123");
+
+        assertTrue(pooledPasswordEncoder.matches("Password123", encodedPassword));
+        assertFalse(pooledPasswordEncoder.matches("Password124", encodedPassword));
+        assertEquals(2, meterRegistry.get("gamevault.password.hashing").tag("operation", "matches").timer().count());
+        assertNotNull(meterRegistry.find("executor.queued").tag("name", "passwordHashing").gauge());
+    }
+
+    @Test
+    void matches_rejectedOnceThreadsAndQueueAreFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blockingEncoder = new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        pooledPasswordEncoder = new PooledPasswordEncoder(blockingEncoder, 1, 1, meterRegistry);
+
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> pooledPasswordEncoder.matches("a", "b"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> pooledPasswordEncoder.matches("a", "b"));
+        while (meterRegistry.get("executor.queued").tag("name", "passwordHashing").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        assertThrows(AuthenticationServiceException.class, () -> pooledPasswordEncoder.matches("a", "b"));
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.example.gamevault.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLogTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final ListAppender<ILoggingEvent> warningAppender = new ListAppender<>();
+    private final Logger auditLogger = (Logger) LoggerFactory.getLogger("gamevault.audit");
+    private final Logger auditLogLogger = (Logger) LoggerFactory.getLogger(AuditLog.class);
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        auditLogger.addAppender(appender);
+        warningAppender.start();
+        auditLogLogger.addAppender(warningAppender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        auditLogger.detachAppender(appender);
+        auditLogLogger.detachAppender(warningAppender);
+    }
+
+    @Test
+    void record_writesKeyValueLineOffCallerThread() throws InterruptedException {
+        AuditLog auditLog = new AuditLog(16, 10_000, meterRegistry);
+        auditLog.start();
+
+        auditLog.record(AuditEventType.PURCHASE_CREATED, 7, 42, 2, 3000, "Title");
+        auditLog.stop();
+
+        assertEquals(1, appender.list.size());
+        String line = appender.list.get(0).getFormattedMessage();
+        assertTrue(line.startsWith("type=PURCHASE_CREATED timestamp="));
+        assertTrue(line.endsWith(" gamerId=7 targetId=42 quantity=2 credits=3000 detail=\"Title\""));
+        assertEquals("audit-log-writer", appender.list.get(0).getThreadName());
+    }
+
+    @Test
+    void record_dropsEventsOnceEverySlotIsInUse() throws InterruptedException {
+        AuditLog auditLog = new AuditLog(2, 60_000, meterRegistry);
+
+        for (int i = 0; i < 5; i++) {
+            auditLog.record(AuditEventType.CREDITS_DEBITED, i, AuditEvent.NONE, AuditEvent.NONE, 100);
+        }
+        auditLog.start();
+        auditLog.stop();
+
+        assertEquals(2, appender.list.size());
+        assertEquals(3, meterRegistry.get("gamevault.audit.events").tag("result", "dropped").counter().count());
+        assertFalse(appender.list.get(0).getFormattedMessage().contains("targetId"));
+        // Warned of the first drop at once, and of the later ones only once the interval has passed.
+        List<ILoggingEvent> warnings = warningAppender.list.stream().filter(event -> event.getLevel() == Level.WARN).toList();
+        assertEquals(1, warnings.size());
+        assertEquals("Dropped 1 audit events since the last warning, with all 2 slots in use.", warnings.get(0).getFormattedMessage());
+    }
+
+    @Test
+    void record_warnsOfEveryDropSinceTheLastWarning() throws InterruptedException {
+        AuditLog auditLog = new AuditLog(1, 0, meterRegistry);
+
+        for (int i = 0; i < 3; i++) {
+            auditLog.record(AuditEventType.CREDITS_DEBITED, i, AuditEvent.NONE, AuditEvent.NONE, 100);
+        }
+
+        List<String> warnings = warningAppender.list.stream().filter(event -> event.getLevel() == Level.WARN).map(ILoggingEvent::getFormattedMessage).toList();
+        assertEquals(List.of("Dropped 1 audit events since the last warning, with all 1 slots in use.",
+                "Dropped 1 audit events since the last warning, with all 1 slots in use."), warnings);
+    }
+
+}
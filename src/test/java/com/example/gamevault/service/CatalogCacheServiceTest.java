@@ -0,0 +1,178 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.exception.InsufficientCreditsForTransactionException;
+import com.example.gamevault.model.CatalogItem;
+import com.example.gamevault.model.Credits;
+import com.example.gamevault.model.Gamer;
+import com.example.gamevault.model.VideoGame;
+import com.example.gamevault.repository.GamerRepository;
+import com.example.gamevault.repository.VideoGameRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CatalogCacheServiceTest {
+
+    @Autowired
+    private CatalogCacheService catalogCacheService;
+
+    @Autowired
+    private PurchaseOrchestrator purchaseOrchestrator;
+
+    @Autowired
+    private GamerRepository gamerRepository;
+
+    @Autowired
+    private VideoGameRepository videoGameRepository;
+
+    private Gamer gamer;
+    private VideoGame videoGame;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        gamer = gamerRepository.save(new Gamer("Catalog Gamer", "gamer" + suffix, suffix + "@gmail.com", "password"));
+        videoGame = videoGameRepository.save(new VideoGame("Catalog Title " + suffix, "Catalog Creator", 10, Credits.of(15)));
+        catalogCacheService.refresh();
+    }
+
+    @Test
+    void getSnapshot_repeatedReadsReturnPublishedSnapshot() {
+        CatalogSnapshot snapshot = catalogCacheService.getSnapshot();
+
+        assertSame(snapshot, catalogCacheService.getSnapshot());
+        assertEquals(10, snapshot.findById(videoGame.getId()).map(CatalogItem::getQuantity).orElseThrow());
+    }
+
+    @Test
+    void buy_appliesCommittedStockChangeToNewSnapshotVersion() throws Throwable {
+        CatalogSnapshot before = catalogCacheService.getSnapshot();
+
+        purchaseOrchestrator.buy(gamer, videoGame.getId(), 3);
+
+        CatalogSnapshot after = catalogCacheService.getSnapshot();
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(7, after.findById(videoGame.getId()).map(CatalogItem::getQuantity).orElseThrow());
+        assertEquals(10, before.findById(videoGame.getId()).map(CatalogItem::getQuantity).orElseThrow());
+    }
+
+    @Test
+    void buy_rolledBackLeavesSnapshotUnchanged() {
+        CatalogSnapshot before = catalogCacheService.getSnapshot();
+        gamer.setTotalCredits(Credits.of(1000));
+
+        assertThrows(InsufficientCreditsForTransactionException.class, () -> purchaseOrchestrator.buy(gamer, videoGame.getId(), 10));
+
+        assertSame(before, catalogCacheService.getSnapshot());
+    }
+
+    @Test
+    void cancelReservation_ofRemovedTitleReloadsSnapshotWithNewVideoGame() throws Throwable {
+        var reservation = purchaseOrchestrator.reserve(gamer, videoGame.getId(), 2);
+        long versionBefore = catalogCacheService.getVersion();
+        videoGameRepository.delete(videoGameRepository.findById(videoGame.getId()).orElseThrow());
+
+        purchaseOrchestrator.cancelReservation(gamer, reservation.getId());
+
+        CatalogSnapshot after = catalogCacheService.getSnapshot();
+        assertTrue(after.getVersion() > versionBefore);
+        assertTrue(after.getItems().stream().anyMatch(item -> item.getTitle().equals(videoGame.getTitle()) && item.getQuantity() == 2));
+    }
+
+    @Test
+    void refresh_keepsChangeCommittedBeforeReadButAppliedAfterwardsOnce() {
+        AtomicInteger stock = new AtomicInteger(10);
+        CatalogCacheService cache = cacheOver(stock);
+        cache.refresh();
+        VideoGameChangedEvent purchase = new VideoGameChangedEvent(1L, null, -3, false);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.onVideoGameChanging(purchase);
+            stock.addAndGet(-3);
+            cache.refresh();
+            cache.onVideoGameChanged(purchase);
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(7, quantity(cache));
+        cache.refresh();
+        assertEquals(7, quantity(cache));
+    }
+
+    @Test
+    void refresh_keepsChangeAppliedWhileReading() {
+        AtomicInteger stock = new AtomicInteger(10);
+        InterleavingCache cache = (InterleavingCache) cacheOver(stock);
+        cache.refresh();
+        VideoGameChangedEvent purchase = new VideoGameChangedEvent(1L, null, -3, false);
+        Runnable purchaseDuringRead = () -> {
+            stock.addAndGet(-3);
+            cache.onVideoGameChanging(purchase);
+            cache.onVideoGameChanged(purchase);
+        };
+
+        cache.refresh(purchaseDuringRead);
+
+        assertEquals(7, quantity(cache));
+    }
+
+    // A catalogue of one video game with id 1, whose stock is read from the given counter.
+    private static CatalogCacheService cacheOver(AtomicInteger stock) {
+        return cacheOver(stock, new Runnable[1]);
+    }
+
+    private static CatalogCacheService cacheOver(AtomicInteger stock, Runnable[] afterRead) {
+        VideoGameRepository repository = mock(VideoGameRepository.class);
+        when(repository.findAll()).thenAnswer(invocation -> {
+            VideoGame videoGame = new VideoGame("Interleaved Title", "Interleaved Creator", stock.get(), Credits.of(1));
+            ReflectionTestUtils.setField(videoGame, "id", 1L);
+            if (afterRead[0] != null) {
+                afterRead[0].run();
+                afterRead[0] = null;
+            }
+            return List.of(videoGame);
+        });
+        return new InterleavingCache(repository, afterRead);
+    }
+
+    private static int quantity(CatalogCacheService cache) {
+        return cache.getSnapshot().findById(1L).map(CatalogItem::getQuantity).orElseThrow();
+    }
+
+    // Runs an action once the next reload has read the database but before it publishes the snapshot.
+    private static class InterleavingCache extends CatalogCacheService {
+        private final Runnable[] afterRead;
+
+        InterleavingCache(VideoGameRepository repository, Runnable[] afterRead) {
+            super(repository, mock(ShardedStockService.class), mock(ApplicationEventPublisher.class), mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+            this.afterRead = afterRead;
+        }
+
+        void refresh(Runnable action) {
+            afterRead[0] = action;
+            refresh();
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.CatalogItem;
+import com.example.gamevault.model.Credits;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogFilterIndexTest {
+
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = CatalogSnapshot.of(1, List.of(
+                new CatalogItem(1, "FIFA 20", "EA Sports", 15, Credits.of(20)),
+                new CatalogItem(2, "Pro Evolution Soccer 2019", "Konami", 12, Credits.of(10)),
+                new CatalogItem(3, "Spider-man 2", "Treyarch", 0, Credits.of(4)),
+                new CatalogItem(4, "WWE 2K23", "Visual Concepts", 1, Credits.of(10)),
+                new CatalogItem(5, "FIFA 21", "EA Sports", 3, Credits.of(25)),
+                new CatalogItem(6, "Madden 24", "EA Sports", 0, Credits.of(30))));
+    }
+
+    @Test
+    void filter_combinesCreatorCreditsAndAvailability() {
+        CatalogPage page = snapshot.filter(new CatalogFilter(Set.of("EA Sports", "Konami"), Credits.of(10), Credits.of(25), true, null, null, 0, 10));
+
+        assertEquals(List.of(1L, 5L, 2L), ids(page));
+        assertEquals(3, page.totalMatches());
+        assertEquals(3, page.availableMatches());
+    }
+
+    @Test
+    void filter_countsEachFacetWithoutItsOwnCriterion() {
+        CatalogPage page = snapshot.filter(new CatalogFilter(Set.of("Konami"), null, Credits.of(20), true, null, null, 0, 10));
+
+        assertEquals(List.of(2L), ids(page));
+        assertEquals(Map.of("EA Sports", 1, "Konami", 1, "Treyarch", 0, "Visual Concepts", 1), page.creatorCounts());
+
+        CatalogPage withSoldOut = snapshot.filter(new CatalogFilter(Set.of("EA Sports"), null, null, false, null, null, 0, 10));
+        assertEquals(List.of(1L, 5L, 6L), ids(withSoldOut));
+        assertEquals(2, withSoldOut.availableMatches());
+    }
+
+    @Test
+    void filter_pagesAfterCursor() {
+        CatalogPage firstPage = snapshot.filter(new CatalogFilter(Set.of(), null, null, false, null, null, 0, 4));
+        CatalogPage secondPage = snapshot.filter(new CatalogFilter(Set.of(), null, null, false, null, firstPage.nextCursor(), 0, 4));
+
+        assertEquals(List.of(1L, 5L, 6L, 2L), ids(firstPage));
+        assertEquals(2L, firstPage.nextCursor());
+        assertEquals(List.of(3L, 4L), ids(secondPage));
+        assertNull(secondPage.nextCursor());
+        assertEquals(ids(secondPage), ids(snapshot.filter(new CatalogFilter(Set.of(), null, null, false, null, null, 1, 4))));
+    }
+
+    @Test
+    void filter_sortsByCreditsAndQuantity() {
+        CatalogSort creditsDescending = new CatalogSort(CatalogSort.Property.CREDITS, true);
+        CatalogPage mostExpensive = snapshot.filter(new CatalogFilter(Set.of(), null, null, false, creditsDescending, null, 0, 3));
+        CatalogPage cheaper = snapshot.filter(new CatalogFilter(Set.of(), null, null, false, creditsDescending, mostExpensive.nextCursor(), 0, 3));
+
+        assertEquals(List.of(6L, 5L, 1L), ids(mostExpensive));
+        assertEquals(List.of(4L, 2L, 3L), ids(cheaper));
+
+        CatalogSort quantity = new CatalogSort(CatalogSort.Property.QUANTITY, false);
+        CatalogPage fewest = snapshot.filter(new CatalogFilter(Set.of(), null, null, true, quantity, null, 0, 2));
+        CatalogPage most = snapshot.filter(new CatalogFilter(Set.of(), null, null, true, quantity, fewest.nextCursor(), 0, 2));
+
+        assertEquals(List.of(4L, 5L), ids(fewest));
+        assertEquals(List.of(2L, 1L), ids(most));
+        assertNull(most.nextCursor());
+    }
+
+    @Test
+    void filter_returnsEmptyPageBeyondLastMatchWithoutSizingByPageNumber() {
+        for (CatalogSort sort : List.of(CatalogSort.DEFAULT, new CatalogSort(CatalogSort.Property.QUANTITY, true))) {
+            assertEquals(List.of(), ids(snapshot.filter(new CatalogFilter(Set.of(), null, null, false, sort, null, 10_000_000, 100))));
+            assertEquals(List.of(), ids(snapshot.filter(new CatalogFilter(Set.of(), null, null, false, sort, null, Integer.MAX_VALUE, 100))));
+            assertEquals(List.of(), ids(snapshot.filter(new CatalogFilter(Set.of(), null, null, false, sort, null, 3, 2))));
+        }
+    }
+
+    @Test
+    void filter_selectsLaterQuantityPagesFromTheEnd() {
+        CatalogSort quantity = new CatalogSort(CatalogSort.Property.QUANTITY, false);
+
+        assertEquals(List.of(3L, 6L), ids(snapshot.filter(new CatalogFilter(Set.of(), null, null, false, quantity, null, 0, 2))));
+        assertEquals(List.of(4L, 5L), ids(snapshot.filter(new CatalogFilter(Set.of(), null, null, false, quantity, null, 1, 2))));
+        CatalogPage last = snapshot.filter(new CatalogFilter(Set.of(), null, null, false, quantity, null, 2, 2));
+        assertEquals(List.of(2L, 1L), ids(last));
+        assertNull(last.nextCursor());
+        assertEquals(List.of(5L, 2L, 1L), ids(snapshot.filter(new CatalogFilter(Set.of(), null, null, false, quantity, null, 1, 3))));
+    }
+
+    @Test
+    void catalogSort_readsFirstPageableOrder() {
+        assertEquals(new CatalogSort(CatalogSort.Property.CREDITS, true), CatalogSort.of(Sort.by(Sort.Order.desc("credits"))));
+        assertEquals(CatalogSort.DEFAULT, CatalogSort.of(Sort.by("unknown")));
+        assertEquals("quantity,asc", new CatalogSort(CatalogSort.Property.QUANTITY, false).parameter());
+    }
+
+    @Test
+    void withQuantityDelta_updatesAvailabilityOnlyWhenStockCrossesZero() {
+        CatalogFilter inStock = new CatalogFilter(Set.of(), null, null, true, null, null, 0, 10);
+
+        CatalogSnapshot restocked = snapshot.withQuantityDelta(3L, null, 2);
+        CatalogSnapshot soldOut = restocked.withQuantityDelta(4L, null, -1);
+
+        assertEquals(List.of(1L, 5L, 2L, 4L), ids(snapshot.filter(inStock)));
+        assertEquals(List.of(1L, 5L, 2L, 3L, 4L), ids(restocked.filter(inStock)));
+        assertEquals(List.of(1L, 5L, 2L, 3L), ids(soldOut.filter(inStock)));
+    }
+
+    @Test
+    void withQuantityDelta_sharesUnchangedItemsAcrossChunks() {
+        List<CatalogItem> items = new ArrayList<>();
+        for (long id = 1; id <= 2500; id++) {
+            items.add(new CatalogItem(id, "Title " + id, "Creator", 1, Credits.of(1)));
+        }
+        CatalogSnapshot large = CatalogSnapshot.of(1, items);
+
+        CatalogSnapshot updated = large.withQuantityDelta(2048L, null, 4);
+
+        assertEquals(items, large.getItems());
+        assertEquals(5, updated.getItems().get(2047).getQuantity());
+        assertEquals(1, large.getItems().get(2047).getQuantity());
+        assertSame(large.getItems().get(0), updated.getItems().get(0));
+        assertSame(large.getItems().get(2499), updated.getItems().get(2499));
+        assertEquals(2500, updated.getItems().size());
+    }
+
+    private static List<Long> ids(CatalogPage page) {
+        return page.items().stream().map(CatalogItem::getId).toList();
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.Credits;
+import com.example.gamevault.model.VideoGame;
+import com.example.gamevault.repository.VideoGameRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.StringReader;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CatalogImportServiceTest {
+
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    @Autowired
+    private VideoGameRepository videoGameRepository;
+
+    @Test
+    void importCatalog_csvUpsertsByTitleAndIsIdempotent() throws Exception {
+        String prefix = "Import " + UUID.randomUUID().toString().substring(0, 8) + " ";
+        StringBuilder csv = new StringBuilder("credits,title,quantity,creator\n");
+        for (int i = 0; i < 2500; i++) {
+            csv.append("12.5,").append(prefix).append(i).append(",").append(i % 7).append(",\"Studio, Inc.\"\n");
+        }
+        long countBefore = videoGameRepository.count();
+
+        CatalogImportResult firstImport = catalogImportService.importCatalog(new StringReader(csv.toString()), CatalogImportService.Format.CSV);
+        CatalogImportResult secondImport = catalogImportService.importCatalog(new StringReader(csv.toString()), CatalogImportService.Format.CSV);
+
+        assertEquals(2500, firstImport.rowsWritten());
+        assertEquals(2500, secondImport.rowsWritten());
+        assertEquals(countBefore + 2500, videoGameRepository.count());
+        VideoGame videoGame = videoGameRepository.findByTitle(prefix + 10).orElseThrow();
+        assertEquals("Studio, Inc.", videoGame.getCreator());
+        assertEquals(3, videoGame.getQuantity());
+        assertEquals(1250, videoGame.getCredits());
+    }
+
+    @Test
+    void importCatalog_jsonLinesUpdatesExistingTitleButNotItsStockAndRejectsMalformedLines() {
+        String title = "Json Import " + UUID.randomUUID().toString().substring(0, 8);
+        videoGameRepository.save(new VideoGame(title, "Old Creator", 1, Credits.of(1)));
+        String jsonLines = "{\"title\": \"" + title + "\", \"creator\": \"New Creator\", \"quantity\": 9, \"credits\": 30}\n"
+                + "{\"title\": \"" + title + " 2\", \"creator\": \"New Creator\", \"quantity\": 4, \"credits\": \"7.25\"}\n"
+                + "{\"title\": \"Missing credits\", \"quantity\": 4}\n"
+                + "not json\n";
+
+        CatalogImportResult result = catalogImportService.importCatalog(new StringReader(jsonLines), CatalogImportService.Format.JSON_LINES);
+
+        assertEquals(4, result.rowsRead());
+        assertEquals(2, result.rowsWritten());
+        assertEquals(2, result.rowsRejected());
+        VideoGame updated = videoGameRepository.findByTitle(title).orElseThrow();
+        assertEquals("New Creator", updated.getCreator());
+        assertEquals(1, updated.getQuantity());
+        assertEquals(Credits.of(30), updated.getCredits());
+        VideoGame inserted = videoGameRepository.findByTitle(title + " 2").orElseThrow();
+        assertEquals(4, inserted.getQuantity());
+        assertEquals(725, inserted.getCredits());
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.CatalogItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSearchIndexTest {
+
+    private CatalogSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CatalogSearchIndex();
+        index.add(1, "FIFA 20", "EA Sports");
+        index.add(2, "Pro Evolution Soccer 2019", "Konami");
+        index.add(3, "Spider-man 2", "Treyarch");
+        index.add(4, "WWE 2K23", "Visual Concepts");
+        index.add(5, "Soccer Manager", "Sports Interactive");
+    }
+
+    @Test
+    void search_ranksExactTitleWordAboveCreatorWord() {
+        assertEquals(List.of(5L, 2L), index.search("soccer ", 10));
+        assertEquals(List.of(1L, 5L), index.search("sports ", 10));
+        assertEquals(List.of(5L, 1L), index.search("sports s", 10));
+    }
+
+    @Test
+    void search_matchesLastWordAsPrefixWhileTyping() {
+        assertEquals(List.of(3L), index.search("spi", 10));
+        assertEquals(List.of(3L), index.search("Spider-ma", 10));
+        assertTrue(index.search("spi ", 10).isEmpty());
+    }
+
+    @Test
+    void search_requiresEveryWordToMatch() {
+        assertEquals(List.of(2L), index.search("soccer konami", 10));
+        assertTrue(index.search("soccer treyarch", 10).isEmpty());
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    void search_returnsAtMostLimitResults() {
+        assertEquals(List.of(3L), index.search("2", 1));
+    }
+
+    @Test
+    void search_checksCommonPrefixAgainstRemainingMatchesOrPostings() {
+        for (int i = 0; i < 300; i++) {
+            index.add(100 + i, "Racer " + i, "Studio");
+        }
+        index.add(99, "Spider-man 12", "Treyarch");
+
+        assertEquals(List.of(99L), index.search("spider 1", 10));
+        assertEquals(List.of(101L, 110L, 111L), index.search("racer 1", 3));
+    }
+
+    @Test
+    void add_replacesEntryOfSameVideoGame() {
+        index.add(3, "Spider-man 3", "Treyarch");
+
+        assertEquals(List.of(3L), index.search("spider 3", 10));
+        assertTrue(index.search("spider 2", 10).isEmpty());
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void synchronize_indexesOnlyChangedVideoGamesAndDropsMissingOnes() {
+        int changed = index.synchronize(List.of(
+                new CatalogItem(1, "FIFA 20", "EA Sports", 15, 2000),
+                new CatalogItem(2, "Pro Evolution Soccer 2020", "Konami", 12, 1000),
+                new CatalogItem(6, "Gran Turismo", "Polyphony", 3, 3000)));
+
+        assertEquals(5, changed);
+        assertEquals(3, index.size());
+        assertEquals(List.of(6L), index.search("gran", 10));
+        assertEquals(List.of(2L), index.search("2020", 10));
+        assertTrue(index.search("spider", 10).isEmpty());
+        assertTrue(index.search("2019", 10).isEmpty());
+    }
+
+}
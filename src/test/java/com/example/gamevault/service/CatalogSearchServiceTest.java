@@ -0,0 +1,54 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.CatalogItem;
+import com.example.gamevault.model.Credits;
+import com.example.gamevault.model.Gamer;
+import com.example.gamevault.model.VideoGame;
+import com.example.gamevault.repository.GamerRepository;
+import com.example.gamevault.repository.VideoGameRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CatalogSearchServiceTest {
+
+    @Autowired
+    private CatalogSearchService catalogSearchService;
+
+    @Autowired
+    private CatalogCacheService catalogCacheService;
+
+    @Autowired
+    private PurchaseOrchestrator purchaseOrchestrator;
+
+    @Autowired
+    private GamerRepository gamerRepository;
+
+    @Autowired
+    private VideoGameRepository videoGameRepository;
+
+    @Test
+    void search_findsTitlesFromReloadedSnapshotWithLiveQuantity() throws Throwable {
+        String word = "zq" + UUID.randomUUID().toString().substring(0, 8).replace("-", "");
+        Gamer gamer = gamerRepository.save(new Gamer("Search Gamer", "gamer" + word, word + "@gmail.com", "password"));
+        VideoGame videoGame = videoGameRepository.save(new VideoGame("Searchable " + word, "Search Studio", 10, Credits.of(5)));
+        catalogCacheService.refresh();
+
+        purchaseOrchestrator.buy(gamer, videoGame.getId(), 4);
+        List<CatalogItem> results = catalogSearchService.search(word.substring(0, 5), 10);
+
+        assertEquals(1, results.size());
+        assertEquals(videoGame.getId(), results.get(0).getId());
+        assertEquals(6, results.get(0).getQuantity());
+        assertEquals(List.of("Searchable " + word), catalogSearchService.suggestTitles("searchable " + word.substring(0, 3), 10));
+    }
+
+}
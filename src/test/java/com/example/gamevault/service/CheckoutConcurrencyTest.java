@@ -0,0 +1,115 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.exception.InsufficientVideoGameQuantityException;
+import com.example.gamevault.model.Credits;
+import com.example.gamevault.model.Gamer;
+import com.example.gamevault.model.VideoGame;
+import com.example.gamevault.repository.GamerRepository;
+import com.example.gamevault.repository.PurchaseRepository;
+import com.example.gamevault.repository.VideoGameRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CheckoutConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int CHECKOUTS_PER_THREAD = 5;
+    private static final int STOCK = 30;
+
+    @Autowired
+    private PurchaseOrchestrator purchaseOrchestrator;
+
+    @Autowired
+    private GamerRepository gamerRepository;
+
+    @Autowired
+    private VideoGameRepository videoGameRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    private List<Gamer> gamers;
+    private List<VideoGame> videoGames;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        gamers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            gamers.add(gamerRepository.save(new Gamer("Checkout Gamer", "checkout" + i + suffix, "checkout" + i + suffix + "@gmail.com", "password")));
+        }
+        videoGames = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            videoGames.add(videoGameRepository.save(new VideoGame("Checkout Title " + i + " " + suffix, "Checkout Creator", STOCK, Credits.of(1))));
+        }
+    }
+
+    // Carts share titles and list them in different orders, so checkouts taking locks in cart order could deadlock.
+    @Test
+    void checkout_overlappingCartsNeitherDeadlockNorOversell() throws Exception {
+        AtomicInteger checkouts = new AtomicInteger();
+        AtomicInteger rejections = new AtomicInteger();
+        List<Throwable> unexpectedErrors = new CopyOnWriteArrayList<>();
+        CountDownLatch startGate = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            Gamer gamer = gamers.get(thread);
+            List<VideoGame> cartOrder = new ArrayList<>(videoGames);
+            Collections.rotate(cartOrder, thread);
+            Map<Long, Integer> cart = new LinkedHashMap<>();
+            cart.put(cartOrder.get(0).getId(), 1);
+            cart.put(cartOrder.get(1).getId(), 1);
+            futures.add(executorService.submit(() -> {
+                startGate.await();
+                for (int attempt = 0; attempt < CHECKOUTS_PER_THREAD; attempt++) {
+                    try {
+                        purchaseOrchestrator.checkout(gamer, cart);
+                        checkouts.incrementAndGet();
+                    } catch (InsufficientVideoGameQuantityException e) {
+                        rejections.incrementAndGet();
+                    } catch (Throwable e) {
+                        unexpectedErrors.add(e);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        startGate.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executorService.shutdown();
+
+        assertTrue(unexpectedErrors.isEmpty(), "Unexpected errors: " + unexpectedErrors);
+        int remainingStock = videoGames.stream().mapToInt(videoGame -> videoGameRepository.findById(videoGame.getId()).orElseThrow().getQuantity()).sum();
+        assertTrue(remainingStock >= 0);
+        assertEquals(3 * STOCK, remainingStock + 2 * checkouts.get());
+        assertEquals(THREADS * CHECKOUTS_PER_THREAD, checkouts.get() + rejections.get());
+        assertTrue(rejections.get() > 0);
+
+        long purchases = 0;
+        long creditsSpent = 0;
+        for (Gamer gamer : gamers) {
+            purchases += purchaseRepository.findByGamerIdOrderByIdDesc(gamer.getId(), Limit.of(100)).size();
+            creditsSpent += Credits.DEFAULT_GAMER_CREDITS - gamerRepository.findById(gamer.getId()).orElseThrow().getTotalCredits();
+        }
+        assertEquals(2L * checkouts.get(), purchases);
+        assertEquals(Credits.of(2L * checkouts.get()), creditsSpent);
+    }
+
+}
@@ -0,0 +1,220 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.exception.InsufficientCreditsForTransactionException;
+import com.example.gamevault.model.CreditLedgerEntry;
+import com.example.gamevault.model.Credits;
+import com.example.gamevault.model.Gamer;
+import com.example.gamevault.model.Purchase;
+import com.example.gamevault.model.VideoGame;
+import com.example.gamevault.repository.CreditBalanceSnapshotRepository;
+import com.example.gamevault.repository.CreditLedgerEntryRepository;
+import com.example.gamevault.repository.GamerRepository;
+import com.example.gamevault.repository.VideoGameRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Its own database, since this context's pooled id blocks would otherwise overlap those of the shared test context.
+@SpringBootTest(properties = {
+        "gamevault.credits.ledger.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:gamevault-ledger;MODE=MySQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class CreditLedgerServiceTest {
+
+    @Autowired
+    private CreditLedgerService creditLedgerService;
+
+    @Autowired
+    private PurchaseOrchestrator purchaseOrchestrator;
+
+    @Autowired
+    private GamerRepository gamerRepository;
+
+    @Autowired
+    private VideoGameRepository videoGameRepository;
+
+    @Autowired
+    private CreditLedgerEntryRepository entryRepository;
+
+    @Autowired
+    private CreditBalanceSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Gamer gamer;
+    private VideoGame videoGame;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        gamer = gamerRepository.save(new Gamer("Ledger Gamer", "ledger" + suffix, suffix + "@gmail.com", "password"));
+        videoGame = videoGameRepository.save(new VideoGame("Ledger Title " + suffix, "Ledger Creator", 1000, Credits.of(1)));
+    }
+
+    @Test
+    void buy_appendsDebitKeyedByPurchaseAndLeavesGamerRowToCompaction() throws Throwable {
+        assertTrue(creditLedgerService.openAccount(gamer.getId()));
+        assertFalse(creditLedgerService.openAccount(gamer.getId()));
+        assertEquals(Credits.DEFAULT_GAMER_CREDITS, balance());
+
+        Purchase purchase = purchaseOrchestrator.buy(gamer, videoGame.getId(), 3);
+
+        CreditLedgerEntry debit = entries().stream().filter(entry -> entry.getType() == CreditLedgerEntry.Type.DEBIT).findFirst().orElseThrow();
+        assertEquals(purchase.getId(), debit.getTransactionId());
+        assertEquals(-Credits.of(3), debit.getAmount());
+        assertEquals(Credits.DEFAULT_GAMER_CREDITS - Credits.of(3), balance());
+        assertEquals(Credits.DEFAULT_GAMER_CREDITS, credits());
+
+        creditLedgerService.compact();
+        assertEquals(balance(), credits());
+    }
+
+    @Test
+    void buy_isRejectedWhenLedgerBalanceIsInsufficient() {
+        creditLedgerService.openAccount(gamer.getId());
+        entryRepository.save(new CreditLedgerEntry(gamer.getId(), AuditEvent.NONE, CreditLedgerEntry.Type.DEBIT, Credits.of(1) - Credits.DEFAULT_GAMER_CREDITS));
+
+        assertThrows(InsufficientCreditsForTransactionException.class, () -> purchaseOrchestrator.buy(gamer, videoGame.getId(), 2));
+        assertEquals(Credits.of(1), balance());
+        assertEquals(2, entries().size());
+    }
+
+    @Test
+    void checkout_appendsDebitForEachPurchase() throws Throwable {
+        VideoGame otherVideoGame = videoGameRepository.save(new VideoGame(videoGame.getTitle() + " II", "Ledger Creator", 1000, Credits.of(2)));
+
+        List<Purchase> purchases = purchaseOrchestrator.checkout(gamer, Map.of(videoGame.getId(), 1, otherVideoGame.getId(), 3));
+
+        Map<Long, Long> debits = entries().stream().filter(entry -> entry.getType() == CreditLedgerEntry.Type.DEBIT)
+                .collect(Collectors.toMap(CreditLedgerEntry::getTransactionId, CreditLedgerEntry::getAmount));
+        assertEquals(purchases.stream().collect(Collectors.toMap(Purchase::getId, purchase -> -purchase.getCost())), debits);
+        assertEquals(Credits.DEFAULT_GAMER_CREDITS - Credits.of(7), balance());
+    }
+
+    @Test
+    void compact_opensAccountsAndFoldsNewEntriesIntoSnapshot() throws Throwable {
+        assertTrue(creditLedgerService.getBalance(gamer.getId()).isEmpty());
+        creditLedgerService.compact();
+        assertEquals(Credits.DEFAULT_GAMER_CREDITS, balance());
+
+        purchaseOrchestrator.buy(gamer, videoGame.getId(), 2);
+        purchaseOrchestrator.buy(gamer, videoGame.getId(), 5);
+        creditLedgerService.compact();
+
+        long lastEntryId = entries().stream().mapToLong(CreditLedgerEntry::getId).max().orElseThrow();
+        assertEquals(lastEntryId, snapshotRepository.findById(gamer.getId()).orElseThrow().getLastEntryId());
+        assertEquals(Credits.DEFAULT_GAMER_CREDITS - Credits.of(7), snapshotRepository.findById(gamer.getId()).orElseThrow().getBalance());
+        assertEquals(Credits.DEFAULT_GAMER_CREDITS - Credits.of(7), balance());
+        assertEquals(balance(), credits());
+        assertEquals(0, creditLedgerService.reconcile());
+    }
+
+    @Test
+    void buy_opensAccountOfGamerNotYetOpened() throws Throwable {
+        purchaseOrchestrator.buy(gamer, videoGame.getId(), 2);
+
+        assertEquals(List.of(CreditLedgerEntry.Type.OPENING_BALANCE, CreditLedgerEntry.Type.DEBIT), entries().stream().map(CreditLedgerEntry::getType).toList());
+        assertEquals(Credits.DEFAULT_GAMER_CREDITS - Credits.of(2), balance());
+    }
+
+    @Test
+    void reconcile_findsCreditsChangedOutsideTheLedger() {
+        creditLedgerService.openAccount(gamer.getId());
+        jdbcTemplate.update("UPDATE gamer SET total_credits = total_credits + 1 WHERE id = ?", gamer.getId());
+        try {
+            assertEquals(1, creditLedgerService.reconcile());
+        } finally {
+            jdbcTemplate.update("UPDATE gamer SET total_credits = total_credits - 1 WHERE id = ?", gamer.getId());
+        }
+        assertEquals(0, creditLedgerService.reconcile());
+    }
+
+    @Test
+    void compact_keepsBalancesExactWhileDebitsRun() throws Exception {
+        creditLedgerService.openAccount(gamer.getId());
+        int threads = 8;
+        int buysPerThread = 10;
+        List<Throwable> unexpectedErrors = buyConcurrently(threads, buysPerThread, new AtomicInteger());
+
+        assertTrue(unexpectedErrors.isEmpty(), () -> "Unexpected errors: " + unexpectedErrors);
+        assertEquals(Credits.DEFAULT_GAMER_CREDITS - Credits.of(threads * buysPerThread), balance());
+        creditLedgerService.compact();
+        assertEquals(balance(), snapshotRepository.findById(gamer.getId()).orElseThrow().getBalance());
+        assertEquals(balance(), credits());
+        assertEquals(0, creditLedgerService.reconcile());
+    }
+
+    @Test
+    void buy_neverOverdrawsLedgerBalanceUnderConcurrency() throws Exception {
+        creditLedgerService.openAccount(gamer.getId());
+        entryRepository.save(new CreditLedgerEntry(gamer.getId(), AuditEvent.NONE, CreditLedgerEntry.Type.DEBIT, Credits.of(5) - Credits.DEFAULT_GAMER_CREDITS));
+        AtomicInteger insufficient = new AtomicInteger();
+
+        List<Throwable> unexpectedErrors = buyConcurrently(8, 2, insufficient);
+
+        assertTrue(unexpectedErrors.isEmpty(), () -> "Unexpected errors: " + unexpectedErrors);
+        assertEquals(16 - 5, insufficient.get());
+        assertEquals(0, balance());
+    }
+
+    // Buys one copy at a time from each thread while compacting, counting purchases refused for insufficient credits.
+    private List<Throwable> buyConcurrently(int threads, int buysPerThread, AtomicInteger insufficient) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        List<Future<?>> futures = new ArrayList<>();
+        ConcurrentLinkedQueue<Throwable> unexpectedErrors = new ConcurrentLinkedQueue<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < buysPerThread; j++) {
+                        try {
+                            purchaseOrchestrator.buy(gamer, videoGame.getId(), 1);
+                        } catch (InsufficientCreditsForTransactionException e) {
+                            insufficient.incrementAndGet();
+                        } catch (Throwable e) {
+                            unexpectedErrors.add(e);
+                        }
+                    }
+                }));
+            }
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 10; j++) {
+                    creditLedgerService.compact();
+                }
+            }));
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return List.copyOf(unexpectedErrors);
+    }
+
+    private long balance() {
+        return creditLedgerService.getBalance(gamer.getId()).orElseThrow();
+    }
+
+    private long credits() {
+        return gamerRepository.findById(gamer.getId()).orElseThrow().getTotalCredits();
+    }
+
+    private List<CreditLedgerEntry> entries() {
+        return entryRepository.findAll().stream().filter(entry -> entry.getGamerId() == gamer.getId()).toList();
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.CreditLedgerEntry;
+import com.example.gamevault.model.Credits;
+import com.example.gamevault.model.Gamer;
+import com.example.gamevault.model.Purchase;
+import com.example.gamevault.model.VideoGame;
+import com.example.gamevault.repository.CreditLedgerEntryRepository;
+import com.example.gamevault.repository.GamerRepository;
+import com.example.gamevault.repository.PurchaseRepository;
+import com.example.gamevault.repository.VideoGameRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Its own database, since this context's pooled id blocks would otherwise overlap those of the shared test context.
+@SpringBootTest(properties = {
+        "gamevault.credits.ledger.enabled=true",
+        "gamevault.history.write-behind.enabled=true",
+        "gamevault.history.write-behind.flush-interval-ms=50",
+        "spring.datasource.url=jdbc:h2:mem:gamevault-ledger-write-behind;MODE=MySQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class CreditLedgerWriteBehindTest {
+
+    @Autowired
+    private PurchaseOrchestrator purchaseOrchestrator;
+
+    @Autowired
+    private GamerRepository gamerRepository;
+
+    @Autowired
+    private VideoGameRepository videoGameRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private CreditLedgerEntryRepository entryRepository;
+
+    @Test
+    void buyAndCheckout_keyDebitsByIdsOfPurchasesWrittenBehind() throws Throwable {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        Gamer gamer = gamerRepository.save(new Gamer("Ledger Behind Gamer", "ledgerbehind" + suffix, suffix + "@gmail.com", "password"));
+        VideoGame videoGame = videoGameRepository.save(new VideoGame("Ledger Behind Title " + suffix, "Ledger Behind Creator", 100, Credits.of(1)));
+        VideoGame otherVideoGame = videoGameRepository.save(new VideoGame("Ledger Behind Title II " + suffix, "Ledger Behind Creator", 100, Credits.of(2)));
+
+        List<Purchase> purchases = new ArrayList<>();
+        purchases.add(purchaseOrchestrator.buy(gamer, videoGame.getId(), 2));
+        purchases.addAll(purchaseOrchestrator.checkout(gamer, Map.of(videoGame.getId(), 1, otherVideoGame.getId(), 3)));
+
+        assertTrue(purchases.stream().allMatch(purchase -> purchase.getId() != 0));
+        List<Long> debitedIds = entryRepository.findAll().stream()
+                .filter(entry -> entry.getGamerId() == gamer.getId() && entry.getType() == CreditLedgerEntry.Type.DEBIT)
+                .map(CreditLedgerEntry::getTransactionId).sorted().toList();
+        assertEquals(purchases.stream().map(Purchase::getId).sorted().toList(), debitedIds);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writtenIds(gamer).size() < purchases.size()) {
+            assertTrue(System.nanoTime() < deadline, "History rows never written.");
+            Thread.sleep(10);
+        }
+        assertEquals(debitedIds, writtenIds(gamer));
+    }
+
+    private List<Long> writtenIds(Gamer gamer) {
+        return purchaseRepository.findByGamerIdOrderByIdDesc(gamer.getId(), Limit.of(10)).stream().map(Purchase::getId).sorted().toList();
+    }
+
+}
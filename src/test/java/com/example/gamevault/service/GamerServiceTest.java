@@ -0,0 +1,56 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.exception.InvalidPasswordException;
+import com.example.gamevault.exception.UnavailableEmailAddressException;
+import com.example.gamevault.exception.UnavailableUsernameException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class GamerServiceTest {
+
+    @Autowired
+    private GamerService gamerService;
+
+    @Test
+    void isUsernameAvailable_falseOnceRegistered() throws Exception {
+        String username = "player" + UUID.randomUUID().toString().substring(0, 8).replace("-", "");
+        assertTrue(gamerService.isUsernameAvailable(username));
+
+        gamerService.register("Ada Lovelace", username, username + "@gmail.com", "ABCdef12");
+
+        assertFalse(gamerService.isUsernameAvailable(username));
+    }
+
+    @Test
+    void isUsernameAvailable_falseForInvalidUsername() {
+        assertFalse(gamerService.isUsernameAvailable("short"));
+        assertFalse(gamerService.isUsernameAvailable("1startsWithDigit"));
+    }
+
+    @Test
+    void register_unsuccessfulForTakenUsernameOrEmail() throws Exception {
+        String username = "player" + UUID.randomUUID().toString().substring(0, 8);
+        gamerService.register("Ada Lovelace", username, username + "@gmail.com", "ABCdef12");
+
+        assertThrows(UnavailableUsernameException.class, () -> gamerService.register("Ada Lovelace", username, "other" + username + "@gmail.com", "ABCdef12"));
+        assertThrows(UnavailableEmailAddressException.class, () -> gamerService.register("Ada Lovelace", "other" + username, username + "@gmail.com", "ABCdef12"));
+    }
+
+    @Test
+    void register_passwordRulesMatchRequirements() {
+        String username = "player" + UUID.randomUUID().toString().substring(0, 8);
+        assertThrows(InvalidPasswordException.class, () -> gamerService.register("Ada Lovelace", username, username + "@gmail.com", "ABcdef12"));
+        assertThrows(InvalidPasswordException.class, () -> gamerService.register("Ada Lovelace", username, username + "@gmail.com", "ABCdef1!"));
+        assertThrows(InvalidPasswordException.class, () -> gamerService.register("Ada Lovelace", username, username + "@gmail.com", "ABCdef12 "));
+        assertDoesNotThrow(() -> gamerService.register("Ada Lovelace", username, username + "@gmail.com", "ABCdef12@!"));
+    }
+
+}
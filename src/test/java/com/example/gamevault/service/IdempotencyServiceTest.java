@@ -0,0 +1,235 @@
+package com.example.gamevault.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger runs;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        runs = new AtomicInteger();
+    }
+
+    @Test
+    void execute_replaysOutcomeOfRepeatedKeyWithoutRunningAgain() {
+        IdempotencyService idempotencyService = inMemory(60_000, 100);
+
+        RequestOutcome first = idempotencyService.execute(1L, "buy", "key-1", "gameId=1", this::success);
+        RequestOutcome repeat = idempotencyService.execute(1L, "buy", "key-1", "gameId=1", this::success);
+
+        assertEquals(1, runs.get());
+        assertSame(first, repeat);
+        assertEquals(1, meterRegistry.counter("gamevault.idempotency.requests", "result", "hit").count());
+        assertEquals(1, meterRegistry.counter("gamevault.idempotency.requests", "result", "miss").count());
+        assertEquals(0.5, meterRegistry.get("gamevault.idempotency.hit.ratio").gauge().value());
+    }
+
+    @Test
+    void execute_scopesKeysByGamerAndOperation() {
+        IdempotencyService idempotencyService = inMemory(60_000, 100);
+
+        idempotencyService.execute(1L, "buy", "key-1", "gameId=1", this::success);
+        idempotencyService.execute(2L, "buy", "key-1", "gameId=1", this::success);
+        idempotencyService.execute(1L, "reserve", "key-1", "gameId=1", this::success);
+
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    void execute_refusesKeyReusedForDifferentRequest() {
+        IdempotencyService idempotencyService = inMemory(60_000, 100);
+
+        RequestOutcome first = idempotencyService.execute(1L, "buy", "key-1", "gameId=1", this::success);
+        RequestOutcome reused = idempotencyService.execute(1L, "buy", "key-1", "gameId=2", this::success);
+        RequestOutcome repeat = idempotencyService.execute(1L, "buy", "key-1", "gameId=1", this::success);
+
+        assertEquals(1, runs.get());
+        assertEquals("error", reused.attribute());
+        assertFalse(reused.retryable());
+        assertSame(first, repeat);
+        assertEquals(1, meterRegistry.counter("gamevault.idempotency.requests", "result", "mismatch").count());
+    }
+
+    @Test
+    void execute_runsEveryRequestWithoutValidKey() {
+        IdempotencyService idempotencyService = inMemory(60_000, 100);
+
+        idempotencyService.execute(1L, "buy", null, "gameId=1", this::success);
+        idempotencyService.execute(1L, "buy", null, "gameId=1", this::success);
+        idempotencyService.execute(1L, "buy", "not a valid key", "gameId=1", this::success);
+        idempotencyService.execute(1L, "buy", "not a valid key", "gameId=1", this::success);
+
+        assertEquals(4, runs.get());
+    }
+
+    @Test
+    void execute_runsAgainAfterRetryableOutcome() {
+        IdempotencyService idempotencyService = inMemory(60_000, 100);
+
+        idempotencyService.execute(1L, "buy", "key-1", "gameId=1", () -> {
+            runs.incrementAndGet();
+            return RequestOutcome.retryableError("Unexpected error occurred. Please try again later.");
+        });
+        RequestOutcome retry = idempotencyService.execute(1L, "buy", "key-1", "gameId=1", this::success);
+
+        assertEquals(2, runs.get());
+        assertEquals("success", retry.attribute());
+    }
+
+    @Test
+    void execute_runsAgainOnceKeyExpires() throws InterruptedException {
+        IdempotencyService idempotencyService = inMemory(20, 100);
+
+        idempotencyService.execute(1L, "buy", "key-1", "gameId=1", this::success);
+        Thread.sleep(40);
+        idempotencyService.execute(1L, "buy", "key-1", "gameId=1", this::success);
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void execute_evictsOldestKeysPastLimit() {
+        IdempotencyService idempotencyService = inMemory(60_000, 2);
+
+        idempotencyService.execute(1L, "buy", "key-1", "gameId=1", this::success);
+        idempotencyService.execute(1L, "buy", "key-2", "gameId=1", this::success);
+        idempotencyService.execute(1L, "buy", "key-3", "gameId=1", this::success);
+        assertEquals(2, meterRegistry.get("gamevault.idempotency.keys").gauge().value());
+
+        idempotencyService.execute(1L, "buy", "key-3", "gameId=1", this::success);
+        assertEquals(3, runs.get());
+        idempotencyService.execute(1L, "buy", "key-1", "gameId=1", this::success);
+        assertEquals(4, runs.get());
+    }
+
+    @Test
+    void execute_repeatDuringFirstRequestWaitsForItsOutcome() throws Exception {
+        IdempotencyService idempotencyService = inMemory(60_000, 100);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<RequestOutcome> first = executor.submit(() -> idempotencyService.execute(1L, "buy", "key-1", "gameId=1", () -> {
+                started.countDown();
+                awaitQuietly(release);
+                return success();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<RequestOutcome> repeat = executor.submit(() -> idempotencyService.execute(1L, "buy", "key-1", "gameId=1", this::success));
+
+            Thread.sleep(50);
+            assertFalse(repeat.isDone());
+            release.countDown();
+
+            assertSame(first.get(5, TimeUnit.SECONDS), repeat.get(5, TimeUnit.SECONDS));
+            assertEquals(1, runs.get());
+            assertEquals(1, meterRegistry.counter("gamevault.idempotency.requests", "result", "in_progress").count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_withTable_replaysAcrossInstances() {
+        JdbcTemplate jdbcTemplate = h2JdbcTemplate();
+        IdempotencyService firstInstance = new IdempotencyService(jdbcTemplate, meterRegistry, 60_000, 100, 1_000, true);
+        IdempotencyService secondInstance = new IdempotencyService(jdbcTemplate, new SimpleMeterRegistry(), 60_000, 100, 1_000, true);
+        firstInstance.createTable();
+        secondInstance.createTable();
+
+        RequestOutcome first = firstInstance.execute(1L, "cancel", "key-1", "gameId=1", this::success);
+        RequestOutcome repeat = secondInstance.execute(1L, "cancel", "key-1", "gameId=1", this::success);
+
+        assertEquals(1, runs.get());
+        assertEquals(first, repeat);
+
+        firstInstance.purgeExpired();
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_keys", Integer.class));
+    }
+
+    @Test
+    void execute_withTable_refusesKeyReusedForDifferentRequestOnAnotherInstance() {
+        JdbcTemplate jdbcTemplate = h2JdbcTemplate();
+        IdempotencyService firstInstance = new IdempotencyService(jdbcTemplate, meterRegistry, 60_000, 100, 1_000, true);
+        IdempotencyService secondInstance = new IdempotencyService(jdbcTemplate, new SimpleMeterRegistry(), 60_000, 100, 1_000, true);
+        firstInstance.createTable();
+
+        RequestOutcome first = firstInstance.execute(1L, "buy", "key-1", "gameId=1", this::success);
+        RequestOutcome reused = secondInstance.execute(1L, "buy", "key-1", "gameId=2", this::success);
+        RequestOutcome repeat = secondInstance.execute(1L, "buy", "key-1", "gameId=1", this::success);
+
+        assertEquals(1, runs.get());
+        assertEquals("error", reused.attribute());
+        assertEquals(first, repeat);
+    }
+
+    @Test
+    void createTable_addsFingerprintColumnToTableCreatedWithoutIt() {
+        JdbcTemplate jdbcTemplate = h2JdbcTemplate();
+        jdbcTemplate.execute("CREATE TABLE idempotency_keys (id VARCHAR(100) NOT NULL, outcome_attribute VARCHAR(16) NULL, " +
+                "outcome_message VARCHAR(255) NULL, created_at DATETIME(6) NOT NULL, PRIMARY KEY (id))");
+        jdbcTemplate.update("INSERT INTO idempotency_keys (id, outcome_attribute, outcome_message, created_at) VALUES ('buy:1:key-1', 'success', 'Successful purchase.', CURRENT_TIMESTAMP)");
+        IdempotencyService idempotencyService = new IdempotencyService(jdbcTemplate, meterRegistry, 60_000, 100, 1_000, true);
+
+        idempotencyService.createTable();
+        idempotencyService.createTable();
+
+        // Keys claimed before fingerprints were stored still replay.
+        assertEquals(RequestOutcome.success("Successful purchase."), idempotencyService.execute(1L, "buy", "key-1", "gameId=1", this::success));
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void execute_withTable_completesRequestWhenOutcomeCannotBeSaved() {
+        JdbcTemplate jdbcTemplate = h2JdbcTemplate();
+        IdempotencyService idempotencyService = new IdempotencyService(jdbcTemplate, meterRegistry, 60_000, 100, 1_000, true);
+        idempotencyService.createTable();
+
+        RequestOutcome first = idempotencyService.execute(1L, "buy", "key-1", "gameId=1", () -> {
+            jdbcTemplate.execute("DROP TABLE idempotency_keys");
+            return success();
+        });
+        RequestOutcome repeat = idempotencyService.execute(1L, "buy", "key-1", "gameId=1", this::success);
+
+        assertEquals(RequestOutcome.success("Successful purchase."), first);
+        assertSame(first, repeat);
+        assertEquals(1, runs.get());
+    }
+
+    private static JdbcTemplate h2JdbcTemplate() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:gamevault-idempotency-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        return new JdbcTemplate(h2);
+    }
+
+    private IdempotencyService inMemory(long ttlMs, int maxKeys) {
+        return new IdempotencyService(null, meterRegistry, ttlMs, maxKeys, 5_000, false);
+    }
+
+    private RequestOutcome success() {
+        runs.incrementAndGet();
+        return RequestOutcome.success("Successful purchase.");
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,211 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.exception.InsufficientVideoGameQuantityException;
+import com.example.gamevault.exception.PurchaseQueueFullException;
+import com.example.gamevault.model.CatalogItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PurchaseAdmissionServiceTest {
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicInteger runs = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private CatalogCacheService catalogCacheService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        catalogCacheService = mock(CatalogCacheService.class);
+        when(catalogCacheService.getSnapshot()).thenAnswer(invocation -> snapshot.get());
+        setQuantity(0);
+    }
+
+    @Test
+    void admit_rejectsLaterPurchasesOnceTitleIsSoldOut() {
+        PurchaseAdmissionService admissionService = admissionService(8, 64, 2000);
+
+        assertThrows(InsufficientVideoGameQuantityException.class, () -> admissionService.admit(1L, this::soldOutPurchase));
+        assertTrue(admissionService.isSoldOut(1L));
+        assertThrows(InsufficientVideoGameQuantityException.class, () -> admissionService.admit(1L, this::purchase));
+
+        assertEquals(1, runs.get());
+        assertEquals(1, meterRegistry.counter("gamevault.admission.requests", "result", "admitted").count());
+    }
+
+    @Test
+    void admit_doesNotFlagTitleWithStockLeft() {
+        PurchaseAdmissionService admissionService = admissionService(8, 64, 2000);
+        setQuantity(2);
+
+        assertThrows(InsufficientVideoGameQuantityException.class, () -> admissionService.admit(1L, this::soldOutPurchase));
+
+        assertFalse(admissionService.isSoldOut(1L));
+    }
+
+    @Test
+    void clearSoldOut_admitsPurchasesOfRestockedTitle() throws Throwable {
+        PurchaseAdmissionService admissionService = admissionService(8, 64, 2000);
+        assertThrows(InsufficientVideoGameQuantityException.class, () -> admissionService.admit(1L, this::soldOutPurchase));
+
+        setQuantity(5);
+        admissionService.clearSoldOut("FIFA 20");
+
+        assertEquals("bought", admissionService.admit(1L, this::purchase));
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void onCatalogReloaded_clearsOnlyTitlesWithStock() {
+        PurchaseAdmissionService admissionService = admissionService(8, 64, 2000);
+        assertThrows(InsufficientVideoGameQuantityException.class, () -> admissionService.admit(1L, this::soldOutPurchase));
+
+        admissionService.onCatalogReloaded(new CatalogReloadedEvent(snapshot.get()));
+        assertTrue(admissionService.isSoldOut(1L));
+
+        setQuantity(3);
+        admissionService.onCatalogReloaded(new CatalogReloadedEvent(snapshot.get()));
+        assertFalse(admissionService.isSoldOut(1L));
+    }
+
+    @Test
+    void onCatalogReloaded_clearsTitlesNoLongerInCatalogue() {
+        PurchaseAdmissionService admissionService = admissionService(8, 64, 2000);
+        assertThrows(InsufficientVideoGameQuantityException.class, () -> admissionService.admit(1L, this::soldOutPurchase));
+
+        admissionService.onCatalogReloaded(new CatalogReloadedEvent(CatalogSnapshot.of(2, List.of())));
+
+        assertFalse(admissionService.isSoldOut(1L));
+    }
+
+    @Test
+    void admit_removesQueueOnceNoPurchaseHoldsOrWaitsForIt() throws Throwable {
+        PurchaseAdmissionService admissionService = admissionService(8, 64, 2000);
+        setQuantity(5);
+
+        for (long videoGameId = 1; videoGameId <= 100; videoGameId++) {
+            assertEquals("bought", admissionService.admit(videoGameId, this::purchase));
+        }
+        assertThrows(InsufficientVideoGameQuantityException.class, () -> admissionService.admit(101L, this::soldOutPurchase));
+
+        assertEquals(0, queueCount());
+    }
+
+    @Test
+    void admit_rejectsPurchasesBeyondQueueDepth() throws Throwable {
+        PurchaseAdmissionService admissionService = admissionService(1, 1, 10_000);
+        CountDownLatch admitted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> holding = executor.submit(() -> {
+                try {
+                    return admissionService.admit(1L, () -> {
+                        admitted.countDown();
+                        return awaitRelease(release);
+                    });
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            assertTrue(admitted.await(5, TimeUnit.SECONDS));
+            Future<String> queued = executor.submit(() -> {
+                try {
+                    return admissionService.admit(1L, this::purchase);
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            awaitWaiting(1);
+
+            assertThrows(PurchaseQueueFullException.class, () -> admissionService.admit(1L, this::purchase));
+            // Other titles have queues of their own.
+            assertEquals("bought", admissionService.admit(2L, this::purchase));
+
+            release.countDown();
+            assertEquals("bought", holding.get(5, TimeUnit.SECONDS));
+            assertEquals("bought", queued.get(5, TimeUnit.SECONDS));
+            assertEquals(1, meterRegistry.counter("gamevault.admission.requests", "result", "queue_full").count());
+            assertEquals(0, queueCount());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void admit_rejectsPurchaseNotAdmittedWithinTimeout() throws Exception {
+        PurchaseAdmissionService admissionService = admissionService(1, 8, 50);
+        CountDownLatch admitted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> {
+                try {
+                    return admissionService.admit(1L, () -> {
+                        admitted.countDown();
+                        return awaitRelease(release);
+                    });
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            assertTrue(admitted.await(5, TimeUnit.SECONDS));
+
+            assertThrows(PurchaseQueueFullException.class, () -> admissionService.admit(1L, this::purchase));
+            assertEquals(0, runs.get());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private PurchaseAdmissionService admissionService(int concurrencyPerTitle, int maxQueueDepth, long queueTimeoutMs) {
+        return new PurchaseAdmissionService(catalogCacheService, meterRegistry, concurrencyPerTitle, maxQueueDepth, queueTimeoutMs);
+    }
+
+    private double queueCount() {
+        return meterRegistry.get("gamevault.admission.queues").gauge().value();
+    }
+
+    private void setQuantity(int quantity) {
+        snapshot.set(CatalogSnapshot.of(1, List.of(new CatalogItem(1L, "FIFA 20", "EA Sports", quantity, 20))));
+    }
+
+    private String purchase() {
+        runs.incrementAndGet();
+        return "bought";
+    }
+
+    private String soldOutPurchase() throws InsufficientVideoGameQuantityException {
+        runs.incrementAndGet();
+        throw new InsufficientVideoGameQuantityException();
+    }
+
+    private static String awaitRelease(CountDownLatch release) {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "bought";
+    }
+
+    private void awaitWaiting(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("gamevault.admission.waiting").gauge().value() < expected) {
+            assertTrue(System.nanoTime() < deadline, "Purchase never queued.");
+            Thread.sleep(5);
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.exception.InsufficientCreditsForTransactionException;
+import com.example.gamevault.exception.InsufficientVideoGameQuantityException;
+import com.example.gamevault.exception.ReservationTransactionNotFoundException;
+import com.example.gamevault.model.*;
+import com.example.gamevault.repository.GamerRepository;
+import com.example.gamevault.repository.PurchaseRepository;
+import com.example.gamevault.repository.ReservationRepository;
+import com.example.gamevault.repository.VideoGameRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PurchaseOrchestratorTest {
+
+    @Autowired
+    private PurchaseOrchestrator purchaseOrchestrator;
+
+    @Autowired
+    private GamerRepository gamerRepository;
+
+    @Autowired
+    private VideoGameRepository videoGameRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    private Gamer gamer;
+    private VideoGame videoGame;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        gamer = gamerRepository.save(new Gamer("Orchestrator Gamer", "gamer" + suffix, suffix + "@gmail.com", "password"));
+        videoGame = videoGameRepository.save(new VideoGame("Orchestrator Title " + suffix, "Orchestrator Creator", 10, Credits.of(15)));
+    }
+
+    @Test
+    void buy_commitsStockCreditsAndPurchaseTogether() throws Throwable {
+        long purchasesBefore = purchaseRepository.count();
+
+        Purchase purchase = purchaseOrchestrator.buy(gamer, videoGame.getId(), 2);
+
+        assertEquals(Credits.of(30), purchase.getCost());
+        assertEquals(8, quantityOf(videoGame));
+        assertEquals(Credits.of(70), creditsOf(gamer));
+        assertEquals(Credits.of(70), gamer.getTotalCredits());
+        assertEquals(purchasesBefore + 1, purchaseRepository.count());
+    }
+
+    @Test
+    void buy_rollsBackStockDecrementWhenCreditsAreInsufficient() {
+        long purchasesBefore = purchaseRepository.count();
+        gamer.setTotalCredits(Credits.of(1000)); // Stale in-memory balance that passes the affordability pre-check
+
+        assertThrows(InsufficientCreditsForTransactionException.class, () -> purchaseOrchestrator.buy(gamer, videoGame.getId(), 10));
+
+        assertEquals(10, quantityOf(videoGame));
+        assertEquals(Credits.of(100), creditsOf(gamer));
+        assertEquals(Credits.of(1000), gamer.getTotalCredits());
+        assertEquals(purchasesBefore, purchaseRepository.count());
+    }
+
+    @Test
+    void buy_unsuccessfulDueToInsufficientQuantity() {
+        assertThrows(InsufficientVideoGameQuantityException.class, () -> purchaseOrchestrator.buy(gamer, videoGame.getId(), 11));
+        assertEquals(10, quantityOf(videoGame));
+        assertEquals(Credits.of(100), creditsOf(gamer));
+    }
+
+    @Test
+    void reserveThenCompleteReservation_chargesDepositThenRemainder() throws Throwable {
+        Reservation reservation = purchaseOrchestrator.reserve(gamer, videoGame.getId(), 2);
+        assertEquals(8, quantityOf(videoGame));
+        assertEquals(Credits.of(94), creditsOf(gamer));
+
+        purchaseOrchestrator.completeReservation(gamer, reservation.getId());
+        assertEquals(8, quantityOf(videoGame));
+        assertEquals(Credits.of(70), creditsOf(gamer));
+        assertTrue(reservationRepository.findById(reservation.getId()).isEmpty());
+    }
+
+    @Test
+    void reserveThenCancelReservation_returnsStock() throws Throwable {
+        Reservation reservation = purchaseOrchestrator.reserve(gamer, videoGame.getId(), 3);
+        assertEquals(7, quantityOf(videoGame));
+
+        Cancellation cancellation = purchaseOrchestrator.cancelReservation(gamer, reservation.getId());
+        assertEquals(3, cancellation.getQuantity());
+        assertEquals(10, quantityOf(videoGame));
+        assertTrue(reservationRepository.findById(reservation.getId()).isEmpty());
+        assertEquals(reservation.getTitle(), cancellation.getTitle());
+    }
+
+    @Test
+    void cancelReservation_unsuccessfulForReservationOfAnotherGamer() throws Throwable {
+        Reservation reservation = purchaseOrchestrator.reserve(gamer, videoGame.getId(), 1);
+        Gamer otherGamer = gamerRepository.save(new Gamer("Other Gamer", "other" + gamer.getUsername(), "other" + gamer.getEmail(), "password"));
+
+        assertThrows(ReservationTransactionNotFoundException.class, () -> purchaseOrchestrator.cancelReservation(otherGamer, reservation.getId()));
+        assertTrue(reservationRepository.findById(reservation.getId()).isPresent());
+        assertEquals(9, quantityOf(videoGame));
+    }
+
+    @Test
+    void checkout_buysEveryLineWithOneDebit() throws Throwable {
+        VideoGame otherVideoGame = videoGameRepository.save(new VideoGame("Other " + videoGame.getTitle(), "Orchestrator Creator", 5, Credits.of(20)));
+        long purchasesBefore = purchaseRepository.count();
+
+        List<Purchase> purchases = purchaseOrchestrator.checkout(gamer, Map.of(otherVideoGame.getId(), 1, videoGame.getId(), 3));
+
+        assertEquals(List.of(Credits.of(45), Credits.of(20)), purchases.stream().map(Purchase::getCost).toList());
+        assertEquals(7, quantityOf(videoGame));
+        assertEquals(4, quantityOf(otherVideoGame));
+        assertEquals(Credits.of(35), creditsOf(gamer));
+        assertEquals(Credits.of(35), gamer.getTotalCredits());
+        assertEquals(purchasesBefore + 2, purchaseRepository.count());
+    }
+
+    @Test
+    void checkout_rollsBackEveryLineWhenOneIsShort() {
+        VideoGame otherVideoGame = videoGameRepository.save(new VideoGame("Other " + videoGame.getTitle(), "Orchestrator Creator", 1, Credits.of(20)));
+        long purchasesBefore = purchaseRepository.count();
+
+        assertThrows(InsufficientVideoGameQuantityException.class,
+                () -> purchaseOrchestrator.checkout(gamer, Map.of(videoGame.getId(), 2, otherVideoGame.getId(), 2)));
+
+        assertEquals(10, quantityOf(videoGame));
+        assertEquals(1, quantityOf(otherVideoGame));
+        assertEquals(Credits.of(100), creditsOf(gamer));
+        assertEquals(purchasesBefore, purchaseRepository.count());
+    }
+
+    private int quantityOf(VideoGame videoGame) {
+        return videoGameRepository.findById(videoGame.getId()).orElseThrow().getQuantity();
+    }
+
+    private long creditsOf(Gamer gamer) {
+        return gamerRepository.findById(gamer.getId()).orElseThrow().getTotalCredits();
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.exception.ReservationTransactionNotFoundException;
+import com.example.gamevault.model.*;
+import com.example.gamevault.repository.CancellationRepository;
+import com.example.gamevault.repository.GamerRepository;
+import com.example.gamevault.repository.ReservationRepository;
+import com.example.gamevault.repository.VideoGameRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Its own database, since this context's pooled id blocks would otherwise overlap those of the shared test context.
+@SpringBootTest(properties = {
+        "gamevault.reservations.expiry.batch-size=4",
+        "spring.datasource.url=jdbc:h2:mem:gamevault-expiry;MODE=MySQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class ReservationExpiryServiceTest {
+
+    @Autowired
+    private ReservationExpiryService reservationExpiryService;
+
+    @Autowired
+    private PurchaseOrchestrator purchaseOrchestrator;
+
+    @Autowired
+    private GamerRepository gamerRepository;
+
+    @Autowired
+    private VideoGameRepository videoGameRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private CancellationRepository cancellationRepository;
+
+    private Gamer gamer;
+    private VideoGame videoGame;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        gamer = gamerRepository.save(new Gamer("Expiry Gamer", "gamer" + suffix, suffix + "@gmail.com", "password"));
+        videoGame = videoGameRepository.save(new VideoGame("Expiry Title " + suffix, "Expiry Creator", 20, Credits.of(1)));
+    }
+
+    @Test
+    void expireReservations_cancelsExpiredReservationsInBatchesAndReturnsStock() throws Throwable {
+        List<Reservation> expiredReservations = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            expiredReservations.add(expire(purchaseOrchestrator.reserve(gamer, videoGame.getId(), 1)));
+        }
+        Reservation activeReservation = purchaseOrchestrator.reserve(gamer, videoGame.getId(), 2);
+        assertEquals(8, quantityOf(videoGame));
+
+        reservationExpiryService.expireReservations(Instant.now());
+
+        assertEquals(18, quantityOf(videoGame));
+        for (Reservation reservation : expiredReservations) {
+            assertTrue(reservationRepository.findById(reservation.getId()).isEmpty());
+        }
+        assertTrue(reservationRepository.findById(activeReservation.getId()).isPresent());
+        List<Cancellation> cancellations = cancellationRepository.findByGamerIdOrderByIdDesc(gamer.getId(), Limit.of(20));
+        assertEquals(10, cancellations.size());
+        assertTrue(cancellations.stream().allMatch(cancellation -> Cancellation.EXPIRED.equals(cancellation.getReasonOfCancellation())));
+    }
+
+    @Test
+    void completeReservation_unsuccessfulOnceReservationHasExpired() throws Throwable {
+        Reservation reservation = expire(purchaseOrchestrator.reserve(gamer, videoGame.getId(), 3));
+        reservationExpiryService.expireReservations(Instant.now());
+
+        assertThrows(ReservationTransactionNotFoundException.class, () -> purchaseOrchestrator.completeReservation(gamer, reservation.getId()));
+        assertEquals(20, quantityOf(videoGame));
+        assertEquals(Credits.of(100) - reservation.getCreditsPaid(), gamerRepository.findById(gamer.getId()).orElseThrow().getTotalCredits());
+    }
+
+    private Reservation expire(Reservation reservation) {
+        reservation.setExpiresAt(Instant.now().minusSeconds(1));
+        return reservationRepository.save(reservation);
+    }
+
+    private int quantityOf(VideoGame videoGame) {
+        return videoGameRepository.findById(videoGame.getId()).orElseThrow().getQuantity();
+    }
+
+}
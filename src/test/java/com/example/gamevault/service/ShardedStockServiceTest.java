@@ -0,0 +1,171 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.exception.InsufficientVideoGameQuantityException;
+import com.example.gamevault.model.CatalogItem;
+import com.example.gamevault.model.Credits;
+import com.example.gamevault.model.Gamer;
+import com.example.gamevault.model.Reservation;
+import com.example.gamevault.model.VideoGame;
+import com.example.gamevault.model.VideoGameStockShard;
+import com.example.gamevault.repository.GamerRepository;
+import com.example.gamevault.repository.VideoGameRepository;
+import com.example.gamevault.repository.VideoGameStockShardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Its own database, since this context's pooled id blocks would otherwise overlap those of the shared test context.
+@SpringBootTest(properties = {
+        "gamevault.stock.sharding.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:gamevault-sharded;MODE=MySQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class ShardedStockServiceTest {
+
+    private static final int THREADS = 16;
+    private static final int STOCK = 50;
+
+    @Autowired
+    private ShardedStockService shardedStockService;
+
+    @Autowired
+    private PurchaseOrchestrator purchaseOrchestrator;
+
+    @Autowired
+    private VideoGameService videoGameService;
+
+    @Autowired
+    private CatalogCacheService catalogCacheService;
+
+    @Autowired
+    private GamerRepository gamerRepository;
+
+    @Autowired
+    private VideoGameRepository videoGameRepository;
+
+    @Autowired
+    private VideoGameStockShardRepository shardRepository;
+
+    private VideoGame videoGame;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        videoGame = videoGameRepository.save(new VideoGame("Hot Title " + suffix, "Hot Creator", STOCK, Credits.of(1)));
+    }
+
+    @Test
+    void shardVideoGame_spreadsStockOverShardsAndKeepsCatalogueTotal() {
+        shardedStockService.shardVideoGame(videoGame.getId(), 4);
+
+        assertTrue(shardedStockService.isSharded(videoGame.getId()));
+        assertEquals(List.of(13, 13, 12, 12), shardQuantities());
+        assertEquals(0, videoGameRepository.findById(videoGame.getId()).orElseThrow().getQuantity());
+        catalogCacheService.refresh();
+        assertEquals(STOCK, catalogQuantity());
+
+        shardedStockService.unshardVideoGame(videoGame.getId());
+
+        assertFalse(shardedStockService.isSharded(videoGame.getId()));
+        assertEquals(List.of(), shardQuantities());
+        assertEquals(STOCK, videoGameRepository.findById(videoGame.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void buy_takesQuantityAcrossShardsAndRejectsOnlyPastTotal() throws Throwable {
+        shardedStockService.shardVideoGame(videoGame.getId(), 4);
+        Gamer gamer = newGamer();
+
+        purchaseOrchestrator.buy(gamer, videoGame.getId(), 40);
+        assertEquals(10, shardQuantities().stream().mapToInt(Integer::intValue).sum());
+
+        assertThrows(InsufficientVideoGameQuantityException.class, () -> purchaseOrchestrator.buy(gamer, videoGame.getId(), 11));
+        purchaseOrchestrator.buy(gamer, videoGame.getId(), 10);
+        assertEquals(0, shardQuantities().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void cancelReservation_returnsStockToVideoGameRowWhichLaterPurchasesUse() throws Throwable {
+        shardedStockService.shardVideoGame(videoGame.getId(), 2);
+        Gamer gamer = newGamer();
+        Reservation reservation = purchaseOrchestrator.reserve(gamer, videoGame.getId(), STOCK);
+
+        purchaseOrchestrator.cancelReservation(gamer, reservation.getId());
+
+        assertEquals(STOCK, videoGameRepository.findById(videoGame.getId()).orElseThrow().getQuantity());
+        purchaseOrchestrator.buy(gamer, videoGame.getId(), STOCK);
+        assertThrows(InsufficientVideoGameQuantityException.class, () -> videoGameService.decreaseVideoGameQuantity(videoGame.getId(), 1));
+    }
+
+    @Test
+    void buy_concurrentPurchasesOfShardedTitleSellExactlyTheStock() throws Exception {
+        shardedStockService.shardVideoGame(videoGame.getId(), 4);
+        List<Gamer> gamers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            gamers.add(newGamer());
+        }
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejections = new AtomicInteger();
+        List<Throwable> unexpectedErrors = new CopyOnWriteArrayList<>();
+        CountDownLatch startGate = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (Gamer gamer : gamers) {
+            futures.add(executorService.submit(() -> {
+                startGate.await();
+                for (int attempt = 0; attempt < 5; attempt++) {
+                    int quantity = 1 + attempt % 3;
+                    try {
+                        purchaseOrchestrator.buy(gamer, videoGame.getId(), quantity);
+                        sold.addAndGet(quantity);
+                    } catch (InsufficientVideoGameQuantityException e) {
+                        rejections.incrementAndGet();
+                    } catch (Throwable e) {
+                        unexpectedErrors.add(e);
+                    }
+                }
+                return null;
+            }));
+        }
+        startGate.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executorService.shutdown();
+
+        assertTrue(unexpectedErrors.isEmpty(), "Unexpected errors: " + unexpectedErrors);
+        int left = shardQuantities().stream().mapToInt(Integer::intValue).sum();
+        assertEquals(STOCK, sold.get() + left);
+        assertTrue(rejections.get() > 0);
+        assertTrue(left < 3, "Rejected purchases while " + left + " remained.");
+    }
+
+    private Gamer newGamer() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        return gamerRepository.save(new Gamer("Sharded Gamer", "sharded" + suffix, suffix + "@gmail.com", "password"));
+    }
+
+    private List<Integer> shardQuantities() {
+        return shardRepository.findAll().stream()
+                .filter(shard -> shard.getVideoGameId() == videoGame.getId())
+                .sorted((first, second) -> Integer.compare(first.getShard(), second.getShard()))
+                .map(VideoGameStockShard::getQuantity)
+                .toList();
+    }
+
+    private int catalogQuantity() {
+        return catalogCacheService.getSnapshot().findById(videoGame.getId()).map(CatalogItem::getQuantity).orElseThrow();
+    }
+
+}
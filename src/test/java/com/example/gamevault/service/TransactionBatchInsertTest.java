@@ -0,0 +1,74 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.Credits;
+import com.example.gamevault.model.Gamer;
+import com.example.gamevault.model.Purchase;
+import com.example.gamevault.model.VideoGame;
+import com.example.gamevault.repository.GamerRepository;
+import com.example.gamevault.repository.PurchaseRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionBatchInsertTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private GamerRepository gamerRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void saveAll_insertsPurchasesInBatchesWithPooledIds() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        Gamer gamer = gamerRepository.save(new Gamer("Batch Gamer", "batch" + suffix, suffix + "@gmail.com", "password"));
+        VideoGame videoGame = new VideoGame("Batch Title " + suffix, "Batch Creator", 100, Credits.of(1));
+        List<Purchase> purchases = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            purchases.add(new Purchase(videoGame.getTitle(), videoGame.getCreator(), 1, videoGame.getCredits(), gamer));
+        }
+        statistics.clear();
+
+        transactionTemplate.executeWithoutResult(status -> purchaseRepository.saveAll(purchases));
+
+        assertEquals(100, statistics.getEntityInsertCount());
+        // 100 inserts at a batch size of 50, plus at most 3 sequence calls for blocks of 50 ids.
+        assertTrue(statistics.getPrepareStatementCount() <= 5, "Prepared statements: " + statistics.getPrepareStatementCount());
+        assertEquals(100, purchases.stream().map(Purchase::getId).distinct().count());
+    }
+
+}
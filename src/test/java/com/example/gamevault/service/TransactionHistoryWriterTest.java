@@ -0,0 +1,182 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.Credits;
+import com.example.gamevault.model.Gamer;
+import com.example.gamevault.model.Purchase;
+import com.example.gamevault.model.Reservation;
+import com.example.gamevault.model.VideoGame;
+import com.example.gamevault.repository.CancellationRepository;
+import com.example.gamevault.repository.GamerRepository;
+import com.example.gamevault.repository.PurchaseRepository;
+import com.example.gamevault.repository.VideoGameRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Its own database, since this context's pooled id blocks would otherwise overlap those of the shared test context.
+@SpringBootTest(properties = {
+        "gamevault.history.write-behind.enabled=true",
+        "gamevault.history.write-behind.batch-size=5",
+        "gamevault.history.write-behind.flush-interval-ms=50",
+        "spring.datasource.url=jdbc:h2:mem:gamevault-write-behind;MODE=MySQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class TransactionHistoryWriterTest {
+
+    @Autowired
+    private PurchaseOrchestrator purchaseOrchestrator;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionHistoryVersions transactionHistoryVersions;
+
+    @Autowired
+    private GamerRepository gamerRepository;
+
+    @Autowired
+    private VideoGameRepository videoGameRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private CancellationRepository cancellationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Gamer gamer;
+    private VideoGame videoGame;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        gamer = gamerRepository.save(new Gamer("Write Behind Gamer", "behind" + suffix, suffix + "@gmail.com", "password"));
+        videoGame = videoGameRepository.save(new VideoGame("Write Behind Title " + suffix, "Write Behind Creator", 100, Credits.of(1)));
+    }
+
+    @Test
+    void buy_updatesStockAndCreditsAtOnceAndWritesHistoryBehind() throws Throwable {
+        long creditsBefore = gamerRepository.findById(gamer.getId()).orElseThrow().getTotalCredits();
+        long versionBefore = transactionHistoryVersions.getVersion(gamer.getId());
+
+        for (int i = 0; i < 12; i++) {
+            purchaseOrchestrator.buy(gamer, videoGame.getId(), 1);
+        }
+        assertEquals(88, videoGameRepository.findById(videoGame.getId()).orElseThrow().getQuantity());
+        assertEquals(creditsBefore - Credits.of(12), gamerRepository.findById(gamer.getId()).orElseThrow().getTotalCredits());
+        Reservation reservation = purchaseOrchestrator.reserve(gamer, videoGame.getId(), 3);
+        purchaseOrchestrator.cancelReservation(gamer, reservation.getId());
+
+        assertEquals(88, videoGameRepository.findById(videoGame.getId()).orElseThrow().getQuantity());
+        awaitCount(12, this::purchaseCount);
+        awaitCount(1, this::cancellationCount);
+        assertEquals(12, transactionService.getPurchaseHistory(gamer.getId(), null).transactions().size());
+        assertTrue(transactionHistoryVersions.getVersion(gamer.getId()) >= versionBefore + 13);
+    }
+
+    @Test
+    void createPurchaseTransaction_writesNothingWhenOrderRollsBack() throws InterruptedException {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionService.createPurchaseTransaction(gamer, videoGame, 1);
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> transactionService.createPurchaseTransaction(gamer, videoGame, 2));
+
+        awaitCount(1, this::purchaseCount);
+        Thread.sleep(200);
+        assertEquals(1, purchaseCount());
+        assertEquals(2, purchaseRepository.findByGamerIdOrderByIdDesc(gamer.getId(), Limit.of(10)).get(0).getQuantity());
+    }
+
+    @Test
+    void stop_writesQueuedRowsAndLaterRowsAreWrittenDirectly() throws InterruptedException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TransactionHistoryWriter historyWriter = new TransactionHistoryWriter(entityManager, transactionManager,
+                meterRegistry, true, 100, 1000, 60_000, 100, 30_000, 50, 1000);
+        historyWriter.start();
+        for (int i = 0; i < 3; i++) {
+            historyWriter.writeAfterCommit(new Purchase(videoGame.getTitle(), videoGame.getCreator(), 1, Credits.of(1), gamer), () -> {
+            });
+        }
+        assertEquals(0, purchaseCount());
+
+        historyWriter.stop();
+        assertEquals(3, purchaseCount());
+
+        historyWriter.writeAfterCommit(new Purchase(videoGame.getTitle(), videoGame.getCreator(), 1, Credits.of(1), gamer), () -> {
+        });
+        assertEquals(4, purchaseCount());
+        assertEquals(1, meterRegistry.counter("gamevault.history.write-behind.rows", "result", "direct").count());
+    }
+
+    @Test
+    void write_retriesFailedRowsUntilWrittenAndOnlyThenReportsThem() throws InterruptedException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TransactionHistoryWriter historyWriter = new TransactionHistoryWriter(entityManager, transactionManager,
+                meterRegistry, true, 100, 1000, 10, 100, 30_000, 50, 1000);
+        historyWriter.start();
+        AtomicInteger callbacks = new AtomicInteger();
+        jdbcTemplate.execute("ALTER TABLE transaction RENAME TO transaction_unavailable");
+        try {
+            for (int i = 0; i < 2; i++) {
+                historyWriter.writeAfterCommit(new Purchase(videoGame.getTitle(), videoGame.getCreator(), 1, Credits.of(1), gamer), callbacks::incrementAndGet);
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.counter("gamevault.history.write-behind.rows", "result", "failed").count() < 4) {
+                assertTrue(System.nanoTime() < deadline, "History rows never retried.");
+                Thread.sleep(10);
+            }
+            assertEquals(0, meterRegistry.counter("gamevault.history.write-behind.rows", "result", "written").count());
+            assertEquals(0, callbacks.get());
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE transaction_unavailable RENAME TO transaction");
+        }
+
+        awaitCount(2, this::purchaseCount);
+        awaitCount(2, callbacks::get);
+        historyWriter.stop();
+        assertEquals(2, meterRegistry.counter("gamevault.history.write-behind.rows", "result", "written").count());
+    }
+
+    private int purchaseCount() {
+        return purchaseRepository.findByGamerIdOrderByIdDesc(gamer.getId(), Limit.of(100)).size();
+    }
+
+    private int cancellationCount() {
+        return cancellationRepository.findByGamerIdOrderByIdDesc(gamer.getId(), Limit.of(100)).size();
+    }
+
+    private static void awaitCount(int expected, IntSupplier count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count.getAsInt() < expected) {
+            assertTrue(System.nanoTime() < deadline, "History rows never written.");
+            Thread.sleep(10);
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.model.Credits;
+import com.example.gamevault.model.Gamer;
+import com.example.gamevault.model.Purchase;
+import com.example.gamevault.model.VideoGame;
+import com.example.gamevault.repository.GamerRepository;
+import com.example.gamevault.repository.VideoGameRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionServiceTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private GamerRepository gamerRepository;
+
+    @Autowired
+    private VideoGameRepository videoGameRepository;
+
+    @Test
+    void getPurchaseHistory_pagesNewestFirstWithoutGapsOrDuplicates() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        Gamer gamer = gamerRepository.save(new Gamer("History Gamer", "history" + suffix, suffix + "@gmail.com", "password"));
+        VideoGame videoGame = videoGameRepository.save(new VideoGame("History Title " + suffix, "History Creator", 100, Credits.of(1)));
+        int purchaseCount = TransactionService.HISTORY_PAGE_SIZE * 2 + 5;
+        List<Long> purchaseIds = new ArrayList<>();
+        for (int i = 0; i < purchaseCount; i++) {
+            purchaseIds.add(0, transactionService.createPurchaseTransaction(gamer, videoGame, 1).getId());
+        }
+
+        List<Long> pagedIds = new ArrayList<>();
+        Long before = null;
+        int pages = 0;
+        do {
+            TransactionHistoryPage<Purchase> page = transactionService.getPurchaseHistory(gamer.getId(), before);
+            assertTrue(page.transactions().size() <= TransactionService.HISTORY_PAGE_SIZE);
+            page.transactions().forEach(purchase -> pagedIds.add(purchase.getId()));
+            before = page.nextCursor();
+            pages++;
+        } while (before != null);
+
+        assertEquals(3, pages);
+        assertEquals(purchaseIds, pagedIds);
+    }
+
+    @Test
+    void getPurchaseHistoryBetween_returnsOnlyPurchasesOfGamerInRangeNewestFirst() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        Gamer gamer = gamerRepository.save(new Gamer("Range Gamer", "range" + suffix, suffix + "@gmail.com", "password"));
+        Gamer otherGamer = gamerRepository.save(new Gamer("Range Gamer", "other" + suffix, "other" + suffix + "@gmail.com", "password"));
+        VideoGame videoGame = videoGameRepository.save(new VideoGame("Range Title " + suffix, "Range Creator", 100, Credits.of(1)));
+        Instant from = Instant.now();
+        List<Long> purchaseIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            purchaseIds.add(0, transactionService.createPurchaseTransaction(gamer, videoGame, 1).getId());
+        }
+        transactionService.createPurchaseTransaction(otherGamer, videoGame, 1);
+        Instant to = Instant.now();
+
+        List<Purchase> purchases = transactionService.getPurchaseHistoryBetween(gamer.getId(), from, to);
+
+        assertEquals(3, purchases.size());
+        for (int i = 1; i < purchases.size(); i++) {
+            assertFalse(purchases.get(i).getTransactionTime().isAfter(purchases.get(i - 1).getTransactionTime()));
+        }
+        assertTrue(purchases.stream().map(Purchase::getId).toList().containsAll(purchaseIds));
+        assertTrue(transactionService.getPurchaseHistoryBetween(gamer.getId(), from.minusSeconds(60), from.minusSeconds(30)).isEmpty());
+    }
+
+    @Test
+    void getPurchaseHistory_emptyForGamerWithoutPurchases() {
+        TransactionHistoryPage<Purchase> page = transactionService.getPurchaseHistory(-1, null);
+        assertTrue(page.transactions().isEmpty());
+        assertNull(page.nextCursor());
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.example.gamevault.service;
+
+import com.example.gamevault.exception.InsufficientVideoGameQuantityException;
+import com.example.gamevault.model.VideoGame;
+import com.example.gamevault.repository.VideoGameRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class VideoGameServiceConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 50;
+
+    @Autowired
+    private VideoGameService videoGameService;
+
+    @Autowired
+    private VideoGameRepository videoGameRepository;
+
+    private VideoGame videoGame;
+
+    @BeforeEach
+    void setUp() {
+        videoGame = videoGameRepository.save(new VideoGame("Stress Test Title", "Stress Test Creator", 250, 5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        videoGameRepository.deleteById(videoGame.getId());
+    }
+
+    @Test
+    void decreaseVideoGameQuantity_neverOversellsUnderConcurrentRequests() throws Exception {
+        AtomicInteger quantitySold = new AtomicInteger();
+        AtomicInteger rejections = new AtomicInteger();
+        List<Throwable> unexpectedErrors = new CopyOnWriteArrayList<>();
+        CountDownLatch startGate = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            futures.add(executorService.submit(() -> {
+                startGate.await();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+                    int quantity = ThreadLocalRandom.current().nextInt(1, 4);
+                    try {
+                        videoGameService.decreaseVideoGameQuantity(videoGame.getId(), quantity);
+                        quantitySold.addAndGet(quantity);
+                    } catch (InsufficientVideoGameQuantityException e) {
+                        rejections.incrementAndGet();
+                    } catch (Throwable e) {
+                        unexpectedErrors.add(e);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        startGate.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executorService.shutdown();
+
+        int remainingQuantity = videoGameRepository.findById(videoGame.getId()).orElseThrow().getQuantity();
+        assertTrue(unexpectedErrors.isEmpty(), "Unexpected errors: " + unexpectedErrors);
+        assertTrue(remainingQuantity >= 0);
+        assertTrue(remainingQuantity < 3);
+        assertEquals(250, quantitySold.get() + remainingQuantity);
+        assertTrue(rejections.get() > 0);
+    }
+
+    @Test
+    void decreaseVideoGameQuantity_rejectsNonPositiveQuantity() {
+        assertThrows(InsufficientVideoGameQuantityException.class, () -> videoGameService.decreaseVideoGameQuantity(videoGame.getId(), 0));
+        assertThrows(InsufficientVideoGameQuantityException.class, () -> videoGameService.decreaseVideoGameQuantity(videoGame.getId(), -5));
+        assertEquals(250, videoGameRepository.findById(videoGame.getId()).orElseThrow().getQuantity());
+    }
+
+}